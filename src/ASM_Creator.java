@@ -1,28 +1,123 @@
-import java.io.FileWriter;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.Locale;
 
 /**
  * Class describes creator asm code
+ * code is made as list of instructions, text of instructions is made only when code is written
  */
 public class ASM_Creator {
     /* main AST */
     private final AST ast;
+    /* arena with nodes of main and functions AST */
+    private final NodeArena nodes;
     /* map with function AST, [] */
     private final HashMap<String, AST> defAST;
-    /* map for any operation block with asm code */
-    private final HashMap<String, String> operationBlocks;
+    /* map for any operation block with asm instructions */
+    private final EnumMap<TokenKind, InstructionBuffer> operationBlocks;
     /* global variable map, [var name - place in stack] */
     private HashMap<String, Integer> globalVariableMap;
-    /* result, asm code */
-    private final String asmCode;
+    /* result, instructions of all functions and then of _main, they are written in order of template */
+    private final InstructionBuffer asmCode;
+    /* prototypes of functions */
+    private final StringBuilder prototypes;
+    /* index of first instruction of _main in asmCode */
+    private int mainStart;
     /* pointer to new variable */
     private int varPointer;
+    /* count of variable places of function, which code is being made, with optimization places are
+       taken once by prolog, so variables are created without changing of esp */
+    private int frameSize;
+    /* place of variable of FOR cycle, which is kept in edi while code of cycle is made, null without such cycle */
+    private Integer counter;
+    /* true if expressions are made in registers and code is optimized by peephole optimizer */
+    private final boolean optimize;
+    /* count of registers needed for node of expression and flag of function calling inside node,
+       they are found by labelExpression() */
+    private int[] registerNeed;
+    private boolean[] callInside;
+    /* folder of constant operations, used only with optimization */
+    private ConstantFolder folder;
     /* global variables for setting epilog of IF statement */
-    String ifHashCode = "";
+    int ifHashCode = NodeArena.NONE;
     boolean ifFlag = false;
+    /* alignment of first instruction of cycle body */
+    private static final int LOOP_ALIGN = 16;
+    /* average count of characters of one instruction in asm text, it is used for size of text */
+    private static final int LINE_LENGTH = 16;
+    /* register operands */
+    private static final long EAX = Operand.register(Register.EAX), EBX = Operand.register(Register.EBX),
+            ECX = Operand.register(Register.ECX), EDX = Operand.register(Register.EDX),
+            EDI = Operand.register(Register.EDI),
+            EBP = Operand.register(Register.EBP), ESP = Operand.register(Register.ESP),
+            AL = Operand.register(Register.AL), CL = Operand.register(Register.CL);
+
+    /**
+     * Class describe block, which code is being made
+     * blocks are kept in stack instead of java stack, so nesting of blocks is limited only by heap
+     */
+    private static final class Block {
+        /* statement, which owns block, NONE for function and main blocks */
+        private final int statement;
+        /* pointer to new variable before block */
+        private final int memoryPointer;
+        /* hash codes and flags of cycles for BREAK and CONTINUE */
+        private final int forHashCode;
+        private final boolean forFlag;
+        private final int whileHashCode;
+        private final boolean whileFlag;
+        /* next statement, NONE if all statements are made */
+        private int next;
+
+        private Block(int first, int statement, int memoryPointer,
+                      int forHashCode, boolean forFlag, int whileHashCode, boolean whileFlag) {
+            this.next = first;
+            this.statement = statement;
+            this.memoryPointer = memoryPointer;
+            this.forHashCode = forHashCode;
+            this.forFlag = forFlag;
+            this.whileHashCode = whileHashCode;
+            this.whileFlag = whileFlag;
+        }
+    }
+
+    /**
+     * Class describe node of expression, which code is being made
+     */
+    private static final class Expression {
+        private final int node;
+        /* count of done steps, every step makes code of one child */
+        private int step;
+        /* next child of function calling, which code is not made */
+        private int child;
+        /* true if second operand is calculated first, because it needs more registers */
+        private boolean swapped;
+        /* operand, which is used without loading to register, NONE if both operands are loaded */
+        private int direct = NodeArena.NONE;
+        /* label for jumping if node is condition of branch, Operand.NONE if value of node is calculated */
+        private final long target;
+        /* value of condition, which makes jump */
+        private final boolean sense;
+
+        private Expression(int node) {
+            this(node, Operand.NONE, false);
+        }
+
+        private Expression(int node, long target, boolean sense) {
+            this.node = node;
+            this.target = target;
+            this.sense = sense;
+        }
+    }
 
     /* template for full asm file */
     private String masmTemplate = ".386\n" +
@@ -44,12 +139,7 @@ public class ASM_Creator {
             "\tinvoke  _NumbToStr, ebx, ADDR buff\n" +
             "\tinvoke  StdOut,eax\n" +
             "\tinvoke  ExitProcess,0\n\n" +
-            "_main PROC\n" +
-            "%s" + // insert code
-            "\npop ebx\n" +
-            "\n\tret\n\n" +
-            "_main ENDP\n\n" +
-            "%s" + // insert functions
+            "%s" + // insert _main and functions code
             "\n_NumbToStr PROC uses ebx x:DWORD,buffer:DWORD\n\n" +
             "\tmov     ecx,buffer\n" +
             "\tmov     eax,x\n" +
@@ -70,198 +160,171 @@ public class ASM_Creator {
             "END _start\n";
 
     /**
-     * creator starter
+     * creator starter, code is optimized
+     * main and functions AST must be kept in one arena
      * @param ast - main AST
      * @param defAST - functions AST map
      * @throws CompilerException - threw this exception
      */
     public ASM_Creator(AST ast, HashMap<String, AST> defAST) throws CompilerException {
+        this(ast, defAST, true);
+    }
+
+    /**
+     * creator starter
+     * main and functions AST must be kept in one arena
+     * @param ast - main AST
+     * @param defAST - functions AST map
+     * @param optimize - true if expressions are made in registers and code is optimized by peephole optimizer,
+     *                 false for code of stack templates
+     * @throws CompilerException - threw this exception
+     */
+    public ASM_Creator(AST ast, HashMap<String, AST> defAST, boolean optimize) throws CompilerException {
         /* initialise global variables */
         this.ast = ast;
+        this.nodes = ast.getNodes();
         this.defAST = defAST;
-        this.operationBlocks = new HashMap<>();
+        this.operationBlocks = new EnumMap<>(TokenKind.class);
         this.globalVariableMap = new HashMap<>();
         this.varPointer = -1;
+        this.optimize = optimize;
+        if (optimize){
+            this.registerNeed = new int[nodes.size()];
+            this.callInside = new boolean[nodes.size()];
+            this.folder = new ConstantFolder(nodes);
+        }
 
         /* fill map with asm fragments on every operation */
         loadOperationBlocks();
 
-        /* start creating code */
-        String[] functions = createFunctions();
-        this.asmCode = String.format(masmTemplate, functions[0], mainCode(), functions[1]);
-
+        /* start creating code, functions are made first, so their errors are found first */
+        this.asmCode = new InstructionBuffer(3 * nodes.size());
+        this.prototypes = new StringBuilder();
+        createFunctions();
+        this.mainStart = asmCode.size();
+        mainCode();
+
+        /* _main is optimized first, so its start is moved only once */
+        if (optimize){
+            Peephole peephole = new Peephole(asmCode);
+            peephole.optimize(mainStart, asmCode.size());
+            mainStart = peephole.optimize(0, mainStart);
+        }
     }
 
     /**
      * fill map with code fragments
+     * operations with operands code inside or with values are made by genExpCode()
      */
     private void loadOperationBlocks() {
         /* Operations for 1 args */
-        operationBlocks.put("NOT",  "\n\npop ebx\t; not\n" +
-                                    "xor eax, eax\n" +
-                                    "cmp eax, ebx\n" +
-                                    "sete al\n" +
-                                    "push eax");
+        operationBlocks.put(TokenKind.NOT,  new InstructionBuffer(5)
+                                    .add(Opcode.POP, EBX, "not")
+                                    .add(Opcode.XOR, EAX, EAX)
+                                    .add(Opcode.CMP, EAX, EBX)
+                                    .add(Opcode.SETE, AL)
+                                    .add(Opcode.PUSH, EAX));
 
-        operationBlocks.put("UNAR_ADD", "\n\n\t\t; unar add\n");
+        operationBlocks.put(TokenKind.UNAR_ADD, new InstructionBuffer(0));
 
-        operationBlocks.put("UNAR_SUB", "\n\npop ebx\t; unar sub\n" +
-                                        "neg ebx\n" +
-                                        "push ebx");
+        operationBlocks.put(TokenKind.UNAR_SUB, new InstructionBuffer(3)
+                                        .add(Opcode.POP, EBX, "unar sub")
+                                        .add(Opcode.NEG, EBX)
+                                        .add(Opcode.PUSH, EBX));
 
         /* Operations for 2 args */
-        operationBlocks.put("ADD",  "\n\npop ebx\t; add\n" +
-                                    "pop eax\n" +
-                                    "add ebx, eax\n" +
-                                    "push ebx");
-
-        operationBlocks.put("SUB",  "\n\npop ebx\t; sub\n" +
-                                    "pop eax\n" +
-                                    "sub eax, ebx\n" +
-                                    "push eax");
-
-        operationBlocks.put("MUL",  "\n\npop ebx\t; mul\n" +
-                                    "pop eax\n" +
-                                    "imul ebx, eax\n" +
-                                    "push ebx");
-
-        operationBlocks.put("DIV",  "\n\npop ebx\t; div\n" +
-                                    "pop eax\n" +
-                                    "cdq\n" +
-                                    "idiv ebx\n" +
-                                    "push eax");
-
-        operationBlocks.put("PERCENT",  "\n\npop ebx\t; div\n" +
-                                        "pop eax\n" +
-                                        "cdq\n" +
-                                        "idiv ebx\n" +
-                                        "push edx");
-
-        operationBlocks.put("BIT_AND",  "\n\npop ebx\t; bit_and\n" +
-                                        "pop eax\n" +
-                                        "and ebx, eax\n" +
-                                        "push ebx");
-
-        operationBlocks.put("BIT_OR",  "\n\npop ebx\t; bit_or\n" +
-                                        "pop eax\n" +
-                                        "or ebx, eax\n" +
-                                        "push ebx");
-
-        operationBlocks.put("BIT_XOR",  "\n\npop ebx\t; bit_xor\n" +
-                                        "pop eax\n" +
-                                        "xor ebx, eax\n" +
-                                        "push ebx");
-
-        operationBlocks.put("L_SHIFT",  "\n\npop ecx\t; left shift\n" +
-                                        "pop eax\n" +
-                                        "sal eax, cl\n" +
-                                        "push eax");
-
-        operationBlocks.put("R_SHIFT",  "\n\npop ecx\t; right shift\n" +
-                                        "pop eax\n" +
-                                        "sar eax, cl\n" +
-                                        "push eax");
-
-        operationBlocks.put("EQ",   "\n\npop ebx\t; equal\n" +
-                                    "pop eax\n" +
-                                    "cmp eax, ebx\n" +
-                                    "mov eax, 0\n" +
-                                    "sete al\n" +
-                                    "push eax");
-
-        operationBlocks.put("NE",   "\n\npop ebx\t; not equal\n" +
-                                    "pop eax\n" +
-                                    "cmp eax, ebx\n" +
-                                    "mov eax, 0\n" +
-                                    "setne al\n" +
-                                    "push eax");
-
-        operationBlocks.put("GE",   "\n\npop ebx\t; great or equal\n" +
-                                    "pop eax\n" +
-                                    "cmp eax, ebx\n" +
-                                    "mov eax, 0\n" +
-                                    "setge al\n" +
-                                    "push eax");
-
-        operationBlocks.put("LE",   "\n\npop ebx\t; less or equal\n" +
-                                    "pop eax\n" +
-                                    "cmp eax, ebx\n" +
-                                    "mov eax, 0\n" +
-                                    "setle al\n" +
-                                    "push eax");
-
-        operationBlocks.put("GT",   "\n\npop ebx\t; great then\n" +
-                                    "pop eax\n" +
-                                    "cmp eax, ebx\n" +
-                                    "mov eax, 0\n" +
-                                    "setg al\n" +
-                                    "push eax");
-
-        operationBlocks.put("LT",   "\n\npop ebx\t; less then\n" +
-                                    "pop eax\n" +
-                                    "cmp eax, ebx\n" +
-                                    "mov eax, 0\n" +
-                                    "setl al\n" +
-                                    "push eax");
-
-        operationBlocks.put("AND",  "\n\npop eax\t; and\n" +
-                                    "cmp eax, 0\n" +
-                                    "jne _clause%1$d\n" +
-                                    "jmp _end%1$d\n" +
-                                    "_clause%1$d:\n" +
-                                    "\n%2$s\n" +
-                                    "\n\npop eax\n" +
-                                    "cmp eax, 0\n" +
-                                    "mov eax, 0\n" +
-                                    "setne al\n" +
-                                    "_end%1$d:\n" +
-                                    "push eax");
-
-        operationBlocks.put("OR",  "\n\npop eax\t; or\n" +
-                                    "cmp eax, 0\n" +
-                                    "je _clause%1$d\n" +
-                                    "mov eax, 1\n" +
-                                    "jmp _end%1$d\n" +
-                                    "_clause%1$d:\n" +
-                                    "\n%2$s\n" +
-                                    "\n\npop eax\n" +
-                                    "cmp eax, 0\n" +
-                                    "mov eax, 0\n" +
-                                    "setne al\n" +
-                                    "_end%1$d:\n" +
-                                    "push eax");
-
-        /* if operators */
-        operationBlocks.put("TERNAR",   "\n\npop eax\t; ternar if\n" +      // before is condition (0)
-                                        "cmp eax, 0\n" +
-                                        "je _ternar_false_%1$d\n" +
-                                        "\n%2$s\n" +                        // if true (1)
-                                        "jmp _ternar_end_%1$d\n" +
-                                        "_ternar_false_%1$d:\n" +
-                                        "\n%3$s\n" +                        // if false (2)
-                                        "_ternar_end_%1$d:");
-
-        /* get vars/values */
-        operationBlocks.put("INT", "\n\npush %s\t; int");
-        operationBlocks.put("INT(CHAR)", "\n\npush %s\t; int(char)");
-        operationBlocks.put("INT(FLOAT)", "\n\npush %s\t; int(float)");
-        operationBlocks.put("INT(BINNUM)", "\n\npush %s\t; int(binnum)");
-        operationBlocks.put("INT(OCTNUM)", "\n\npush %s\t; int(octnum)");
-        operationBlocks.put("INT(HEXNUM)", "\n\npush %s\t; int(hexnum)");
-
-        operationBlocks.put("ID",   "\n\nmov ebx, [ebp-%d]\t; get var: %s\n" +
-                                    "push ebx");
+        operationBlocks.put(TokenKind.ADD,  binaryBlock(Opcode.ADD, "add"));
+        operationBlocks.put(TokenKind.MUL,  binaryBlock(Opcode.IMUL, "mul"));
+        operationBlocks.put(TokenKind.BIT_AND,  binaryBlock(Opcode.AND, "bit_and"));
+        operationBlocks.put(TokenKind.BIT_OR,  binaryBlock(Opcode.OR, "bit_or"));
+        operationBlocks.put(TokenKind.BIT_XOR,  binaryBlock(Opcode.XOR, "bit_xor"));
+
+        operationBlocks.put(TokenKind.SUB,  new InstructionBuffer(4)
+                                    .add(Opcode.POP, EBX, "sub")
+                                    .add(Opcode.POP, EAX)
+                                    .add(Opcode.SUB, EAX, EBX)
+                                    .add(Opcode.PUSH, EAX));
+
+        operationBlocks.put(TokenKind.DIV,  new InstructionBuffer(5)
+                                    .add(Opcode.POP, EBX, "div")
+                                    .add(Opcode.POP, EAX)
+                                    .add(Opcode.CDQ)
+                                    .add(Opcode.IDIV, EBX)
+                                    .add(Opcode.PUSH, EAX));
+
+        operationBlocks.put(TokenKind.PERCENT,  new InstructionBuffer(5)
+                                        .add(Opcode.POP, EBX, "div")
+                                        .add(Opcode.POP, EAX)
+                                        .add(Opcode.CDQ)
+                                        .add(Opcode.IDIV, EBX)
+                                        .add(Opcode.PUSH, EDX));
+
+        operationBlocks.put(TokenKind.L_SHIFT,  shiftBlock(Opcode.SAL, "left shift"));
+        operationBlocks.put(TokenKind.R_SHIFT,  shiftBlock(Opcode.SAR, "right shift"));
+
+        operationBlocks.put(TokenKind.EQ,   compareBlock(Opcode.SETE, "equal"));
+        operationBlocks.put(TokenKind.NE,   compareBlock(Opcode.SETNE, "not equal"));
+        operationBlocks.put(TokenKind.GE,   compareBlock(Opcode.SETGE, "great or equal"));
+        operationBlocks.put(TokenKind.LE,   compareBlock(Opcode.SETLE, "less or equal"));
+        operationBlocks.put(TokenKind.GT,   compareBlock(Opcode.SETG, "great then"));
+        operationBlocks.put(TokenKind.LT,   compareBlock(Opcode.SETL, "less then"));
+    }
+
+    /**
+     * make block of commutative operation, result is in ebx
+     * @param opcode - operation
+     * @param comment - name of operation
+     * @return - block
+     */
+    private static InstructionBuffer binaryBlock(Opcode opcode, String comment) {
+        return new InstructionBuffer(4)
+                .add(Opcode.POP, EBX, comment)
+                .add(Opcode.POP, EAX)
+                .add(opcode, EBX, EAX)
+                .add(Opcode.PUSH, EBX);
+    }
+
+    /**
+     * make block of shift, count of bits is in cl
+     * @param opcode - shift
+     * @param comment - name of shift
+     * @return - block
+     */
+    private static InstructionBuffer shiftBlock(Opcode opcode, String comment) {
+        return new InstructionBuffer(4)
+                .add(Opcode.POP, ECX, comment)
+                .add(Opcode.POP, EAX)
+                .add(opcode, EAX, CL)
+                .add(Opcode.PUSH, EAX);
+    }
+
+    /**
+     * make block of comparing, result is 1 or 0
+     * @param set - SETcc instruction of condition
+     * @param comment - name of comparing
+     * @return - block
+     */
+    private static InstructionBuffer compareBlock(Opcode set, String comment) {
+        return new InstructionBuffer(6)
+                .add(Opcode.POP, EBX, comment)
+                .add(Opcode.POP, EAX)
+                .add(Opcode.CMP, EAX, EBX)
+                .add(Opcode.MOV, EAX, Operand.immediate(0))
+                .add(set, AL)
+                .add(Opcode.PUSH, EAX);
     }
 
     /**
      * write asmCode to file
+     * parts of template and instructions are written in order of template, without making whole text
      * @param fileName - file name
      * @return - writing result
      */
     public boolean createFile(String fileName){
-        try(FileWriter writer = new FileWriter(fileName, false))
+        try(Writer writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(Paths.get(fileName)),
+                Charset.defaultCharset())))
         {
-            writer.write(asmCode);
+            writeCode(writer);
             writer.flush();
             return true;
         }
@@ -272,501 +335,1578 @@ public class ASM_Creator {
     }
 
     /**
-     * create prototypes and procedure body code in array
-     * @return - array with code
-     * @throws CompilerException - if AST is incorrect, it throw this exception
+     * write full asm text: template with prototypes, _main code and functions code
+     * @param out - output
+     * @throws IOException - writing error
      */
-    private String[] createFunctions() throws CompilerException {
-        /* 0 - PROTO, 1 - functions */
-        String[] functions = {"" ,""};
+    private void writeCode(Appendable out) throws IOException {
+        String[] template = masmTemplate.split("%s", -1);
+
+        out.append(template[0]).append(prototypes).append(template[1]);
+        asmCode.print(mainStart, asmCode.size(), out);
+        asmCode.print(0, mainStart, out);
+        out.append(template[2]);
+    }
 
+    /**
+     * create prototypes and procedure body code
+     * @throws CompilerException - if AST is incorrect, it throw this exception
+     */
+    private void createFunctions() throws CompilerException {
         /* make asm code for all functions */
         for (String defName: defAST.keySet()) {
             /* make PROTO for {defName} */
-            functions[0] += String.format("%s PROTO\n", defName);
+            prototypes.append(defName).append(" PROTO\n");
 
             /* make {defName} prolog */
-            StringBuilder funcTempl = new StringBuilder(String.format("%s PROC\n" +
-                                                                    "push ebp\n" +
-                                                                    "mov ebp, esp\n", defName));
+            asmCode.add(Opcode.PROC, asmCode.symbol(defName))
+                    .add(Opcode.PUSH, EBP)
+                    .add(Opcode.MOV, EBP, ESP);
+            int frame = genFrameCode(asmCode);
 
             /* generate variable map for parameters */
             ArrayList<HashMap<String, Integer>> paramsList = new ArrayList<>();
             HashMap<String, Integer> paramsMap = new HashMap<>();
-            for (Node_AST param :
-                    defAST.get(defName).getRoot().getChild(0).getChildren()) {
-                if (paramsMap.containsKey(param.getCurrent().getValue()))
-                    throw new CompilerException("This parameter is already created!", param.getCurrent());
+            int root = defAST.get(defName).getRoot();
+            for (int param = nodes.getFirstChild(nodes.getFirstChild(root)); param != NodeArena.NONE;
+                 param = nodes.getNextSibling(param)) {
+                if (paramsMap.containsKey(nodes.getValue(param)))
+                    throw new CompilerException("This parameter is already created!", nodes.getToken(param));
 
-                paramsMap.put(param.getCurrent().getValue(), -paramsMap.size()-2);
+                paramsMap.put(nodes.getValue(param), -paramsMap.size()-2);
             }
             paramsList.add(paramsMap);
 
-            funcTempl.append(genBlockCode(defAST.get(defName).getRoot().getChildren(), paramsList,
-                    "", false,
-                    "", false));
+            genBlockCode(nodes.getFirstChild(root), paramsList,
+                    NodeArena.NONE, false,
+                    NodeArena.NONE, false, asmCode);
 
             /* append ending of IF construction using ifFlag */
             if (ifFlag){
-                funcTempl.append(String.format("_if_end_%s:\n", ifHashCode));
+                asmCode.add(Opcode.LABEL, asmCode.label("_if_end_", ifHashCode));
                 ifFlag = false;
             }
 
             /* make {defName} epilog */
-            funcTempl.append(String.format( "\npop edx\n" +
-                                            "mov esp, ebp\n" +
-                                            "pop ebp\n" +
-                                            "ret\n" +
-                                            "%s ENDP\n\n", defName));
-            functions[1] += funcTempl;
+            closeFrame(frame, asmCode);
+            genReturnCode(asmCode);
+            asmCode.add(Opcode.ENDP, asmCode.symbol(defName));
         }
+    }
 
-        return functions;
+    /**
+     * make code, which takes places for variables of function, their count is known after code of function,
+     * so count is set by closeFrame()
+     * @param code - code for appending
+     * @return - index of instruction, which takes places, NodeArena.NONE without optimization
+     */
+    private int genFrameCode(InstructionBuffer code) {
+        frameSize = 0;
+        if (!optimize)
+            return NodeArena.NONE;
+        code.add(Opcode.SUB, ESP, Operand.immediate(0));
+        return code.size() - 1;
+    }
+
+    /**
+     * set count of places taken by function and free them at the end of function,
+     * so esp is the same as after freeing variables of blocks by template code
+     * @param frame - index of instruction, which takes places, from genFrameCode()
+     * @param code - code for appending
+     */
+    private void closeFrame(int frame, InstructionBuffer code) {
+        if (frame == NodeArena.NONE)
+            return;
+        code.set(frame, Opcode.SUB, ESP, Operand.immediate(4*frameSize), InstructionBuffer.NO_COMMENT);
+        code.add(Opcode.ADD, ESP, Operand.immediate(4*frameSize));
+    }
+
+    /**
+     * make code for leaving function, value on top of stack is result
+     * @param code - code for appending
+     */
+    private void genReturnCode(InstructionBuffer code) {
+        code.add(Opcode.POP, EDX)
+                .add(Opcode.MOV, ESP, EBP)
+                .add(Opcode.POP, EBP)
+                .add(Opcode.RET);
     }
 
     /**
      * make code fragment for block zone
-     * @param block - block in list format
+     * nested blocks are generated in loop, not finished blocks are kept in stack
+     * @param first - first statement of block, next statements are its siblings
      * @param variableMap - list with stack of variable, current is the last in it
-     * @return - code
+     * @param blockCode - code for appending
      * @throws CompilerException - if AST is incorrect, it throw this exception
      */
-    private String genBlockCode(ArrayList<Node_AST> block, ArrayList<HashMap<String, Integer>> variableMap,
-                                String forHashCode, boolean forFlag,
-                                String whileHashCode, boolean whileFlag)
+    private void genBlockCode(int first, ArrayList<HashMap<String, Integer>> variableMap,
+                              int forHashCode, boolean forFlag,
+                              int whileHashCode, boolean whileFlag, InstructionBuffer blockCode)
             throws CompilerException {
-        StringBuilder blockCode = new StringBuilder();
-        int memoryPointer = varPointer;
-        variableMap.add(new HashMap<>());
+        ArrayDeque<Block> blocks = new ArrayDeque<>();
+        openBlock(blocks, variableMap, new Block(first, NodeArena.NONE, varPointer,
+                forHashCode, forFlag, whileHashCode, whileFlag));
+
+        while (!blocks.isEmpty()){
+            Block current = blocks.peek();
+
+            /* all statements are generated, close block */
+            if (current.next == NodeArena.NONE){
+                blocks.pop();
+                closeBlock(current, variableMap, blockCode);
+                continue;
+            }
 
-        /* go by every statement in function body */
-        for (Node_AST child: block) {
+            /* go by every statement in block */
+            int child = current.next;
+            current.next = nodes.getNextSibling(child);
 
             /* if found PARAMS continue */
-            if (child.getCurrent().getType().equals("PARAMS"))
+            if (nodes.getKind(child) == TokenKind.PARAMS)
                 continue;
 
-            blockCode.append(genBlockItemCode(child, variableMap,
-                    forHashCode, forFlag, whileHashCode, whileFlag));
+            genBlockItemCode(child, variableMap, current, blocks, blockCode);
         }
+    }
 
-        blockCode.append(String.format("add esp, %d\n", 4*variableMap.get(variableMap.size()-1).size()));
+    /**
+     * start new block, its variables are kept in new map
+     * @param blocks - stack of not finished blocks
+     * @param variableMap - list with stack of variable, current is the last in it
+     * @param block - new block
+     */
+    private void openBlock(ArrayDeque<Block> blocks, ArrayList<HashMap<String, Integer>> variableMap, Block block){
+        blocks.push(block);
+        variableMap.add(new HashMap<>());
+    }
+
+    /**
+     * free variables of finished block and make code after block of its statement
+     * @param block - finished block
+     * @param variableMap - list with stack of variable, current is the last in it
+     * @param code - code for appending
+     * @throws CompilerException - if AST is incorrect, it throw this exception
+     */
+    private void closeBlock(Block block, ArrayList<HashMap<String, Integer>> variableMap, InstructionBuffer code)
+            throws CompilerException {
+        /* with optimization variables are kept in places of function */
+        if (!optimize)
+            code.add(Opcode.ADD, ESP, Operand.immediate(4*variableMap.get(variableMap.size()-1).size()));
 
         variableMap.remove(variableMap.size()-1);
-        varPointer = memoryPointer;
-        return blockCode.toString();
+        varPointer = block.memoryPointer;
+
+        if (block.statement == NodeArena.NONE)
+            return;
+
+        switch (nodes.getKind(block.statement)){
+
+            /* if true, jump to end, next code will false */
+            case IF:{
+                code.add(Opcode.JMP, code.label("_if_end_", ifHashCode))
+                        .add(Opcode.LABEL, code.label("_if_false_", ifHashCode));
+                break;
+            }
+
+            /* if true, jump to if end, next code will false */
+            case ELIF:{
+                code.add(Opcode.JMP, code.label("_if_end_", ifHashCode))
+                        .add(Opcode.LABEL, code.label("_elif_false_", block.statement));
+                break;
+            }
+
+            /* change cycle variable and go to FOR condition */
+            case FOR:{
+                code.add(Opcode.LABEL, code.label("_for_cont_", block.forHashCode));
+                genExpCode(variableMap, nodes.getChild(block.statement, 2), code);
+                if (optimize)
+                    genLoopCondition(variableMap, nodes.getChild(block.statement, 1),
+                            code.label("_for_", block.forHashCode), code.label("_for_body_", block.forHashCode), code);
+                else
+                    code.add(Opcode.JMP, code.label("_for_", block.forHashCode));
+                code.add(Opcode.LABEL, code.label("_for_end_", block.forHashCode));
+
+                /* all exits of cycle go through its end, so cycle variable is put back to its place here */
+                if (counter != null){
+                    code.add(Opcode.MOV, variable(counter), EDI,
+                            "put var: " + nodes.getValue(nodes.getChild(block.statement, 0)));
+                    counter = null;
+                }
+                break;
+            }
+
+            /* go to WHILE condition, with optimization labels are made by WHILE node, like for BREAK and CONTINUE */
+            case WHILE:{
+                if (optimize)
+                    genLoopCondition(variableMap, nodes.getChild(block.statement, 0),
+                            code.label("_while_", block.statement), code.label("_while_body_", block.statement), code);
+                else
+                    code.add(Opcode.JMP, code.label("_while_", block.forHashCode));
+                code.add(Opcode.LABEL, code.label("_while_end_", optimize ? block.statement : block.forHashCode));
+                break;
+            }
+        }
     }
 
     /**
      * make code for any statement
+     * statement with block makes code before block and opens block, code after block is made by closeBlock()
      * @param blockItem - statement (block-item type)
      * @param variableMap - list with stack of variable, current is the last in it
-     * @param forHashCode - hash code of FOR Node_AST for generating cycles
-     * @param forFlag - flag for correct generating FOR cycles
-     * @param whileHashCode - hash code of WHILE Node_AST for generating cycles
-     * @param whileFlag - flag for correct generating WHILE cycles
-     * @return - block-item code
+     * @param block - block of statement, it has hash codes and flags of cycles
+     * @param blocks - stack of not finished blocks
+     * @param blockItemCode - code for appending
      * @throws CompilerException - if AST is incorrect, it throw this exception
      */
-    private String genBlockItemCode(Node_AST blockItem, ArrayList<HashMap<String, Integer>> variableMap,
-                                    String forHashCode, boolean forFlag,
-                                    String whileHashCode, boolean whileFlag)
+    private void genBlockItemCode(int blockItem, ArrayList<HashMap<String, Integer>> variableMap,
+                                  Block block, ArrayDeque<Block> blocks, InstructionBuffer blockItemCode)
             throws CompilerException {
-        StringBuilder blockItemCode = new StringBuilder();
-
         /* append ending of IF construction using ifFlag */
-        if (!blockItem.getCurrent().getType().equals("IF") &&
-                !blockItem.getCurrent().getType().equals("ELIF") &&
-                !blockItem.getCurrent().getType().equals("ELSE") && ifFlag){
-            blockItemCode.append(String.format("_if_end_%s:\n", ifHashCode));
+        if (nodes.getKind(blockItem) != TokenKind.IF &&
+                nodes.getKind(blockItem) != TokenKind.ELIF &&
+                nodes.getKind(blockItem) != TokenKind.ELSE && ifFlag){
+            blockItemCode.add(Opcode.LABEL, blockItemCode.label("_if_end_", ifHashCode));
             ifFlag = false;
         }
 
-        switch (blockItem.getCurrent().getType()){
+        switch (nodes.getKind(blockItem)){
 
             /* RETURN statement, make retFlag true and break from function */
-            case "RETURN":{
-                blockItemCode.append(genExpCode(variableMap, blockItem.getChild(0)));
-                blockItemCode.append(   "\npop edx\n" +
-                                        "mov esp, ebp\n" +
-                                        "pop ebp\n" +
-                                        "ret\n");
+            case RETURN:{
+                genExpCode(variableMap, nodes.getChild(blockItem, 0), blockItemCode);
+                genReturnCode(blockItemCode);
                 break;
             }
 
             /* BREAK statement, get out from last cycle */
-            case "BREAK":{
-                if (forFlag){
-                    blockItemCode.append(String.format("\njmp _for_end_%s\n", forHashCode));
+            case BREAK:{
+                if (block.forFlag){
+                    blockItemCode.add(Opcode.JMP, blockItemCode.label("_for_end_", block.forHashCode));
                 }
                 else {
-                    if (whileFlag){
-                        blockItemCode.append(String.format("\njmp _while_end_%s\n", whileHashCode));
+                    if (block.whileFlag){
+                        blockItemCode.add(Opcode.JMP, blockItemCode.label("_while_end_", block.whileHashCode));
                     }
                     else
-                        throw new CompilerException("Found BREAK without FOR", blockItem.getCurrent());
+                        throw new CompilerException("Found BREAK without FOR", nodes.getToken(blockItem));
                 }
                 break;
             }
 
             /* CONTINUE statement, get out from last cycle */
-            case "CONTINUE":{
-                if (forFlag){
-                    blockItemCode.append(String.format("\njmp _for_cont_%s\n", forHashCode));
+            case CONTINUE:{
+                if (block.forFlag){
+                    blockItemCode.add(Opcode.JMP, blockItemCode.label("_for_cont_", block.forHashCode));
                 }
                 else {
-                    if (whileFlag) {
-                        blockItemCode.append(String.format("\njmp _while_%s\n", whileHashCode));
+                    if (block.whileFlag) {
+                        blockItemCode.add(Opcode.JMP, blockItemCode.label("_while_", block.whileHashCode));
                     }
                     else
-                        throw new CompilerException("Found CONTINUE without FOR", blockItem.getCurrent());
+                        throw new CompilerException("Found CONTINUE without FOR", nodes.getToken(blockItem));
                 }
                 break;
             }
 
             /* ID statement */
-            case "ID":{
-                if (blockItem.getChildren().size() == 0){
+            case ID:{
+                if (nodes.getFirstChild(blockItem) == NodeArena.NONE){
                     throw new CompilerException("Variable referenced before assignment",
-                            blockItem.getCurrent());
+                            nodes.getToken(blockItem));
                 }
-                blockItemCode.append(genExpCode(variableMap, blockItem));
+                genExpCode(variableMap, blockItem, blockItemCode);
                 break;
             }
 
             /* IF statement */
-            case "IF" :{
+            case IF:{
                 /* remember hashcode for jumping on special sign */
-                ifHashCode = blockItem.hashCode()+"";
+                ifHashCode = blockItem;
                 ifFlag = true;
 
                 /* initialise IF condition */
-                blockItemCode.append(genExpCode(variableMap, blockItem.getChild(0)))
-                        .append(   "\n\npop eax\t; if condition\n" + // before is condition IF <EXP> ":" (0)
-                                    "cmp eax, 0\n")
-                        /* jump if <EXP> is false */
-                        .append(String.format("je _if_false_%s\n", ifHashCode));
+                /* jump if <EXP> is false */
+                genConditionCode(variableMap, nodes.getChild(blockItem, 0),   // before is condition IF <EXP> ":" (0)
+                        blockItemCode.label("_if_false_", ifHashCode), "if condition", blockItemCode);
 
-                if (blockItem.getChild(1).getChildren().size() == 0){
-                    throw new CompilerException("This token need to have block body", blockItem.getCurrent());
+                if (nodes.getFirstChild(nodes.getChild(blockItem, 1)) == NodeArena.NONE){
+                    throw new CompilerException("This token need to have block body", nodes.getToken(blockItem));
                 }
 
                 /* create code for IF true part */
-                blockItemCode.append(genBlockCode(blockItem.getChild(1).getChildren(), variableMap,
-                        forHashCode, forFlag,
-                        whileHashCode, whileFlag));
-
-                /* if true, jump to end, next code will false */
-                blockItemCode.append(String.format(   "\n\njmp _if_end_%1$s\n"+
-                        "_if_false_%1$s:\n", ifHashCode));
+                openBlock(blocks, variableMap, new Block(nodes.getFirstChild(nodes.getChild(blockItem, 1)),
+                        blockItem, varPointer,
+                        block.forHashCode, block.forFlag,
+                        block.whileHashCode, block.whileFlag));
                 break;
             }
 
             /* ELIF statement */
-            case "ELIF":{
+            case ELIF:{
                 if (!ifFlag){
-                    throw new CompilerException("IF token was missed", blockItem.getCurrent());
+                    throw new CompilerException("IF token was missed", nodes.getToken(blockItem));
                 }
 
                 /* initialise ELIF condition */
-                blockItemCode.append(genExpCode(variableMap, blockItem.getChild(0)))
-                        .append(   "\n\npop eax\t; elif condition\n" +  // before is condition ELIF <EXP> ":" (0)
-                                    "cmp eax, 0\n")
-                        /* jump elif <EXP> is false */
-                        .append(String.format("je _elif_false_%d", blockItem.hashCode()));
+                /* jump elif <EXP> is false */
+                genConditionCode(variableMap, nodes.getChild(blockItem, 0),   // before is condition ELIF <EXP> ":" (0)
+                        blockItemCode.label("_elif_false_", blockItem), "elif condition", blockItemCode);
 
-                if (blockItem.getChild(1).getChildren().size() == 0){
-                    throw new CompilerException("This token need to have block body", blockItem.getCurrent());
+                if (nodes.getFirstChild(nodes.getChild(blockItem, 1)) == NodeArena.NONE){
+                    throw new CompilerException("This token need to have block body", nodes.getToken(blockItem));
                 }
 
                 /* create code for ELIF true part */
-                blockItemCode.append(genBlockCode(blockItem.getChild(1).getChildren(), variableMap,
-                        forHashCode, forFlag,
-                        whileHashCode, whileFlag));
-                /*for (Node_AST node: blockItem.getChild(1).getChildren()) {
-                    blockItemCode.append(genExpCode(localVars, node));
-                }*/
-
-                /* if true, jump to if end, next code will false */
-                blockItemCode.append(String.format( "\n\njmp _if_end_%s\n"+
-                        "_elif_false_%d:", ifHashCode, blockItem.hashCode()));
+                openBlock(blocks, variableMap, new Block(nodes.getFirstChild(nodes.getChild(blockItem, 1)),
+                        blockItem, varPointer,
+                        block.forHashCode, block.forFlag,
+                        block.whileHashCode, block.whileFlag));
                 break;
             }
 
             /* ELSE statement */
-            case "ELSE":{
+            case ELSE:{
                 if (!ifFlag){
-                    throw new CompilerException("IF token was missed", blockItem.getCurrent());
+                    throw new CompilerException("IF token was missed", nodes.getToken(blockItem));
                 }
-                if (blockItem.getChildren().size() == 0){
-                    throw new CompilerException("This token need to have block body", blockItem.getCurrent());
+                if (nodes.getFirstChild(blockItem) == NodeArena.NONE){
+                    throw new CompilerException("This token need to have block body", nodes.getToken(blockItem));
                 }
                 /* ELSE has not true body */
-                blockItemCode.append("\n\n\t\t; else");
-
                 /* create code for ELSE part */
-                blockItemCode.append(genBlockCode(blockItem.getChildren(), variableMap,
-                        forHashCode, forFlag,
-                        whileHashCode, whileFlag));
-                /*for (Node_AST node: blockItem.getChildren()) {
-                    blockItemCode.append(genExpCode(localVars, node));
-                }*/
+                openBlock(blocks, variableMap, new Block(nodes.getFirstChild(blockItem),
+                        blockItem, varPointer,
+                        block.forHashCode, block.forFlag,
+                        block.whileHashCode, block.whileFlag));
                 break;
             }
 
             /* FOR statement */
-            case "FOR":{
+            case FOR:{
                 /* remember hashcode for jumping on special sign */
-                forHashCode = blockItem.hashCode()+"";
+                int forHashCode = blockItem;
 
-                if (blockItem.getChild(3).getChildren().size() == 0){// before is creating cycle variable
-                    throw new CompilerException("This token need to have block body", blockItem.getCurrent());
+                if (nodes.getFirstChild(nodes.getChild(blockItem, 3)) == NodeArena.NONE){// before is creating cycle variable
+                    throw new CompilerException("This token need to have block body", nodes.getToken(blockItem));
                 }
 
-                /* initialise FOR condition */
-                blockItemCode.append(String.format( "\n%1$s\n" +
-                                                    "\n_for_%2$s:\t; for\n" +
-                                                    "\n%3$s\n" +
-                                                    "\npop eax\n" +
-                                                    "cmp eax, 0\n" +
-                                                    "je _for_end_%2$s\n" +
-                                                    "\n%4$s\n" +
-                                                    "\n_for_cont_%2$s:\n" +
-                                                    "\n%5$s\n" +
-                                                    "\njmp _for_%2$s\n" +
-                                                    "_for_end_%2$s:",
-                        genExpCode(variableMap, blockItem.getChild(0)),
-                        forHashCode,
-                        genExpCode(variableMap, blockItem.getChild(1)),
-                        /* create code for FOR body */
-                        genBlockCode(blockItem.getChild(3).getChildren(), variableMap,
-                                forHashCode, true,
-                                whileHashCode, whileFlag),
-                        genExpCode(variableMap, blockItem.getChild(2))));
+                /* initialise FOR condition, cycle with constant range, which is not empty, has no check */
+                genExpCode(variableMap, nodes.getChild(blockItem, 0), blockItemCode);
+                if (optimize){
+                    if (isCounted(blockItem)){
+                        int variable = nodes.getChild(blockItem, 0);
+                        counter = findVariable(variableMap, variable);
+                        blockItemCode.add(Opcode.MOV, EDI, variable(counter), "get var: " + nodes.getValue(variable));
+                    }
+                    if (!isEntered(blockItem))
+                        genLoopEntry(variableMap, nodes.getChild(blockItem, 1),
+                                blockItemCode.label("_for_", forHashCode),
+                                blockItemCode.label("_for_end_", forHashCode), blockItemCode);
+                    blockItemCode.add(Opcode.ALIGN, Operand.immediate(LOOP_ALIGN))
+                            .add(Opcode.LABEL, blockItemCode.label("_for_body_", forHashCode), "for");
+                }
+                else {
+                    blockItemCode.add(Opcode.LABEL, blockItemCode.label("_for_", forHashCode), "for");
+                    genConditionCode(variableMap, nodes.getChild(blockItem, 1),
+                            blockItemCode.label("_for_end_", forHashCode), null, blockItemCode);
+                }
 
+                /* create code for FOR body */
+                openBlock(blocks, variableMap, new Block(nodes.getFirstChild(nodes.getChild(blockItem, 3)),
+                        blockItem, varPointer,
+                        forHashCode, true,
+                        block.whileHashCode, block.whileFlag));
                 break;
             }
 
             /* WHILE statement */
-            case "WHILE":{
+            case WHILE:{
                 /* remember hashcode for jumping on special sign */
-                whileHashCode = blockItem.hashCode()+"";
+                int whileHashCode = blockItem;
 
-                if (blockItem.getChild(1).getChildren().size() == 0){// before is creating cycle variable
-                    throw new CompilerException("This token need to have block body", blockItem.getCurrent());
+                if (nodes.getFirstChild(nodes.getChild(blockItem, 1)) == NodeArena.NONE){// before is creating cycle variable
+                    throw new CompilerException("This token need to have block body", nodes.getToken(blockItem));
                 }
 
                 /* initialise FOR condition */
-                blockItemCode.append(String.format( "\n_while_%1$s:\t; while\n" +
-                                                    "\n%2$s\n" +
-                                                    "\npop eax\n" +
-                                                    "cmp eax, 0\n" +
-                                                    "je _while_end_%1$s\n" +
-                                                    "\n%3$s\n" +
-                                                    "\njmp _while_%1$s\n" +
-                                                    "_while_end_%1$s:",
-                        forHashCode,
-                        genExpCode(variableMap, blockItem.getChild(0)),
-                        /* create code for WHILE body */
-                        genBlockCode(blockItem.getChild(1).getChildren(), variableMap,
-                                forHashCode, forFlag,
-                                whileHashCode, true)));
+                if (optimize){
+                    genLoopEntry(variableMap, nodes.getChild(blockItem, 0),
+                            blockItemCode.label("_while_", whileHashCode),
+                            blockItemCode.label("_while_end_", whileHashCode), blockItemCode);
+                    blockItemCode.add(Opcode.ALIGN, Operand.immediate(LOOP_ALIGN))
+                            .add(Opcode.LABEL, blockItemCode.label("_while_body_", whileHashCode), "while");
+                }
+                else {
+                    blockItemCode.add(Opcode.LABEL, blockItemCode.label("_while_", block.forHashCode), "while");
+                    genConditionCode(variableMap, nodes.getChild(blockItem, 0),
+                            blockItemCode.label("_while_end_", block.forHashCode), null, blockItemCode);
+                }
 
+                /* create code for WHILE body */
+                openBlock(blocks, variableMap, new Block(nodes.getFirstChild(nodes.getChild(blockItem, 1)),
+                        blockItem, varPointer,
+                        block.forHashCode, block.forFlag,
+                        whileHashCode, true));
                 break;
             }
 
             /* DEF_CALL statement */
-            case "DEF_CALL":{
-                blockItemCode.append(genExpCode(variableMap, blockItem));
+            case DEF_CALL:{
+                genExpCode(variableMap, blockItem, blockItemCode);
                 break;
             }
 
             /* incorrect operation, throw exception */
             default:
-                throw new CompilerException("Incorrect type of operation", blockItem.getCurrent());
+                throw new CompilerException("Incorrect type of operation", nodes.getToken(blockItem));
         }
+    }
 
-        return blockItemCode.toString();
+    /**
+     * make code of expression, its value is pushed to stack, assignment pushes nothing
+     * @param variableMap - list with stack of variable, current is the last in it
+     * @param root - root node of expression
+     * @param code - code for appending
+     * @throws CompilerException - unknown operation throw this exception
+     */
+    private void genExpCode(ArrayList<HashMap<String, Integer>> variableMap, int root, InstructionBuffer code)
+            throws CompilerException {
+        if (optimize){
+            labelExpression(variableMap, root);
+            genRegisterExpCode(variableMap, new Expression(root), code);
+        }
+        else
+            genStackExpCode(variableMap, root, code);
     }
 
     /**
      * big generator part, connect operation template with nodes
+     * nodes are visited in loop, not finished nodes are kept in stack
      * @param variableMap - list with stack of variable, current is the last in it
-     * @param current - current node to be used
-     * @return - string for appending to code
+     * @param root - root node of expression
+     * @param code - code for appending
      * @throws CompilerException - unknown operation throw this exception
      */
-    private String genExpCode(ArrayList<HashMap<String, Integer>> variableMap, Node_AST current)
+    private void genStackExpCode(ArrayList<HashMap<String, Integer>> variableMap, int root, InstructionBuffer code)
+            throws CompilerException {
+        ArrayDeque<Expression> expressions = new ArrayDeque<>();
+        expressions.push(new Expression(root));
+
+        while (!expressions.isEmpty()){
+            Expression expression = expressions.peek();
+            int current = expression.node;
+            /* count of children, which code is made */
+            int step = expression.step++;
+
+            switch (nodes.getKind(current)){
+
+                /* operations with one operand */
+                case UNAR_ADD:
+                case UNAR_SUB:
+                case NOT:{
+                    if (step == 0){
+                        expressions.push(new Expression(nodes.getChild(current, 0)));
+                        continue;
+                    }
+                    code.append(operationBlocks.get(nodes.getKind(current)));
+                    break;
+                }
+
+                /* operations with two operands */
+                case L_SHIFT:
+                case R_SHIFT:
+                case BIT_AND:
+                case BIT_OR:
+                case BIT_XOR:
+                case EQ:
+                case NE:
+                case GT:
+                case LT:
+                case GE:
+                case LE:
+                case SUB:
+                case DIV:
+                case PERCENT:
+                case MUL:
+                case ADD:{
+                    if (step < 2){
+                        expressions.push(new Expression(nodes.getChild(current, step)));
+                        continue;
+                    }
+                    code.append(operationBlocks.get(nodes.getKind(current)));
+                    break;
+                }
+
+                /* operations with logic operands */
+                case OR:
+                case AND:{
+                    if (step == 0){
+                        expressions.push(new Expression(nodes.getChild(current, 0)));
+                        continue;
+                    }
+                    genLogicCode(current, step, code);
+                    if (step == 1){
+                        expressions.push(new Expression(nodes.getChild(current, 1)));
+                        continue;
+                    }
+                    break;
+                }
+
+                /* ternary operand */
+                case TERNAR:{
+                    if (step == 0){
+                        expressions.push(new Expression(nodes.getChild(current, 0)));
+                        continue;
+                    }
+                    genTernarCode(current, step, code);
+                    if (step < 3){
+                        expressions.push(new Expression(nodes.getChild(current, step)));
+                        continue;
+                    }
+                    break;
+                }
+
+                /* value getter */
+                case INT_CHAR:
+                case INT_BINNUM:
+                case INT_HEXNUM:
+                case INT_OCTNUM:
+                case INT_FLOAT:
+                case INT:{
+                    code.add(Opcode.PUSH, Operand.immediate(ConstantFolder.valueOf(nodes.getValue(current))),
+                            nodes.getKind(current).getTypeName().toLowerCase(Locale.ROOT));
+                    break;
+                }
+
+                /* work with variables */
+                case ID: {
+                    // create variable
+                    if (nodes.getFirstChild(current) != NodeArena.NONE){
+                        /* make code for variable value */
+                        if (step == 0){
+                            expressions.push(new Expression(nodes.getChild(nodes.getChild(current, 0), 0)));
+                            continue;
+                        }
+
+                        genPutVarCode(variableMap, current, code);
+                        break;
+                    }
+
+                    // get variable
+                    genGetVarCode(variableMap, current, code);
+                    break;
+                }
+
+                /* function calling */
+                case DEF_CALL:{
+                    if (step == 0){
+                        checkDefCall(current);
+                        expression.child = nodes.getFirstChild(nodes.getFirstChild(current));
+                    }
+
+                    /* every step makes code of one parameter */
+                    if (expression.child != NodeArena.NONE){
+                        expressions.push(new Expression(expression.child));
+                        expression.child = nodes.getNextSibling(expression.child);
+                        continue;
+                    }
+
+                    code.add(Opcode.CALL, code.symbol(nodes.getValue(current)))
+                            .add(Opcode.ADD, ESP, Operand.immediate(4*step))
+                            .add(Opcode.PUSH, EDX);
+                    break;
+                }
+
+                /* error if operations is unknown */
+                default:
+                    System.err.println(nodes.getKind(nodes.getParent(nodes.getParent(current))).getTypeName());
+                    throw new CompilerException("Unknown operation ", nodes.getToken(current));
+            }
+
+            /* code of node is finished */
+            expressions.pop();
+        }
+    }
+
+    /**
+     * test that body of FOR cycle is made at least once: cycle variable gets number less than number limit
+     * @param statement - FOR node
+     * @return - result of test
+     */
+    private boolean isEntered(int statement){
+        int start = nodes.getChild(nodes.getChild(nodes.getChild(statement, 0), 0), 0),
+                limit = nodes.getChild(nodes.getChild(statement, 1), 1);
+        return folder.isConstant(start) && folder.isConstant(limit) &&
+                folder.valueOf(start) < folder.valueOf(limit);
+    }
+
+    /**
+     * test that variable of FOR cycle can be kept in edi: condition, changing and body of cycle have no function
+     * callings, which change edi, and no FOR cycles, so edi is given only to the innermost cycle
+     * nested FOR cycles are not checked, so every node is checked only by its nearest cycle
+     * @param statement - FOR node
+     * @return - result of test
+     */
+    private boolean isCounted(int statement){
+        ArrayDeque<Integer> children = new ArrayDeque<>();
+        for (int child = nodes.getChild(statement, 1); child != NodeArena.NONE; child = nodes.getNextSibling(child))
+            children.push(child);
+        while (!children.isEmpty()){
+            int current = children.pop();
+            switch (nodes.getKind(current)){
+                case FOR:
+                case DEF_CALL:
+                    return false;
+            }
+            for (int child = nodes.getFirstChild(current); child != NodeArena.NONE; child = nodes.getNextSibling(child))
+                children.push(child);
+        }
+        return true;
+    }
+
+    /**
+     * make code of cycle condition before first repeating of body, condition is checked at the end of body,
+     * so body is repeated by one conditional jump
+     * condition, which can be made twice, is checked here too, other condition is reached by jumping
+     * @param variableMap - list with stack of variable, current is the last in it
+     * @param condition - root node of condition
+     * @param check - label of condition at the end of body
+     * @param end - label after cycle
+     * @param code - code for appending
+     * @throws CompilerException - unknown operation, variable or method throw this exception
+     */
+    private void genLoopEntry(ArrayList<HashMap<String, Integer>> variableMap, int condition, long check, long end,
+                              InstructionBuffer code) throws CompilerException {
+        labelExpression(variableMap, condition);
+        if (isRepeatable(condition))
+            genRegisterExpCode(variableMap, new Expression(condition, end, false), code);
+        else
+            code.add(Opcode.JMP, check);
+    }
+
+    /**
+     * make code of cycle condition at the end of body, it jumps to body while condition is true
+     * condition is labeled by genLoopEntry(), condition, which can be made twice, is labeled again,
+     * because its check before cycle can be not made
+     * @param variableMap - list with stack of variable, current is the last in it
+     * @param condition - root node of condition
+     * @param check - label of condition, it is used by CONTINUE and by jumping to condition
+     * @param body - label of body
+     * @param code - code for appending
+     * @throws CompilerException - unknown operation, variable or method throw this exception
+     */
+    private void genLoopCondition(ArrayList<HashMap<String, Integer>> variableMap, int condition, long check,
+                                  long body, InstructionBuffer code) throws CompilerException {
+        code.add(Opcode.LABEL, check);
+        if (isRepeatable(condition))
+            labelExpression(variableMap, condition);
+        genRegisterExpCode(variableMap, new Expression(condition, body, true), code);
+    }
+
+    /**
+     * test that code of condition can be made twice: it has no labels inside and no function callings,
+     * so labeling it again changes nothing
+     * @param root - root node of condition
+     * @return - result of test
+     */
+    private boolean isRepeatable(int root){
+        ArrayDeque<Integer> children = new ArrayDeque<>();
+        children.push(root);
+        while (!children.isEmpty()){
+            int current = children.pop();
+            switch (nodes.getKind(current)){
+                case AND:
+                case OR:
+                case TERNAR:
+                case DEF_CALL:
+                    return false;
+            }
+            for (int child = nodes.getFirstChild(current); child != NodeArena.NONE; child = nodes.getNextSibling(child))
+                children.push(child);
+        }
+        return true;
+    }
+
+    /**
+     * make code of condition, which jumps if condition is false
+     * with optimization value of condition is not calculated: comparing jumps by its flags,
+     * AND, OR and NOT jump by their operands, constant condition makes no code if it is true
+     * and only jump if it is false, code after such jump is removed by peephole optimizer
+     * @param variableMap - list with stack of variable, current is the last in it
+     * @param root - root node of condition
+     * @param falseLabel - label for jumping
+     * @param comment - comment of condition, null if it is absent
+     * @param code - code for appending
+     * @throws CompilerException - unknown operation, variable or method throw this exception
+     */
+    private void genConditionCode(ArrayList<HashMap<String, Integer>> variableMap, int root, long falseLabel,
+                                  String comment, InstructionBuffer code) throws CompilerException {
+        if (optimize){
+            labelExpression(variableMap, root);
+            genRegisterExpCode(variableMap, new Expression(root, falseLabel, false), code);
+            return;
+        }
+
+        genStackExpCode(variableMap, root, code);
+        code.add(Opcode.POP, EAX, comment)
+                .add(Opcode.CMP, EAX, Operand.immediate(0))
+                .add(Opcode.JE, falseLabel);
+    }
+
+    /**
+     * find count of registers needed for every node of expression (Sethi-Ullman numbers) and function callings,
+     * nodes are checked in the same order as by genStackExpCode(), so the same error is found first,
+     * checked node is folded by ConstantFolder before labeling, so removed operands are checked too
+     * @param variableMap - list with stack of variable, current is the last in it
+     * @param root - root node of expression
+     * @throws CompilerException - unknown operation, variable or method throw this exception
+     */
+    private void labelExpression(ArrayList<HashMap<String, Integer>> variableMap, int root)
             throws CompilerException {
-        switch (current.getCurrent().getType()){
+        ArrayDeque<Expression> expressions = new ArrayDeque<>();
+        expressions.push(new Expression(root));
+
+        while (!expressions.isEmpty()){
+            Expression expression = expressions.peek();
+            int current = expression.node;
+
+            /* check node and find its first child */
+            if (expression.step++ == 0){
+                switch (nodes.getKind(current)){
+                    case UNAR_ADD:
+                    case UNAR_SUB:
+                    case NOT:
+                    case L_SHIFT:
+                    case R_SHIFT:
+                    case BIT_AND:
+                    case BIT_OR:
+                    case BIT_XOR:
+                    case EQ:
+                    case NE:
+                    case GT:
+                    case LT:
+                    case GE:
+                    case LE:
+                    case SUB:
+                    case DIV:
+                    case PERCENT:
+                    case MUL:
+                    case ADD:
+                    case OR:
+                    case AND:
+                    case TERNAR:
+                        expression.child = nodes.getFirstChild(current);
+                        break;
+
+                    case INT_CHAR:
+                    case INT_BINNUM:
+                    case INT_HEXNUM:
+                    case INT_OCTNUM:
+                    case INT_FLOAT:
+                    case INT:
+                        expression.child = NodeArena.NONE;
+                        break;
+
+                    case ID:{
+                        if (nodes.getFirstChild(current) != NodeArena.NONE)
+                            expression.child = nodes.getChild(nodes.getChild(current, 0), 0);
+                        else if (findVariable(variableMap, current) == null)
+                            throw new CompilerException("Unknown variable", nodes.getToken(current));
+                        else
+                            expression.child = NodeArena.NONE;
+                        break;
+                    }
+
+                    case DEF_CALL:{
+                        checkDefCall(current);
+                        expression.child = nodes.getFirstChild(nodes.getFirstChild(current));
+                        break;
+                    }
 
-            /* operations with one operand */
-            case "UNAR_ADD":
-            case "UNAR_SUB":
-            case "NOT":{
-                return genExpCode(variableMap, current.getChild(0))+
-                        operationBlocks.get(current.getCurrent().getType());
+                    default:
+                        throw new CompilerException("Unknown operation ", nodes.getToken(current));
+                }
             }
 
+            /* check children one by one */
+            if (expression.child != NodeArena.NONE){
+                expressions.push(new Expression(expression.child));
+                expression.child = nodes.getNextSibling(expression.child);
+                continue;
+            }
+
+            folder.fold(current);
+            labelNode(current);
+            expressions.pop();
+        }
+    }
+
+    /**
+     * find count of registers needed for node, children must be labeled
+     * operation needs one register more than operands only if they need the same count,
+     * because operand, which needs more registers, is calculated first,
+     * variable or number as second operand needs no register
+     * calling and branching nodes spill all registers, so they are calculated with all registers
+     * @param current - node
+     */
+    private void labelNode(int current){
+        int need, first = nodes.getFirstChild(current);
+        boolean call = false;
+
+        switch (nodes.getKind(current)){
+            case UNAR_ADD:
+            case UNAR_SUB:
+            case NOT:
+                need = registerNeed[first];
+                call = callInside[first];
+                break;
+
+            case ID:{
+                if (first == NodeArena.NONE){
+                    need = 1;
+                    break;
+                }
+                int value = nodes.getChild(first, 0);
+                need = registerNeed[value];
+                call = callInside[value];
+                break;
+            }
+
+            case OR:
+            case AND:
+            case TERNAR:
+                need = RegisterStack.POOL.length;
+                for (int child = first; child != NodeArena.NONE; child = nodes.getNextSibling(child))
+                    call |= callInside[child];
+                break;
+
+            case DEF_CALL:
+                need = RegisterStack.POOL.length;
+                call = true;
+                break;
+
+            case INT_CHAR:
+            case INT_BINNUM:
+            case INT_HEXNUM:
+            case INT_OCTNUM:
+            case INT_FLOAT:
+            case INT:
+                need = 1;
+                break;
+
             /* operations with two operands */
-            case "L_SHIFT":
-            case "R_SHIFT":
-            case "BIT_AND":
-            case "BIT_OR":
-            case "BIT_XOR":
-            case "EQ":
-            case "NE":
-            case "GT":
-            case "LT":
-            case "GE":
-            case "LE":
-            case "SUB":
-            case "DIV":
-            case "PERCENT":
-            case "MUL":
-            case "ADD":{
-                return genExpCode(variableMap, current.getChild(0))+
-                        genExpCode(variableMap, current.getChild(1))+
-                    operationBlocks.get(current.getCurrent().getType());
-            }
-
-            /* operations with logic operands */
-            case "OR":
-            case "AND" :{
-                return genExpCode(variableMap, current.getChild(0))+
-                        String.format(operationBlocks.get(current.getCurrent().getType()),
-                                        current.hashCode(),
-                                        genExpCode(variableMap, current.getChild(1)));
-            }
-
-            /* ternary operand */
-            case "TERNAR" :{
-                return genExpCode(variableMap, current.getChild(0))+
-                        String.format(operationBlocks.get(current.getCurrent().getType()),
-                                        current.hashCode(),
-                                        genExpCode(variableMap, current.getChild(1)),
-                                        genExpCode(variableMap, current.getChild(2)));
-            }
-
-            /* value getter */
-            case "INT(CHAR)":
-            case "INT(BINNUM)":
-            case "INT(HEXNUM)":
-            case "INT(OCTNUM)":
-            case "INT(FLOAT)":
-            case "INT":{
-                return String.format(operationBlocks.get(current.getCurrent().getType()),
-                                                        current.getCurrent().getValue());
-            }
-
-            /* work with variables */
-            case "ID": {
-                // create variable
-                if (current.getChildren().size() != 0){
-                    /* make code for variable value */
-                    String varExp = genExpCode(variableMap, current.getChild(0).getChild(0));
-
-                    /* search and reinitialise variable */
-                    for (int i = variableMap.size()-1; i >= 0; i--) {
-                        if (variableMap.get(i).containsKey(current.getCurrent().getValue())) {
-                            return String.format("%s\n" +
-                                                "pop ebx\t; put var: %s\n" +
-                                                "mov [ebp-%d], ebx\n",
-                                    varExp, current.getCurrent().getValue(),
-                                    4 * variableMap.get(i).get(current.getCurrent().getValue()));
+            default:{
+                int second = nodes.getNextSibling(first),
+                        firstNeed = registerNeed[first], secondNeed = isDirect(second) ? 0 : registerNeed[second];
+                call = callInside[first] || callInside[second];
+                if (isCommutative(nodes.getKind(current)) && isDirect(first) && !isDirect(second) && !callInside[second])
+                    need = secondNeed;
+                else
+                    need = firstNeed == secondNeed ? firstNeed + 1 : Math.max(firstNeed, secondNeed);
+            }
+        }
+
+        registerNeed[current] = need;
+        callInside[current] = call;
+    }
+
+    /**
+     * make code of expression in registers, values are spilled to stack only if registers are not enough,
+     * before function calling and before branches of AND, OR and ternary operator
+     * expression must be labeled by labelExpression()
+     * condition of branch gives no value, it jumps to its label by value of condition
+     * @param variableMap - list with stack of variable, current is the last in it
+     * @param root - root of expression or condition
+     * @param code - code for appending
+     */
+    private void genRegisterExpCode(ArrayList<HashMap<String, Integer>> variableMap, Expression root,
+                                    InstructionBuffer code){
+        /* edi is not used for values, while it has cycle variable */
+        RegisterStack values = new RegisterStack(RegisterStack.POOL.length - (counter != null ? 1 : 0));
+        ArrayDeque<Expression> expressions = new ArrayDeque<>();
+        expressions.push(root);
+
+        while (!expressions.isEmpty()){
+            Expression expression = expressions.peek();
+            int current = expression.node;
+            /* count of children, which code is made */
+            int step = expression.step++;
+
+            /* comparing jumps after CMP, other conditions are made by genBranchCode() */
+            if (expression.target != Operand.NONE && !isComparison(nodes.getKind(current))){
+                if (!genBranchCode(expression, step, values, expressions, code))
+                    expressions.pop();
+                continue;
+            }
+
+            switch (nodes.getKind(current)){
+
+                /* operations with one operand */
+                case UNAR_ADD:
+                case UNAR_SUB:
+                case NOT:{
+                    if (step == 0){
+                        expressions.push(new Expression(nodes.getChild(current, 0)));
+                        continue;
+                    }
+                    values.load(1, code);
+                    long value = values.get(0);
+                    if (nodes.getKind(current) == TokenKind.UNAR_SUB)
+                        code.add(Opcode.NEG, value, "unar sub");
+                    else if (nodes.getKind(current) == TokenKind.NOT)
+                        code.add(Opcode.CMP, value, Operand.immediate(0), "not")
+                                .add(Opcode.MOV, EAX, Operand.immediate(0))
+                                .add(Opcode.SETE, AL)
+                                .add(Opcode.MOV, value, EAX);
+                    break;
+                }
+
+                /* operations with logic operands, value is made by jumps of condition */
+                case OR:
+                case AND:{
+                    long falseLabel = code.label("_false_", current), end = code.label("_end", current);
+                    if (step == 0){
+                        values.spill(code);
+                        expressions.push(new Expression(current, falseLabel, false));
+                        continue;
+                    }
+
+                    code.add(Opcode.MOV, EBX, Operand.immediate(1),
+                                    nodes.getKind(current) == TokenKind.AND ? "and" : "or")
+                            .add(Opcode.JMP, end)
+                            .add(Opcode.LABEL, falseLabel)
+                            .add(Opcode.MOV, EBX, Operand.immediate(0))
+                            .add(Opcode.LABEL, end);
+                    values.push(EBX);
+                    break;
+                }
+
+                /* ternary operand, both values are put to ebx */
+                case TERNAR:{
+                    long falseLabel = code.label("_ternar_false_", current), end = code.label("_ternar_end_", current);
+                    if (step == 0){
+                        values.spill(code);
+                        expressions.push(new Expression(nodes.getChild(current, 0), falseLabel, false));
+                        continue;
+                    }
+
+                    if (step > 1){
+                        values.load(1, code);
+                        long value = values.get(0);
+                        values.drop(1);
+                        if (value != EBX)
+                            code.add(Opcode.MOV, EBX, value);
+                    }
+
+                    if (step == 2)
+                        code.add(Opcode.JMP, end)
+                                .add(Opcode.LABEL, falseLabel);
+                    else if (step == 3){
+                        code.add(Opcode.LABEL, end);
+                        values.push(EBX);
+                    }
+                    if (step < 3){
+                        expressions.push(new Expression(nodes.getChild(current, step)));
+                        continue;
+                    }
+                    break;
+                }
+
+                /* value getter */
+                case INT_CHAR:
+                case INT_BINNUM:
+                case INT_HEXNUM:
+                case INT_OCTNUM:
+                case INT_FLOAT:
+                case INT:{
+                    code.add(Opcode.MOV, values.allocate(code), directOperand(variableMap, current),
+                            nodes.getKind(current).getTypeName().toLowerCase(Locale.ROOT));
+                    break;
+                }
+
+                /* work with variables */
+                case ID: {
+                    // get variable
+                    if (nodes.getFirstChild(current) == NodeArena.NONE){
+                        code.add(Opcode.MOV, values.allocate(code), directOperand(variableMap, current),
+                                "get var: " + nodes.getValue(current));
+                        break;
+                    }
+
+                    // create variable
+                    if (step == 0){
+                        int value = nodes.getChild(nodes.getChild(current, 0), 0);
+                        /* cycle variable in edi is changed in place */
+                        if (values.size() == 0 && isCounterChange(variableMap, current, value)){
+                            Expression change = new Expression(value);
+                            change.direct = nodes.getChild(value, 1);
+                            values.push(EDI);
+                            genRegisterOperation(variableMap, change, values, code);
+                            values.drop(1);
+                            break;
                         }
+                        expressions.push(new Expression(value));
+                        continue;
+                    }
+                    values.load(1, code);
+                    genRegisterPutVarCode(variableMap, current, values.get(0), code);
+                    values.drop(1);
+                    break;
+                }
+
+                /* function calling, parameters are pushed like in stack code */
+                case DEF_CALL:{
+                    values.spill(code);
+                    if (step == 0)
+                        expression.child = nodes.getFirstChild(nodes.getFirstChild(current));
+
+                    if (expression.child != NodeArena.NONE){
+                        expressions.push(new Expression(expression.child));
+                        expression.child = nodes.getNextSibling(expression.child);
+                        continue;
                     }
 
-                    /* create new variable */
-                    variableMap.get(variableMap.size()-1).put(current.getCurrent().getValue(), ++varPointer);
-                    return String.format("%s\n" +
-                                        "pop ebx\t; create var: %s\n" +
-                                        "mov [ebp-%d], ebx\n" +
-                                        "sub esp, 4\n",
-                            varExp, current.getCurrent().getValue(),
-                            4 * variableMap.get(variableMap.size()-1).get(current.getCurrent().getValue()));
-                }
-
-                // get variable
-                /* search and get variable value */
-                for (int i = variableMap.size()-1; i >= 0; i--) {
-                    if (variableMap.get(i).containsKey(current.getCurrent().getValue())) {
-                        return String.format(operationBlocks.get(current.getCurrent().getType()),
-                                variableMap.get(i).get(current.getCurrent().getValue())*4,
-                                current.getCurrent().getValue());
+                    code.add(Opcode.CALL, code.symbol(nodes.getValue(current)))
+                            .add(Opcode.ADD, ESP, Operand.immediate(4*step));
+                    values.discard(step);
+                    code.add(Opcode.MOV, values.allocate(code), EDX);
+                    break;
+                }
+
+                /* operations with two operands */
+                default:{
+                    if (step == 0){
+                        int first = nodes.getChild(current, 0), second = nodes.getChild(current, 1);
+                        /* cycle variable in edi is compared without copying */
+                        if (expression.target != Operand.NONE && values.size() == 0 &&
+                                isComparison(nodes.getKind(current)) && isDirect(first) && isDirect(second) &&
+                                directOperand(variableMap, first) == EDI){
+                            expression.direct = second;
+                            values.push(EDI);
+                            genRegisterOperation(variableMap, expression, values, code);
+                            break;
+                        }
+                        if (isDirect(second))
+                            expression.direct = second;
+                        else if (isCommutative(nodes.getKind(current)) && isDirect(first) && !callInside[second]){
+                            expression.direct = first;
+                            expression.swapped = true;
+                        }
+                        else
+                            expression.swapped = registerNeed[second] > registerNeed[first] &&
+                                    !callInside[first] && !callInside[second];
+                        expressions.push(new Expression(nodes.getChild(current, expression.swapped ? 1 : 0)));
+                        continue;
                     }
+                    if (step == 1 && expression.direct == NodeArena.NONE){
+                        expressions.push(new Expression(nodes.getChild(current, expression.swapped ? 0 : 1)));
+                        continue;
+                    }
+                    genRegisterOperation(variableMap, expression, values, code);
                 }
-                throw new CompilerException("Unknown variable", current.getCurrent());
             }
 
-            /* function calling */
-            case "DEF_CALL":{
-                StringBuilder ret = new StringBuilder();
+            /* code of node is finished */
+            expressions.pop();
+        }
+
+        /* value is given to statement in stack */
+        if (values.size() > 0)
+            values.spill(code);
+    }
 
-                if (!defAST.containsKey(current.getCurrent().getValue())){
-                    throw new CompilerException(String.format("Unknown method: %s",
-                            current.getCurrent().getValue()), current.getCurrent());
+    /**
+     * make code of operation with two operands, result is put to register of first operand
+     * @param variableMap - list with stack of variable, current is the last in it
+     * @param expression - operation, its calculated operands are on top of values
+     * @param values - values of expression
+     * @param code - code for appending
+     */
+    private void genRegisterOperation(ArrayList<HashMap<String, Integer>> variableMap, Expression expression,
+                                      RegisterStack values, InstructionBuffer code) {
+        TokenKind kind = nodes.getKind(expression.node);
+        String comment = operationBlocks.get(kind).getComment(0);
+        long target, operand;
+
+        if (expression.direct != NodeArena.NONE){
+            values.load(1, code);
+            target = values.get(0);
+            operand = directOperand(variableMap, expression.direct);
+        }
+        else {
+            values.load(2, code);
+            target = values.get(expression.swapped ? 0 : 1);
+            operand = values.get(expression.swapped ? 1 : 0);
+            values.drop(2);
+            values.push(target);
+        }
+
+        switch (kind){
+            case ADD:
+            case SUB:{
+                /* adding of one is made by INC or DEC */
+                boolean one = operand == Operand.immediate(1);
+                if (kind == TokenKind.ADD)
+                    code.add(one ? Opcode.INC : Opcode.ADD, target, one ? Operand.NONE : operand, comment);
+                else
+                    code.add(one ? Opcode.DEC : Opcode.SUB, target, one ? Operand.NONE : operand, comment);
+                break;
+            }
+            case MUL: code.add(Opcode.IMUL, target, operand, comment); break;
+            case BIT_AND: code.add(Opcode.AND, target, operand, comment); break;
+            case BIT_OR: code.add(Opcode.OR, target, operand, comment); break;
+            case BIT_XOR: code.add(Opcode.XOR, target, operand, comment); break;
+
+            case L_SHIFT:
+            case R_SHIFT:{
+                Opcode shift = kind == TokenKind.L_SHIFT ? Opcode.SAL : Opcode.SAR;
+                /* processor uses only 5 bits of count */
+                if (Operand.getKind(operand) == Operand.IMMEDIATE)
+                    code.add(shift, target, Operand.immediate(Operand.getValue(operand) & 31), comment);
+                else
+                    code.add(Opcode.MOV, ECX, operand, comment)
+                            .add(shift, target, CL);
+                break;
+            }
+
+            case DIV:
+            case PERCENT:{
+                code.add(Opcode.MOV, EAX, target, comment)
+                        .add(Opcode.CDQ);
+                if (Operand.getKind(operand) != Operand.REGISTER){
+                    code.add(Opcode.MOV, ECX, operand);
+                    operand = ECX;
                 }
+                code.add(Opcode.IDIV, operand)
+                        .add(Opcode.MOV, target, kind == TokenKind.DIV ? EAX : EDX);
+                break;
+            }
 
-                if (current.getChild(0).getChildren().size() !=
-                        defAST.get(current.getCurrent().getValue())
-                                .getRoot().getChild(0).getChildren().size()){
-                    throw new CompilerException(String.format(  "Incorrect count of parameters!\n" +
-                                                                "Need %d, but found %d.",
-                            defAST.get(current.getCurrent().getValue())
-                                    .getRoot().getChild(0).getChildren().size(),
-                            current.getChild(0).getChildren().size()), current.getCurrent());
+            /* comparing, condition of branch jumps by flags */
+            default:
+                code.add(Opcode.CMP, target, operand, comment);
+                if (expression.target != Operand.NONE){
+                    code.add(jumpOpcode(kind, expression.sense), expression.target);
+                    values.drop(1);
+                    break;
                 }
+                code.add(Opcode.MOV, EAX, Operand.immediate(0))
+                        .add(compareOpcode(kind), AL)
+                        .add(Opcode.MOV, target, EAX);
+        }
+    }
 
-                Collections.reverse(current.getChild(0).getChildren());
-                for (Node_AST param :
-                        current.getChild(0).getChildren()) {
-                    ret.append(genExpCode(variableMap, param));
+    /**
+     * make code of condition of branch, which is not comparing
+     * AND and OR jump by their operands: operand, which gives result of operation, jumps to label,
+     * other operand jumps over next operand, NOT jumps by its operand with other value,
+     * value of other operations is compared with zero
+     * @param expression - condition, its children are calculated by steps
+     * @param step - count of children, which code is made
+     * @param values - values of expression
+     * @param expressions - stack of nodes, which code is being made
+     * @param code - code for appending
+     * @return - true if child is put to stack, false if code of condition is finished
+     */
+    private boolean genBranchCode(Expression expression, int step, RegisterStack values,
+                                  ArrayDeque<Expression> expressions, InstructionBuffer code){
+        int current = expression.node, first = nodes.getFirstChild(current);
+
+        switch (nodes.getKind(current)){
+            case NOT:
+                if (step == 0)
+                    expressions.push(new Expression(first, expression.target, !expression.sense));
+                return step == 0;
+
+            case OR:
+            case AND:{
+                /* jumping to label by any operand, AND jumps if it is false, OR jumps if it is true */
+                boolean any = (nodes.getKind(current) == TokenKind.OR) == expression.sense;
+                long skip = code.label("_skip_", current);
+                if (step == 0){
+                    values.spill(code);
+                    expressions.push(any ? new Expression(first, expression.target, expression.sense) :
+                            new Expression(first, skip, !expression.sense));
+                    return true;
+                }
+                if (step == 1){
+                    expressions.push(new Expression(nodes.getNextSibling(first), expression.target, expression.sense));
+                    return true;
                 }
+                if (!any)
+                    code.add(Opcode.LABEL, skip);
+                return false;
+            }
 
-                ret.append(String.format(   "\ncall %s\n" +
-                                            "add esp, %d\n" +
-                                            "push edx\n",
-                        current.getCurrent().getValue(), 4*current.getChild(0).getChildren().size()));
+            case INT_CHAR:
+            case INT_BINNUM:
+            case INT_HEXNUM:
+            case INT_OCTNUM:
+            case INT_FLOAT:
+            case INT:
+                if ((folder.valueOf(current) != 0) == expression.sense)
+                    code.add(Opcode.JMP, expression.target);
+                return false;
 
-                return ret.toString();
-            }
+            default:
+                if (step == 0){
+                    expressions.push(new Expression(current));
+                    return true;
+                }
+                values.load(1, code);
+                code.add(Opcode.CMP, values.get(0), Operand.immediate(0))
+                        .add(expression.sense ? Opcode.JNE : Opcode.JE, expression.target);
+                values.drop(1);
+                return false;
+        }
+    }
 
-            /* error if operations is unknown */
+    /**
+     * test that operation is comparing
+     * @param kind - operation
+     * @return - result of test
+     */
+    private static boolean isComparison(TokenKind kind){
+        switch (kind){
+            case EQ:
+            case NE:
+            case GT:
+            case LT:
+            case GE:
+            case LE:
+                return true;
             default:
-                System.err.println(current.getParent().getParent().getCurrent().getType());
-                throw new CompilerException("Unknown operation ", current.getCurrent());
+                return false;
         }
     }
 
     /**
-     * code for _main procedure, generate other procedure calling
-     * @return - _main code
+     * getter for jump of comparing
+     * @param kind - comparing operation
+     * @param sense - true for jumping if comparing is true, false for jumping if it is false
+     * @return - Jcc opcode
+     */
+    private static Opcode jumpOpcode(TokenKind kind, boolean sense){
+        switch (kind){
+            case EQ: return sense ? Opcode.JE : Opcode.JNE;
+            case NE: return sense ? Opcode.JNE : Opcode.JE;
+            case GE: return sense ? Opcode.JGE : Opcode.JL;
+            case LE: return sense ? Opcode.JLE : Opcode.JG;
+            case GT: return sense ? Opcode.JG : Opcode.JLE;
+            default: return sense ? Opcode.JL : Opcode.JGE;
+        }
+    }
+
+    /**
+     * getter for SETcc instruction of comparing
+     * @param kind - comparing operation
+     * @return - SETcc opcode
+     */
+    private static Opcode compareOpcode(TokenKind kind){
+        switch (kind){
+            case EQ: return Opcode.SETE;
+            case NE: return Opcode.SETNE;
+            case GE: return Opcode.SETGE;
+            case LE: return Opcode.SETLE;
+            case GT: return Opcode.SETG;
+            default: return Opcode.SETL;
+        }
+    }
+
+    /**
+     * test that operands of operation can be swapped
+     * @param kind - operation
+     * @return - result of test
+     */
+    private static boolean isCommutative(TokenKind kind){
+        switch (kind){
+            case ADD:
+            case MUL:
+            case BIT_AND:
+            case BIT_OR:
+            case BIT_XOR:
+            case EQ:
+            case NE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * test that node is number or variable, which can be operand of instruction without register
+     * @param current - node
+     * @return - result of test
+     */
+    private boolean isDirect(int current){
+        switch (nodes.getKind(current)){
+            case INT_CHAR:
+            case INT_BINNUM:
+            case INT_HEXNUM:
+            case INT_OCTNUM:
+            case INT_FLOAT:
+            case INT:
+                return true;
+            case ID:
+                return nodes.getFirstChild(current) == NodeArena.NONE;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * make operand of number or variable node
+     * @param variableMap - list with stack of variable, current is the last in it
+     * @param current - number or known variable node
+     * @return - immediate or memory operand
+     */
+    private long directOperand(ArrayList<HashMap<String, Integer>> variableMap, int current){
+        if (nodes.getKind(current) == TokenKind.ID)
+            return variableOperand(findVariable(variableMap, current));
+        return Operand.immediate(ConstantFolder.valueOf(nodes.getValue(current)));
+    }
+
+    /**
+     * test that assignment adds number or variable to cycle variable, which is kept in edi
+     * @param variableMap - list with stack of variable, current is the last in it
+     * @param current - variable node of assignment
+     * @param value - root of assigned value
+     * @return - result of test
+     */
+    private boolean isCounterChange(ArrayList<HashMap<String, Integer>> variableMap, int current, int value){
+        if (counter == null || nodes.getKind(value) != TokenKind.ADD && nodes.getKind(value) != TokenKind.SUB)
+            return false;
+        int first = nodes.getChild(value, 0), second = nodes.getChild(value, 1);
+        return isDirect(first) && isDirect(second) && counter.equals(findVariable(variableMap, current)) &&
+                directOperand(variableMap, first) == EDI;
+    }
+
+    /**
+     * find place of variable in stack
+     * @param variableMap - list with stack of variable, current is the last in it
+     * @param current - variable node
+     * @return - place of variable, null if it is unknown
+     */
+    private Integer findVariable(ArrayList<HashMap<String, Integer>> variableMap, int current){
+        for (int i = variableMap.size()-1; i >= 0; i--) {
+            Integer place = variableMap.get(i).get(nodes.getValue(current));
+            if (place != null)
+                return place;
+        }
+        return null;
+    }
+
+    /**
+     * make code for putting value from register to variable, variable is created if it is unknown
+     * @param variableMap - list with stack of variable, current is the last in it
+     * @param current - variable node
+     * @param value - register with value
+     * @param code - code for appending
+     */
+    private void genRegisterPutVarCode(ArrayList<HashMap<String, Integer>> variableMap, int current, long value,
+                                       InstructionBuffer code) {
+        Integer place = findVariable(variableMap, current);
+        if (place != null){
+            code.add(Opcode.MOV, variableOperand(place), value, "put var: " + nodes.getValue(current));
+            return;
+        }
+
+        /* create new variable in place of function */
+        variableMap.get(variableMap.size()-1).put(nodes.getValue(current), ++varPointer);
+        frameSize = Math.max(frameSize, varPointer + 1);
+        code.add(Opcode.MOV, variable(varPointer), value, "create var: " + nodes.getValue(current));
+    }
+
+    /**
+     * make part of AND or OR code, second operand is calculated only if first doesn't give result
+     * @param current - node of operation
+     * @param step - 1 for code before second operand, 2 for code after it
+     * @param code - code for appending
+     */
+    private void genLogicCode(int current, int step, InstructionBuffer code) {
+        long clause = code.label("_clause", current), end = code.label("_end", current);
+
+        if (step == 1){
+            code.add(Opcode.POP, EAX, nodes.getKind(current) == TokenKind.AND ? "and" : "or")
+                    .add(Opcode.CMP, EAX, Operand.immediate(0));
+            if (nodes.getKind(current) == TokenKind.AND)
+                code.add(Opcode.JNE, clause);
+            else
+                code.add(Opcode.JE, clause)
+                        .add(Opcode.MOV, EAX, Operand.immediate(1));
+            code.add(Opcode.JMP, end)
+                    .add(Opcode.LABEL, clause);
+            return;
+        }
+
+        code.add(Opcode.POP, EAX)
+                .add(Opcode.CMP, EAX, Operand.immediate(0))
+                .add(Opcode.MOV, EAX, Operand.immediate(0))
+                .add(Opcode.SETNE, AL)
+                .add(Opcode.LABEL, end)
+                .add(Opcode.PUSH, EAX);
+    }
+
+    /**
+     * make part of ternary operator code
+     * @param current - node of operator
+     * @param step - 1 for code after condition, 2 after true value, 3 after false value
+     * @param code - code for appending
+     */
+    private void genTernarCode(int current, int step, InstructionBuffer code) {
+        long falseLabel = code.label("_ternar_false_", current), end = code.label("_ternar_end_", current);
+
+        switch (step){
+            case 1:
+                code.add(Opcode.POP, EAX, "ternar if")
+                        .add(Opcode.CMP, EAX, Operand.immediate(0))
+                        .add(Opcode.JE, falseLabel);
+                break;
+            case 2:
+                code.add(Opcode.JMP, end)
+                        .add(Opcode.LABEL, falseLabel);
+                break;
+            default:
+                code.add(Opcode.LABEL, end);
+        }
+    }
+
+    /**
+     * make code for putting value from stack to variable, variable is created if it is unknown
+     * @param variableMap - list with stack of variable, current is the last in it
+     * @param current - variable node
+     * @param code - code for appending
+     */
+    private void genPutVarCode(ArrayList<HashMap<String, Integer>> variableMap, int current,
+                               InstructionBuffer code) {
+        /* search and reinitialise variable */
+        for (int i = variableMap.size()-1; i >= 0; i--) {
+            if (variableMap.get(i).containsKey(nodes.getValue(current))) {
+                code.add(Opcode.POP, EBX, "put var: " + nodes.getValue(current))
+                        .add(Opcode.MOV, variable(variableMap.get(i).get(nodes.getValue(current))), EBX);
+                return;
+            }
+        }
+
+        /* create new variable */
+        variableMap.get(variableMap.size()-1).put(nodes.getValue(current), ++varPointer);
+        code.add(Opcode.POP, EBX, "create var: " + nodes.getValue(current))
+                .add(Opcode.MOV, variable(variableMap.get(variableMap.size()-1).get(nodes.getValue(current))), EBX)
+                .add(Opcode.SUB, ESP, Operand.immediate(4));
+    }
+
+    /**
+     * make code for pushing variable value to stack
+     * @param variableMap - list with stack of variable, current is the last in it
+     * @param current - variable node
+     * @param code - code for appending
+     * @throws CompilerException - unknown variable throw this exception
+     */
+    private void genGetVarCode(ArrayList<HashMap<String, Integer>> variableMap, int current,
+                               InstructionBuffer code) throws CompilerException {
+        /* search and get variable value */
+        for (int i = variableMap.size()-1; i >= 0; i--) {
+            if (variableMap.get(i).containsKey(nodes.getValue(current))) {
+                code.add(Opcode.MOV, EBX, variable(variableMap.get(i).get(nodes.getValue(current))),
+                                "get var: " + nodes.getValue(current))
+                        .add(Opcode.PUSH, EBX);
+                return;
+            }
+        }
+        throw new CompilerException("Unknown variable", nodes.getToken(current));
+    }
+
+    /**
+     * create operand of variable, which is kept in stack
+     * @param place - place of variable in stack, parameters have negative places
+     * @return - memory operand
+     */
+    private static long variable(int place) {
+        return Operand.memory(Register.EBP, -4 * place);
+    }
+
+    /**
+     * create operand of variable, cycle variable is kept in edi
+     * @param place - place of variable in stack, parameters have negative places
+     * @return - memory operand or edi
+     */
+    private long variableOperand(int place) {
+        return counter != null && counter == place ? EDI : variable(place);
+    }
+
+    /**
+     * test that called function exists and gets correct count of parameters,
+     * parameters are reversed for pushing them from last to first
+     * @param current - function calling node
+     * @throws CompilerException - incorrect calling throw this exception
      */
-    private String mainCode() throws CompilerException {
-        StringBuilder code = new StringBuilder();
+    private void checkDefCall(int current) throws CompilerException {
+        if (!defAST.containsKey(nodes.getValue(current))){
+            throw new CompilerException(String.format("Unknown method: %s",
+                    nodes.getValue(current)), nodes.getToken(current));
+        }
+
+        int count = nodes.getChildCount(nodes.getFirstChild(current)),
+                defCount = nodes.getChildCount(nodes.getFirstChild(defAST.get(nodes.getValue(current)).getRoot()));
+        if (count != defCount){
+            throw new CompilerException(String.format(  "Incorrect count of parameters!\n" +
+                                                        "Need %d, but found %d.",
+                    defCount, count), nodes.getToken(current));
+        }
 
+        nodes.reverseChildren(nodes.getFirstChild(current));
+    }
+
+    /**
+     * code for _main procedure, generate other procedure calling
+     * @throws CompilerException - if AST is incorrect, it throw this exception
+     */
+    private void mainCode() throws CompilerException {
         ArrayList<HashMap<String, Integer>> varList = new ArrayList<>();
         varList.add(globalVariableMap);
 
-        code.append(genBlockCode(ast.getRoot().getChildren(), varList,
-                "", false,
-                "", false));
+        asmCode.add(Opcode.PROC, asmCode.symbol("_main"));
+        int frame = genFrameCode(asmCode);
+
+        genBlockCode(nodes.getFirstChild(ast.getRoot()), varList,
+                NodeArena.NONE, false,
+                NodeArena.NONE, false, asmCode);
 
         /* append ending of IF construction using ifFlag */
         if (ifFlag){
-            code.append(String.format("_if_end_%s:\n", ifHashCode));
+            asmCode.add(Opcode.LABEL, asmCode.label("_if_end_", ifHashCode));
             ifFlag = false;
         }
 
-        return code.toString();
+        /* value on top of stack is result of program */
+        closeFrame(frame, asmCode);
+        asmCode.add(Opcode.POP, EBX)
+                .add(Opcode.RET)
+                .add(Opcode.ENDP, asmCode.symbol("_main"));
     }
 
     /**
-     * getter for asm code
+     * getter for asm code, full text is made on every call
      * @return - asm code
      */
     public String getAsmCode() {
+        StringBuilder code = new StringBuilder(masmTemplate.length() + prototypes.length() +
+                LINE_LENGTH * asmCode.size());
+        try {
+            writeCode(code);
+        } catch (IOException e) {
+            /* StringBuilder doesn't throw it */
+            throw new IllegalStateException(e);
+        }
+        return code.toString();
+    }
+
+    /**
+     * getter for instructions of all functions and _main
+     * @return - instructions
+     */
+    public InstructionBuffer getCode() {
         return asmCode;
     }
 }
@@ -1,39 +1,72 @@
+import java.util.ArrayDeque;
+
 /**
  * Class describe Asynchronous Syntax Tree
+ * nodes of tree are kept in arena, which is common for all trees of program
  */
 public class AST {
+    /* arena with nodes of AST */
+    private final NodeArena nodes;
     /* root node of AST*/
-    private final Node_AST root;
+    private final int root;
 
     /**
      * create AST
+     * @param nodes - arena with nodes
      * @param root - root node
      */
-    public AST(Node_AST root){
+    public AST(NodeArena nodes, int root){
+        this.nodes = nodes;
         this.root = root;
     }
 
     /**
-     * create AST with new Node_AST from token
+     * create AST with new node from token
+     * @param nodes - arena with nodes
      * @param token - root token
      */
-    public AST(Token token){
-        this.root = new Node_AST(token, null);
+    public AST(NodeArena nodes, Token token){
+        this.nodes = nodes;
+        this.root = nodes.add(token);
     }
 
     /**
-     * start recursive printing AST
+     * start printing AST
+     * nodes are printed in loop, next nodes are kept in stack, so depth of AST is limited only by heap
      */
     public void printAST(){
-        recursivePrintChildren(root, 0);
+        ArrayDeque<Integer> stack = new ArrayDeque<>();
+        ArrayDeque<Integer> depths = new ArrayDeque<>();
+        printChild(root, 0);
+        if (nodes.getFirstChild(root) != NodeArena.NONE){
+            stack.push(nodes.getFirstChild(root));
+            depths.push(1);
+        }
+
+        while (!stack.isEmpty()){
+            int child = stack.pop();
+            int depth = depths.pop();
+
+            printChild(child, depth);
+
+            /* next sibling is pushed first, so children tree of node is printed before it */
+            if (nodes.getNextSibling(child) != NodeArena.NONE){
+                stack.push(nodes.getNextSibling(child));
+                depths.push(depth);
+            }
+            if (nodes.getFirstChild(child) != NodeArena.NONE){
+                stack.push(nodes.getFirstChild(child));
+                depths.push(depth + 1);
+            }
+        }
     }
 
     /**
-     * second print part
+     * print data of one node
      * @param child - current child which data will be printed
      * @param depth - current depth for pretty print AST
      */
-    private void recursivePrintChildren(Node_AST child, int depth){
+    private void printChild(int child, int depth){
         StringBuilder prev = new StringBuilder();
         if (depth > 1){
             prev = new StringBuilder();
@@ -45,18 +78,23 @@ public class AST {
                 prev = new StringBuilder("|-----");
             }
         }
-            System.out.printf("%s{%1s <-> '%-1s'}%n", prev.toString(),
-                    child.getCurrent().getType(), child.getCurrent().getValue());
-            for (Node_AST node : child.getChildren()) {
-                recursivePrintChildren(node, depth + 1);
-            }
+        System.out.printf("%s{%1s <-> '%-1s'}%n", prev.toString(),
+                nodes.getKind(child).getTypeName(), nodes.getValue(child));
+    }
+
+    /**
+     * getter for arena with nodes
+     * @return - arena
+     */
+    public NodeArena getNodes() {
+        return nodes;
     }
 
     /**
      * getter for root node
      * @return - root node
      */
-    public Node_AST getRoot() {
+    public int getRoot() {
         return root;
     }
 }
@@ -0,0 +1,262 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Class describe on-disk cache of parsed programs
+ * AST of source without errors is kept in binary file, which name is hash of source and compiler version,
+ * so not changed source is compiled without lexing and parsing
+ * size of cache is limited, least recently used files are removed first
+ * data of file is checked by CRC32 before reading, so broken file is not read as other AST
+ */
+public class AstCache {
+    /* version of compiler, files of other version are not used, change it when AST of source can be changed */
+    public static final String VERSION = "2";
+    /* default max size of all files in cache */
+    public static final long DEFAULT_SIZE = 64L << 20;
+    /* first bytes of every cache file */
+    private static final int MAGIC = 0x50594153;
+    /* extension of cache files */
+    private static final String EXTENSION = ".ast";
+
+    /* directory with cache files */
+    private final File directory;
+    /* max size of all files in cache */
+    private final long maxSize;
+    /* counters of found, not found and removed ASTs */
+    private int hits, misses, evictions;
+
+    /**
+     * create cache in directory, directory is created when first AST is stored
+     * @param directory - name of directory with cache files
+     * @param maxSize - max size of all files in bytes
+     */
+    public AstCache(String directory, long maxSize){
+        this.directory = new File(directory);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * create key of source, it is the same only for the same source and compiler version
+     * @param text - source text
+     * @return - key as hex string
+     */
+    public String key(CharSequence text){
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            /* every java platform has SHA-256 */
+            throw new IllegalStateException(e);
+        }
+        digest.update(VERSION.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(StandardCharsets.UTF_8.encode(CharBuffer.wrap(text)));
+
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest()) {
+            key.append(String.format("%02x", b));
+        }
+        return key.toString();
+    }
+
+    /**
+     * find AST of source in cache, found file becomes recently used
+     * @param key - key of source
+     * @param defAST - map, which is filled by functions AST in order of stored map,
+     *               use LinkedHashMap to keep this order in printing and asm
+     * @return - main AST, or null if there is no correct file for key
+     */
+    public AST load(String key, HashMap<String, AST> defAST){
+        File file = new File(directory, key + EXTENSION);
+        if (!file.isFile()){
+            misses++;
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || !in.readUTF().equals(VERSION))
+                throw new IOException("Incorrect cache file");
+
+            int length = in.readInt();
+            if (length < 0)
+                throw new IOException("Incorrect size of data");
+            byte[] data = new byte[length];
+            in.readFully(data);
+            if (in.readLong() != checksum(data))
+                throw new IOException("Incorrect checksum of data");
+
+            LinkedHashMap<String, AST> defs = new LinkedHashMap<>();
+            AST mainAST = read(new DataInputStream(new ByteArrayInputStream(data)), defs);
+
+            defAST.putAll(defs);
+            file.setLastModified(System.currentTimeMillis());
+            hits++;
+            return mainAST;
+        } catch (IOException | RuntimeException e) {
+            /* broken file is removed, source will be parsed again */
+            file.delete();
+            misses++;
+            return null;
+        }
+    }
+
+    /**
+     * read AST from checked data of file
+     * @param in - stream with data
+     * @param defs - map, which is filled by functions AST in order of stored map
+     * @return - main AST
+     * @throws IOException - data is incorrect
+     */
+    private static AST read(DataInputStream in, LinkedHashMap<String, AST> defs) throws IOException {
+        NodeArena nodes = NodeArena.read(in);
+        AST mainAST = new AST(nodes, readRoot(in, nodes));
+        for (int count = in.readInt(); count > 0; count--) {
+            AST def = new AST(nodes, readRoot(in, nodes));
+            defs.put(nodes.getValue(def.getRoot()), def);
+        }
+        return mainAST;
+    }
+
+    /**
+     * calculate checksum of data
+     * @param data - bytes of data
+     * @return - CRC32 of bytes
+     */
+    private static long checksum(byte[] data){
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return crc.getValue();
+    }
+
+    /**
+     * read id of root node and test it
+     * @param in - input stream
+     * @param nodes - read nodes
+     * @return - id of root
+     * @throws IOException - stream can not be read or id is incorrect
+     */
+    private static int readRoot(DataInputStream in, NodeArena nodes) throws IOException {
+        int root = in.readInt();
+        if (root < 0 || root >= nodes.size())
+            throw new IOException("Incorrect root of AST");
+        return root;
+    }
+
+    /**
+     * store AST of source, then remove least recently used files, if cache is too big
+     * AST must be stored before creating asm, because asm creator changes order of function parameters
+     * @param key - key of source
+     * @param mainAST - main AST
+     * @param defAST - map with functions AST, they have the same arena as main AST
+     * @throws IOException - file can not be written
+     */
+    public void store(String key, AST mainAST, HashMap<String, AST> defAST) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException(String.format("Can not create directory: %s", directory));
+
+        /* file is written under other name and renamed, so other compiler never reads part of file */
+        File file = new File(directory, key + EXTENSION);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(bytes);
+        mainAST.getNodes().write(data);
+        data.writeInt(mainAST.getRoot());
+        /* functions are written in order of map, so loaded map is walked in the same order */
+        data.writeInt(defAST.size());
+        for (AST def : defAST.values()) {
+            data.writeInt(def.getRoot());
+        }
+
+        File tmp = File.createTempFile(key, ".tmp", directory);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeUTF(VERSION);
+            byte[] payload = bytes.toByteArray();
+            out.writeInt(payload.length);
+            out.write(payload);
+            out.writeLong(checksum(payload));
+        } catch (IOException e) {
+            tmp.delete();
+            throw e;
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        evict();
+    }
+
+    /**
+     * remove least recently used files, until size of cache is not bigger than max size
+     */
+    private void evict(){
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+        if (files == null)
+            return;
+
+        long size = 0;
+        long[] times = new long[files.length];
+        for (int i = 0; i < files.length; i++) {
+            size += files[i].length();
+            times[i] = files[i].lastModified();
+        }
+        if (size <= maxSize)
+            return;
+
+        /* times are taken once, so order is not changed by other compiler during sorting */
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> times[i]));
+
+        for (int i = 0; i < order.length && size > maxSize; i++) {
+            File file = files[order[i]];
+            long length = file.length();
+            if (file.delete()){
+                size -= length;
+                evictions++;
+            }
+        }
+    }
+
+    /**
+     * getter for count of found ASTs
+     * @return - count of hits
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * getter for count of not found ASTs
+     * @return - count of misses
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+    /**
+     * getter for count of removed files
+     * @return - count of evictions
+     */
+    public int getEvictions() {
+        return evictions;
+    }
+}
@@ -1,3 +1,7 @@
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
 /**
  * general compiler which contain lexer, parser, asm creator
  */
@@ -5,6 +9,8 @@ public class Compiler {
     /* names for input(.py) and output(.asm) files */
     private final String input;
     private final String output;
+    /* cache of parsed sources, null if source is always parsed */
+    private final AstCache cache;
 
     /**
      * create compiler object
@@ -12,8 +18,19 @@ public class Compiler {
      * @param outputFilename - output assembler file
      */
     public Compiler(String inputFilename, String outputFilename){
+        this(inputFilename, outputFilename, null);
+    }
+
+    /**
+     * create compiler object, which takes AST of not changed source from cache
+     * @param inputFilename - input python file
+     * @param outputFilename - output assembler file
+     * @param cache - cache of parsed sources, or null
+     */
+    public Compiler(String inputFilename, String outputFilename, AstCache cache){
         this.input = inputFilename;
         this.output = outputFilename;
+        this.cache = cache;
     }
 
     /**
@@ -24,41 +41,85 @@ public class Compiler {
         /* time before compilation */
         long time = System.nanoTime();
 
-        /* start lexer */
-        Lexer lexer = new Lexer(input, true);
+        /* take AST from cache, if the same source was compiled before */
+        String text = null, key = null;
+        HashMap<String, AST> defAST = new LinkedHashMap<>();
+        AST mainAST = null;
+        if (cache != null){
+            try {
+                text = SourceFile.readString(input);
+                key = cache.key(text);
+                mainAST = cache.load(key, defAST);
+            } catch (IOException e) {
+                /* file is read again by lexer, which prints error */
+            }
+        }
 
-        /* print lexing table */
-        lexer.printTokens();
-        System.out.println("\n========================================\n");
+        if (mainAST != null){
+            System.out.println("Tokens and AST are taken from cache");
+            System.out.println("\n========================================\n");
+        }
+        else {
+            /* start lexer */
+            Lexer lexer = text != null ? new Lexer(text, false) : new Lexer(input, true);
+            lexer.getDiagnostics().report(System.err);
 
-        /* start parser */
-        Parser parser;
-        try {
-            parser = new Parser(lexer.getTokens());
-        } catch (CompilerException e) {
-            /* if result of parsing is incorrect return false and print error message */
-            System.err.println(e.getMessage());
-            return false;
+            /* print lexing table */
+            lexer.printTokens();
+            System.out.println("\n========================================\n");
+
+            /* start parser */
+            Parser parser;
+            try {
+                parser = new Parser(lexer.getTokens(), Diagnostics.DEFAULT_LIMIT);
+            } catch (CompilerException e) {
+                /* if result of parsing is incorrect return false and print error message */
+                System.err.println(e.getMessage());
+                return false;
+            }
+
+            /* print all syntax errors, if some statements were skipped */
+            if (!parser.getErrors().isEmpty()){
+                for (CompilerException e :
+                        parser.getErrors()) {
+                    System.err.println(e.getMessage());
+                }
+                if (parser.isStopped())
+                    System.err.printf("Too many errors (%d), parsing is stopped%n", Diagnostics.DEFAULT_LIMIT);
+                return false;
+            }
+
+            mainAST = parser.getMainAST();
+            defAST = parser.getDefAST();
+
+            /* only source without errors is stored, asm creator changes AST, so it is stored now */
+            if (key != null && lexer.getDiagnostics().size() == 0){
+                try {
+                    cache.store(key, mainAST, defAST);
+                } catch (IOException e) {
+                    System.err.println(e.getMessage());
+                }
+            }
         }
 
         System.out.println("_________________METHODS________________\n");
 
         /* print all function AST's */
         for (String defName :
-                parser.getDefAST().keySet()) {
-            parser.getDefAST().get(defName).printAST();
+                defAST.keySet()) {
+            defAST.get(defName).printAST();
             System.out.println();
         }
         System.out.println("___________________MAIN_________________\n");
 
         /* print AST (result of parsing) */
-        parser.getMainAST().printAST();
+        mainAST.printAST();
         System.out.println("\n========================================\n");
 
         /* start ASM creator */
         ASM_Creator asm_creator;
         try {
-            asm_creator = new ASM_Creator(parser.getMainAST(), parser.getDefAST());
+            asm_creator = new ASM_Creator(mainAST, defAST);
         } catch (CompilerException e) {
             /* if result of creating asm is incorrect return false and print error message */
             System.err.println(e.getMessage());
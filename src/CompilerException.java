@@ -4,7 +4,17 @@
 public class CompilerException extends Exception {
     public CompilerException(String message, Token token){
         /* print message with data of incorrect token */
-        super(String.format("%s\n\tat Token='%s' [row=%d column=%d]",
-                message, token.getRawValue(), (token.getRow()+1), (token.getColumn()+1)));
+        super(format(message, token));
+    }
+
+    /**
+     * create message with data of incorrect token, it is used without throwing too
+     * @param message - message of error
+     * @param token - incorrect token
+     * @return - full message
+     */
+    public static String format(String message, Token token){
+        return String.format("%s\n\tat Token='%s' [row=%d column=%d]",
+                message, token.getRawValue(), (token.getRow()+1), (token.getColumn()+1));
     }
 }
@@ -0,0 +1,295 @@
+import java.math.BigInteger;
+
+/**
+ * Class describe folding of constant expressions and simplification of operations with neutral operands
+ * nodes are changed in place: constant node becomes INT node with decimal value, simplified node becomes its operand
+ * values are 32-bit with wraparound, like in registers, division by zero and overflow are left for run time
+ * node must be folded after its children and after names of its variables and functions are checked,
+ * because operands, which are not calculated after folding, are not checked by asm creator
+ */
+public class ConstantFolder {
+    /* arena with folded nodes */
+    private final NodeArena nodes;
+
+    /**
+     * create folder of nodes
+     * @param nodes - arena with nodes
+     */
+    public ConstantFolder(NodeArena nodes){
+        this.nodes = nodes;
+    }
+
+    /**
+     * fold node, if its operands are constant or neutral
+     * @param current - node, its children are folded
+     */
+    public void fold(int current){
+        int first = nodes.getFirstChild(current);
+
+        switch (nodes.getKind(current)){
+            case UNAR_ADD:
+                nodes.replace(current, first);
+                break;
+
+            case UNAR_SUB:
+                if (isConstant(first))
+                    setValue(current, -valueOf(first));
+                else if (nodes.getKind(first) == TokenKind.UNAR_SUB)
+                    nodes.replace(current, nodes.getFirstChild(first));
+                break;
+
+            case NOT:
+                if (isConstant(first))
+                    setValue(current, valueOf(first) == 0 ? 1 : 0);
+                break;
+
+            /* second operand is not calculated, if first operand gives result */
+            case AND:
+            case OR:{
+                int second = nodes.getNextSibling(first);
+                boolean and = nodes.getKind(current) == TokenKind.AND;
+                if (isConstant(first)){
+                    if ((valueOf(first) == 0) == and)
+                        setValue(current, and ? 0 : 1);
+                    else
+                        compareWithZero(current, second, first);
+                }
+                else if (isConstant(second) && (valueOf(second) == 0) != and)
+                    compareWithZero(current, first, second);
+                break;
+            }
+
+            case TERNAR:{
+                int second = nodes.getNextSibling(first);
+                if (isConstant(first))
+                    nodes.replace(current, valueOf(first) != 0 ? second : nodes.getNextSibling(second));
+                break;
+            }
+
+            case L_SHIFT:
+            case R_SHIFT:
+            case BIT_AND:
+            case BIT_OR:
+            case BIT_XOR:
+            case EQ:
+            case NE:
+            case GT:
+            case LT:
+            case GE:
+            case LE:
+            case SUB:
+            case DIV:
+            case PERCENT:
+            case MUL:
+            case ADD:
+                foldOperation(current, first, nodes.getNextSibling(first));
+                break;
+        }
+    }
+
+    /**
+     * fold operation with two operands
+     * @param current - node of operation
+     * @param first - first operand
+     * @param second - second operand
+     */
+    private void foldOperation(int current, int first, int second){
+        TokenKind kind = nodes.getKind(current);
+
+        if (isConstant(first) && isConstant(second)){
+            int a = valueOf(first), b = valueOf(second);
+            switch (kind){
+                case ADD: setValue(current, a + b); break;
+                case SUB: setValue(current, a - b); break;
+                case MUL: setValue(current, a * b); break;
+                case DIV:
+                case PERCENT:
+                    /* idiv fails on them at run time */
+                    if (b != 0 && !(a == Integer.MIN_VALUE && b == -1))
+                        setValue(current, kind == TokenKind.DIV ? a / b : a % b);
+                    break;
+                /* processor uses only 5 bits of count, like java */
+                case L_SHIFT: setValue(current, a << b); break;
+                case R_SHIFT: setValue(current, a >> b); break;
+                case BIT_AND: setValue(current, a & b); break;
+                case BIT_OR: setValue(current, a | b); break;
+                case BIT_XOR: setValue(current, a ^ b); break;
+                case EQ: setValue(current, a == b ? 1 : 0); break;
+                case NE: setValue(current, a != b ? 1 : 0); break;
+                case GT: setValue(current, a > b ? 1 : 0); break;
+                case LT: setValue(current, a < b ? 1 : 0); break;
+                case GE: setValue(current, a >= b ? 1 : 0); break;
+                default: setValue(current, a <= b ? 1 : 0);
+            }
+            return;
+        }
+
+        /* x+0, x-0, x|0, x^0, x*1, x/1, x<<0, x>>0, x&-1, x*0, x%1, x&0 */
+        if (isConstant(second)){
+            int b = valueOf(second);
+            switch (kind){
+                case ADD:
+                case SUB:
+                case BIT_OR:
+                case BIT_XOR:
+                    if (b == 0)
+                        nodes.replace(current, first);
+                    break;
+                case MUL:
+                    if (b == 1)
+                        nodes.replace(current, first);
+                    else if (b == 0 && isValue(first))
+                        setValue(current, 0);
+                    break;
+                case DIV:
+                    if (b == 1)
+                        nodes.replace(current, first);
+                    break;
+                /* x%-1 is not folded, idiv fails on it at run time, if x is min value */
+                case PERCENT:
+                    if (b == 1 && isValue(first))
+                        setValue(current, 0);
+                    break;
+                case L_SHIFT:
+                case R_SHIFT:
+                    if ((b & 31) == 0)
+                        nodes.replace(current, first);
+                    break;
+                case BIT_AND:
+                    if (b == -1)
+                        nodes.replace(current, first);
+                    else if (b == 0 && isValue(first))
+                        setValue(current, 0);
+                    break;
+            }
+        }
+
+        /* 0+x, 0|x, 0^x, 1*x, -1&x, 0*x, 0&x, 0<<x, 0>>x */
+        else if (isConstant(first)){
+            int a = valueOf(first);
+            switch (kind){
+                case ADD:
+                case BIT_OR:
+                case BIT_XOR:
+                    if (a == 0)
+                        nodes.replace(current, second);
+                    break;
+                case MUL:
+                    if (a == 1)
+                        nodes.replace(current, second);
+                    else if (a == 0 && isValue(second))
+                        setValue(current, 0);
+                    break;
+                case BIT_AND:
+                    if (a == -1)
+                        nodes.replace(current, second);
+                    else if (a == 0 && isValue(second))
+                        setValue(current, 0);
+                    break;
+                case L_SHIFT:
+                case R_SHIFT:
+                    if (a == 0 && isValue(second))
+                        setValue(current, 0);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * change logic operation to comparing of operand with zero, constant operand becomes zero,
+     * operand, which is 0 or 1 already, is not compared
+     * @param current - node of AND or OR
+     * @param operand - operand, which gives result
+     * @param constant - other constant operand
+     */
+    private void compareWithZero(int current, int operand, int constant){
+        if (isBoolean(operand)){
+            nodes.replace(current, operand);
+            return;
+        }
+        nodes.setLeaf(constant, "0", TokenKind.INT);
+        if (nodes.getFirstChild(current) != operand)
+            nodes.reverseChildren(current);
+        nodes.setLeaf(current, "!=", TokenKind.NE);
+        nodes.appendChild(current, operand);
+        nodes.appendChild(current, constant);
+    }
+
+    /**
+     * change node to constant
+     * @param current - node
+     * @param value - value of node
+     */
+    private void setValue(int current, int value){
+        nodes.setLeaf(current, Integer.toString(value), TokenKind.INT);
+    }
+
+    /**
+     * test that node is number
+     * @param current - node
+     * @return - result of test
+     */
+    public boolean isConstant(int current){
+        switch (nodes.getKind(current)){
+            case INT_CHAR:
+            case INT_BINNUM:
+            case INT_HEXNUM:
+            case INT_OCTNUM:
+            case INT_FLOAT:
+            case INT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * test that value of node is always 0 or 1
+     * @param current - node
+     * @return - result of test
+     */
+    private boolean isBoolean(int current){
+        switch (nodes.getKind(current)){
+            case EQ:
+            case NE:
+            case GT:
+            case LT:
+            case GE:
+            case LE:
+            case NOT:
+            case AND:
+            case OR:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * test that node is number or variable, so it can be not calculated
+     * @param current - node
+     * @return - result of test
+     */
+    private boolean isValue(int current){
+        return isConstant(current) ||
+                nodes.getKind(current) == TokenKind.ID && nodes.getFirstChild(current) == NodeArena.NONE;
+    }
+
+    /**
+     * getter for value of number node
+     * @param current - number node
+     * @return - 32-bit value
+     */
+    public int valueOf(int current){
+        return valueOf(nodes.getValue(current));
+    }
+
+    /**
+     * convert value of number node to 32-bit value, numbers bigger than 32 bits are wrapped like in register
+     * @param value - decimal value
+     * @return - 32-bit value
+     */
+    public static int valueOf(String value) {
+        return value.length() < 19 ? (int) Long.parseLong(value) : new BigInteger(value).intValue();
+    }
+}
@@ -0,0 +1,177 @@
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * Class describe compact list of lexical errors
+ * errors are kept as kind and position, messages are created only when errors are reported
+ */
+public class Diagnostics {
+    /* count of errors, after which lexing or parsing is stopped by default */
+    public static final int DEFAULT_LIMIT = 100;
+
+    /**
+     * Enum describe kinds of lexical errors
+     */
+    public enum Kind {
+        UNDEFINED_SYMBOL("Undefined symbol");
+
+        /* text of error message */
+        private final String message;
+
+        Kind(String message) {
+            this.message = message;
+        }
+
+        /**
+         * getter for message
+         * @return - text of error message
+         */
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    /* all kinds, used for getting kind by stored ordinal */
+    private static final Kind[] KINDS = Kind.values();
+
+    /* source text, which errors are pointing to */
+    private final CharSequence source;
+    /* max count of errors */
+    private final int limit;
+
+    /* ordinal of error kind */
+    private byte[] kinds = new byte[8];
+    /* id of incorrect token in token buffer */
+    private int[] tokenIds = new int[8];
+    /* index of incorrect character in source */
+    private int[] starts = new int[8];
+    /* row in high and column in low part */
+    private long[] positions = new long[8];
+    /* count of stored errors */
+    private int size;
+
+    /**
+     * create empty list of errors
+     * @param source - source text of errors
+     * @param limit - max count of errors
+     */
+    public Diagnostics(CharSequence source, int limit){
+        this.source = source;
+        this.limit = limit;
+    }
+
+    /**
+     * add error to the end of list, if limit is not reached
+     * @param kind - kind of error
+     * @param tokenId - id of incorrect token
+     * @param start - index of incorrect character in source
+     * @param row - row of error
+     * @param column - column of error
+     */
+    public void add(Kind kind, int tokenId, int start, int row, int column){
+        if (isFull())
+            return;
+
+        if (size == kinds.length){
+            int capacity = size + (size >> 1);
+            kinds = Arrays.copyOf(kinds, capacity);
+            tokenIds = Arrays.copyOf(tokenIds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+        }
+
+        kinds[size] = (byte) kind.ordinal();
+        tokenIds[size] = tokenId;
+        starts[size] = start;
+        positions[size] = ((long) row << 32) | (column & 0xFFFFFFFFL);
+        size++;
+    }
+
+    /**
+     * add all errors of other list to the end of list, while limit is not reached
+     * @param other - list with next errors
+     * @param tokenOffset - count of tokens before tokens of other list
+     */
+    public void append(Diagnostics other, int tokenOffset){
+        for (int i = 0; i < other.size; i++) {
+            add(other.getKind(i), other.tokenIds[i] + tokenOffset, other.starts[i],
+                    other.getRow(i), other.getColumn(i));
+        }
+    }
+
+    /**
+     * test if limit of errors is reached
+     * @return - is list full
+     */
+    public boolean isFull() {
+        return size >= limit;
+    }
+
+    /**
+     * getter for count of errors
+     * @return - count of errors
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * getter for error kind
+     * @param id - id of error
+     * @return - kind
+     */
+    public Kind getKind(int id) {
+        return KINDS[kinds[id]];
+    }
+
+    /**
+     * getter for id of incorrect token
+     * @param id - id of error
+     * @return - id of token
+     */
+    public int getTokenId(int id) {
+        return tokenIds[id];
+    }
+
+    /**
+     * getter for error row
+     * @param id - id of error
+     * @return - row
+     */
+    public int getRow(int id) {
+        return (int) (positions[id] >> 32);
+    }
+
+    /**
+     * getter for error column
+     * @param id - id of error
+     * @return - column
+     */
+    public int getColumn(int id) {
+        return (int) positions[id];
+    }
+
+    /**
+     * create message of error
+     * @param id - id of error
+     * @return - message with data of incorrect token
+     */
+    public String getMessage(int id) {
+        Token token = new Token(String.valueOf(source.charAt(starts[id])), TokenKind.UNDEF,
+                getRow(id), getColumn(id));
+        return CompilerException.format(getKind(id).getMessage(), token);
+    }
+
+    /**
+     * print all errors, every message is followed by code of incorrect character
+     * @param out - stream for printing
+     */
+    public void report(PrintStream out){
+        for (int i = 0; i < size; i++) {
+            out.println(getMessage(i));
+            out.println((int) source.charAt(starts[i]));
+        }
+        if (isFull())
+            out.printf("Too many errors (%d), lexing is stopped%n", limit);
+    }
+}
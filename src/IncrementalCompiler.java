@@ -0,0 +1,392 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * incremental front end (lexer and parser) for the editor
+ * source is divided into units, every unit is one top-level statement or function
+ * with its indented lines, after edit only units with changed lines are lexed and parsed again
+ */
+public class IncrementalCompiler {
+    /* previous source text */
+    private String text;
+    /* start index of every line in previous source text */
+    private int[] lineStarts;
+    /* count of lines in previous source text, as lexer counts them */
+    private int lineCount;
+    /* units of previous source text in order of rows */
+    private final ArrayList<Unit> units = new ArrayList<>();
+
+    /* AST created from all units, created when it is asked */
+    private AST mainAST;
+    private HashMap<String, AST> defAST;
+    /* first error in source order, or null */
+    private CompilerException error;
+
+    /* functions of units before parsed unit, they can be used as parameters */
+    private final HashMap<String, AST> knownDefs = new HashMap<>();
+    /* units with functions in knownDefs, which rows are not moved yet */
+    private final ArrayList<Unit> knownUnits = new ArrayList<>();
+
+    /**
+     * Class describe one top-level statement with its tokens and parsing result
+     */
+    private static class Unit {
+        /* first and last rows of unit in source */
+        private int firstRow;
+        private int lastRow;
+        /* rows, which tokens and AST must be moved by, they are moved when AST is asked */
+        private int shift;
+        /* tokens of unit lines */
+        private TokenBuffer tokens;
+        /* parsed statements as children of root and functions, null if there is parsing error */
+        private AST mainAST;
+        private HashMap<String, AST> defAST = new HashMap<>();
+        /* parsing error, or null */
+        private CompilerException error;
+        /* unit uses functions of earlier units as parameters */
+        private boolean importsDefs;
+    }
+
+    /**
+     * update front end result for new source text
+     * @param newText - full source text after edit
+     * @return - true, if there are no errors
+     */
+    public boolean update(String newText){
+        int[] newLineStarts = lineStarts(newText);
+        int newLineCount = lineCount(newText, newLineStarts);
+        knownDefs.clear();
+        knownUnits.clear();
+
+        if (text == null){
+            units.addAll(split(newText, newLineStarts, newLineCount, 0, newLineStarts.length - 1));
+        }
+        else {
+            /* find changed part as text between common prefix and common suffix */
+            int prefix = 0, maxCommon = Math.min(text.length(), newText.length());
+            while (prefix < maxCommon && text.charAt(prefix) == newText.charAt(prefix)){
+                prefix++;
+            }
+            int suffix = 0;
+            while (suffix < maxCommon - prefix &&
+                    text.charAt(text.length() - 1 - suffix) == newText.charAt(newText.length() - 1 - suffix)){
+                suffix++;
+            }
+
+            int firstRow = rowOf(lineStarts, prefix),
+                    lastOldRow = rowOf(lineStarts, text.length() - suffix),
+                    delta = newLineStarts.length - lineStarts.length;
+
+            /*
+            * previous unit is taken too, because changed line can become
+            * indented line of previous statement
+            */
+            int first = Math.max(unitOf(firstRow) - 1, 0), last = unitOf(lastOldRow);
+
+            /*
+            * messages of errors have old rows or old count of lines in column of '\n',
+            * lex and parse these units again
+            */
+            for (int i = 0; i < first; i++) {
+                Unit unit = units.get(i);
+                if (unit.error != null && (delta != 0 || newLineCount != lineCount))
+                    lex(unit, newText, newLineStarts, newLineCount);
+                addKnown(unit);
+            }
+
+            ArrayList<Unit> changed = split(newText, newLineStarts, newLineCount,
+                    units.get(first).firstRow, units.get(last).lastRow + delta);
+
+            /* move units after changed part */
+            for (int i = last + 1; delta != 0 && i < units.size(); i++) {
+                Unit unit = units.get(i);
+                unit.firstRow += delta;
+                unit.lastRow += delta;
+                unit.shift += delta;
+            }
+
+            units.subList(first, last + 1).clear();
+            units.addAll(first, changed);
+
+            /*
+            * units after changed part are lexed and parsed again, if they have errors,
+            * because changed part can define unknown function or rows of messages are old,
+            * or if they use functions of earlier units, because these functions can be changed
+            */
+            for (int i = first + changed.size(); i < units.size(); i++) {
+                Unit unit = units.get(i);
+                if (unit.error != null || unit.importsDefs)
+                    lex(unit, newText, newLineStarts, newLineCount);
+                addKnown(unit);
+            }
+        }
+
+        text = newText;
+        lineStarts = newLineStarts;
+        lineCount = newLineCount;
+
+        mainAST = null;
+        defAST = null;
+        error = null;
+        for (Unit unit : units) {
+            if (unit.error != null){
+                error = unit.error;
+                break;
+            }
+        }
+        return error == null;
+    }
+
+    /**
+     * create AST from results of all units
+     * nodes of units are copied to one arena, so ids of nodes are unique in program
+     */
+    private void collect(){
+        int capacity = 1;
+        for (Unit unit : units) {
+            if (unit.mainAST != null)
+                capacity += unit.mainAST.getNodes().size();
+        }
+
+        NodeArena nodes = new NodeArena(capacity);
+        mainAST = new AST(nodes, new Token("null", TokenKind.START, -1, -1));
+        defAST = new HashMap<>();
+
+        for (Unit unit : units) {
+            applyShift(unit);
+            if (unit.mainAST == null)
+                continue;
+
+            NodeArena unitNodes = unit.mainAST.getNodes();
+            for (int statement = unitNodes.getFirstChild(unit.mainAST.getRoot()); statement != NodeArena.NONE;
+                 statement = unitNodes.getNextSibling(statement)) {
+                int copied = nodes.copy(unitNodes, statement);
+                nodes.setParent(copied, mainAST.getRoot());
+                nodes.appendChild(mainAST.getRoot(), copied);
+            }
+            for (Map.Entry<String, AST> def : unit.defAST.entrySet()) {
+                defAST.put(def.getKey(), new AST(nodes, nodes.copy(unitNodes, def.getValue().getRoot())));
+            }
+        }
+    }
+
+    /**
+     * move rows of tokens and AST of unit
+     * @param unit - unit with not moved rows
+     */
+    private static void applyShift(Unit unit){
+        if (unit.shift != 0){
+            unit.tokens.shiftRows(unit.shift);
+            if (unit.mainAST != null)
+                unit.mainAST.getNodes().shiftRows(unit.shift);
+            unit.shift = 0;
+        }
+    }
+
+    /**
+     * add functions of unit to known functions for parsing of next units
+     * @param unit - parsed unit
+     */
+    private void addKnown(Unit unit){
+        if (unit.defAST.isEmpty())
+            return;
+        knownDefs.putAll(unit.defAST);
+        if (unit.shift != 0)
+            knownUnits.add(unit);
+    }
+
+    /**
+     * divide rows of source into units, lex and parse them
+     * every unit starts from not indented line with code,
+     * empty lines, comments and indented lines are added to unit before
+     * @param text - source text
+     * @param lineStarts - start index of every line in text
+     * @param lineCount - count of lines in text
+     * @param firstRow - first row for dividing
+     * @param lastRow - last row for dividing
+     * @return - list of new units
+     */
+    private ArrayList<Unit> split(String text, int[] lineStarts, int lineCount, int firstRow, int lastRow){
+        ArrayList<Unit> result = new ArrayList<>();
+
+        int unitStart = firstRow;
+        for (int row = firstRow + 1; row <= lastRow + 1; row++) {
+            if (row > lastRow || isUnitStart(text, lineStarts, row)){
+                Unit unit = new Unit();
+                unit.firstRow = unitStart;
+                unit.lastRow = row - 1;
+                lex(unit, text, lineStarts, lineCount);
+                addKnown(unit);
+
+                result.add(unit);
+                unitStart = row;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * lex only lines of unit and parse its tokens
+     * @param unit - unit for lexing
+     * @param text - source text
+     * @param lineStarts - start index of every line in text
+     * @param lineCount - count of lines in text
+     */
+    private void lex(Unit unit, String text, int[] lineStarts, int lineCount){
+        int end = unit.lastRow + 1 < lineStarts.length ? lineStarts[unit.lastRow + 1] : text.length();
+        unit.tokens = new Lexer(text.subSequence(lineStarts[unit.firstRow], end),
+                unit.firstRow, lineCount).getTokens();
+        unit.shift = 0;
+        parse(unit);
+    }
+
+    /**
+     * parse tokens of unit, functions of earlier units are known, like in parsing of full source
+     * @param unit - unit for parsing
+     */
+    private void parse(Unit unit){
+        unit.mainAST = null;
+        unit.defAST = new HashMap<>();
+        unit.error = null;
+        unit.importsDefs = false;
+
+        /* functions can be copied to arena of unit, so their rows must be actual */
+        for (Unit known : knownUnits) {
+            applyShift(known);
+        }
+        knownUnits.clear();
+
+        try {
+            Parser parser = new Parser(unit.tokens, knownDefs);
+            unit.mainAST = parser.getMainAST();
+            unit.defAST.putAll(parser.getDefAST());
+            unit.importsDefs = !parser.getImportedDefs().isEmpty();
+        } catch (CompilerException e) {
+            unit.error = e;
+        } catch (RuntimeException e) {
+            /* parser doesn't check some errors, e.g. call of unknown function in parameters */
+            unit.error = new CompilerException(String.valueOf(e),
+                    unit.tokens.get(Math.min(1, unit.tokens.size() - 1)));
+        }
+    }
+
+    /**
+     * test if line starts new unit, it has code and it is not indented
+     * @param text - source text
+     * @param lineStarts - start index of every line in text
+     * @param row - row of line
+     * @return - is it start of unit
+     */
+    private static boolean isUnitStart(String text, int[] lineStarts, int row){
+        int end = row + 1 < lineStarts.length ? lineStarts[row + 1] : text.length();
+        for (int i = lineStarts[row]; i < end; i++) {
+            char symb = text.charAt(i);
+            if (symb == '#' || symb == '\n' || symb == '\r')
+                return false;
+            if (symb != ' ' && symb != '\t' && symb != '\u000B' && symb != '\f')
+                return i == lineStarts[row];
+        }
+        return false;
+    }
+
+    /**
+     * find start of every line, every '\n' or '\r' ends a line
+     * @param text - source text
+     * @return - array with start index of every line
+     */
+    private static int[] lineStarts(String text){
+        int count = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n' || text.charAt(i) == '\r')
+                count++;
+        }
+
+        int[] starts = new int[count];
+        for (int i = 0, row = 1; i < text.length(); i++) {
+            if (text.charAt(i) == '\n' || text.charAt(i) == '\r')
+                starts[row++] = i + 1;
+        }
+        return starts;
+    }
+
+    /**
+     * count lines like lexer does, trailing empty lines are not counted
+     * @param text - source text
+     * @param lineStarts - start index of every line in text
+     * @return - count of lines
+     */
+    private static int lineCount(String text, int[] lineStarts){
+        int end = text.length();
+        while (end > 0 && (text.charAt(end - 1) == '\n' || text.charAt(end - 1) == '\r')){
+            end--;
+        }
+        if (end == 0)
+            return text.isEmpty() ? 1 : 0;
+        return rowOf(lineStarts, end - 1) + 1;
+    }
+
+    /**
+     * find row, which contains character
+     * @param lineStarts - start index of every line
+     * @param index - index of character
+     * @return - row
+     */
+    private static int rowOf(int[] lineStarts, int index){
+        int low = 0, high = lineStarts.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (lineStarts[middle] <= index)
+                low = middle;
+            else
+                high = middle - 1;
+        }
+        return low;
+    }
+
+    /**
+     * find unit, which contains row
+     * @param row - row in previous source
+     * @return - id of unit
+     */
+    private int unitOf(int row){
+        int low = 0, high = units.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (units.get(middle).firstRow <= row)
+                low = middle;
+            else
+                high = middle - 1;
+        }
+        return low;
+    }
+
+    /**
+     * getter for main AST
+     * @return - main AST
+     */
+    public AST getMainAST() {
+        if (mainAST == null)
+            collect();
+        return mainAST;
+    }
+
+    /**
+     * getter for map with functions AST
+     * @return - map
+     */
+    public HashMap<String, AST> getDefAST() {
+        if (defAST == null)
+            collect();
+        return defAST;
+    }
+
+    /**
+     * getter for first error in source order
+     * @return - error, or null if there are no errors
+     */
+    public CompilerException getError() {
+        return error;
+    }
+}
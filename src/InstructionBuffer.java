@@ -0,0 +1,442 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Class describe compact storage of asm instructions
+ * every instruction is kept in parallel arrays as opcode, ids of two operands and id of comment,
+ * different packed operands are kept once in table of operands, code has much less different operands
+ * than instructions, so instruction takes 13 bytes instead of 21 bytes with packed operands,
+ * names of procedures, prefixes of labels and comments are kept once in table, instructions keep only id of name,
+ * asm text is made only when code is printed
+ */
+public class InstructionBuffer {
+    /* all opcodes, used for getting opcode by stored ordinal */
+    private static final Opcode[] OPCODES = Opcode.values();
+    /* id of absent comment */
+    static final int NO_COMMENT = -1;
+    /* count of characters, which are printed to output at once */
+    private static final int PIECE = 8192;
+    /* id of absent operand, it is id of Operand.NONE */
+    private static final int NO_OPERAND = 0;
+
+    /* ordinal of opcode */
+    private byte[] opcodes;
+    /* ids of operands, NO_OPERAND if instruction has no such operand */
+    private int[] firsts;
+    private int[] seconds;
+    /* id of comment for asm text, NO_COMMENT if there is no comment */
+    private int[] comments;
+    /* count of stored instructions */
+    private int size;
+    /* names of procedures, prefixes of labels and comments, id of name is its index */
+    private final ArrayList<String> names;
+    /* map with ids of names, [name - id] */
+    private final HashMap<String, Integer> nameIds;
+    /* different packed operands, id of operand is its index, Operand.NONE has id NO_OPERAND */
+    private long[] operands;
+    /* count of different operands */
+    private int operandCount;
+    /* hash table with ids of operands, cells are searched one by one from hash of operand,
+       NO_OPERAND is empty cell, table is at least twice bigger than count of operands */
+    private int[] operandIds;
+
+    /**
+     * create empty buffer
+     * @param capacity - expected count of instructions
+     */
+    public InstructionBuffer(int capacity){
+        capacity = Math.max(capacity, 16);
+        this.opcodes = new byte[capacity];
+        this.firsts = new int[capacity];
+        this.seconds = new int[capacity];
+        this.comments = new int[capacity];
+        this.size = 0;
+        this.names = new ArrayList<>();
+        this.nameIds = new HashMap<>();
+        this.operands = new long[64];
+        this.operandCount = 1;
+        this.operandIds = new int[128];
+    }
+
+    /**
+     * add instruction without operands
+     * @param opcode - opcode
+     * @return - this buffer
+     */
+    public InstructionBuffer add(Opcode opcode){
+        return add(opcode, Operand.NONE, Operand.NONE, null);
+    }
+
+    /**
+     * add instruction with one operand
+     * @param opcode - opcode
+     * @param first - operand
+     * @return - this buffer
+     */
+    public InstructionBuffer add(Opcode opcode, long first){
+        return add(opcode, first, Operand.NONE, null);
+    }
+
+    /**
+     * add instruction with one operand and comment
+     * @param opcode - opcode
+     * @param first - operand
+     * @param comment - comment
+     * @return - this buffer
+     */
+    public InstructionBuffer add(Opcode opcode, long first, String comment){
+        return add(opcode, first, Operand.NONE, comment);
+    }
+
+    /**
+     * add instruction with two operands
+     * @param opcode - opcode
+     * @param first - destination operand
+     * @param second - source operand
+     * @return - this buffer
+     */
+    public InstructionBuffer add(Opcode opcode, long first, long second){
+        return add(opcode, first, second, null);
+    }
+
+    /**
+     * add instruction to the end of buffer
+     * @param opcode - opcode
+     * @param first - destination operand, Operand.NONE if it is absent
+     * @param second - source operand, Operand.NONE if it is absent
+     * @param comment - comment, null if it is absent
+     * @return - this buffer
+     */
+    public InstructionBuffer add(Opcode opcode, long first, long second, String comment){
+        if (size == opcodes.length){
+            int capacity = size + (size >> 1);
+            opcodes = Arrays.copyOf(opcodes, capacity);
+            firsts = Arrays.copyOf(firsts, capacity);
+            seconds = Arrays.copyOf(seconds, capacity);
+            comments = Arrays.copyOf(comments, capacity);
+        }
+
+        opcodes[size] = (byte) opcode.ordinal();
+        firsts[size] = operandId(first);
+        seconds[size] = operandId(second);
+        comments[size] = comment == null ? NO_COMMENT : nameId(comment);
+        size++;
+        return this;
+    }
+
+    /**
+     * replace instruction, used by optimizer for changing code in place
+     * @param id - index of instruction
+     * @param opcode - new opcode
+     * @param first - destination operand, Operand.NONE if it is absent
+     * @param second - source operand, Operand.NONE if it is absent
+     * @param comment - id of comment, from getCommentId()
+     */
+    void set(int id, Opcode opcode, long first, long second, int comment){
+        opcodes[id] = (byte) opcode.ordinal();
+        firsts[id] = operandId(first);
+        seconds[id] = operandId(second);
+        comments[id] = comment;
+    }
+
+    /**
+     * copy instruction to other place of this buffer
+     * @param from - index of copied instruction
+     * @param to - index of replaced instruction
+     */
+    void copy(int from, int to){
+        opcodes[to] = opcodes[from];
+        firsts[to] = firsts[from];
+        seconds[to] = seconds[from];
+        comments[to] = comments[from];
+    }
+
+    /**
+     * remove instructions, next instructions are moved to their place
+     * @param start - index of first removed instruction
+     * @param end - index after last removed instruction
+     */
+    void remove(int start, int end){
+        System.arraycopy(opcodes, end, opcodes, start, size - end);
+        System.arraycopy(firsts, end, firsts, start, size - end);
+        System.arraycopy(seconds, end, seconds, start, size - end);
+        System.arraycopy(comments, end, comments, start, size - end);
+        size -= end - start;
+    }
+
+    /**
+     * add all instructions of other buffer to the end, names of other buffer are added to this buffer
+     * @param other - buffer with next instructions
+     */
+    public void append(InstructionBuffer other){
+        for (int i = 0; i < other.size; i++) {
+            add(other.getOpcode(i), other.copyOperand(other.getFirst(i), this),
+                    other.copyOperand(other.getSecond(i), this), other.getComment(i));
+        }
+    }
+
+    /**
+     * create the same operand for other buffer
+     * @param operand - operand of this buffer
+     * @param other - buffer, which gets operand
+     * @return - operand for other buffer
+     */
+    private long copyOperand(long operand, InstructionBuffer other){
+        switch (Operand.getKind(operand)){
+            case Operand.LABEL: return other.label(names.get(Operand.getNameId(operand)), Operand.getValue(operand));
+            case Operand.SYMBOL: return other.symbol(getName(operand));
+            default: return operand;
+        }
+    }
+
+    /**
+     * create label operand, labels with the same prefix and number are the same label
+     * @param prefix - prefix of name
+     * @param number - number after prefix, usually id of node, NodeArena.NONE if name is only prefix
+     * @return - operand
+     */
+    public long label(String prefix, int number){
+        return Operand.label(nameId(prefix), number);
+    }
+
+    /**
+     * create procedure name operand
+     * @param name - name of procedure
+     * @return - operand
+     */
+    public long symbol(String name){
+        return Operand.symbol(nameId(name));
+    }
+
+    /**
+     * find id of operand, or add operand to table
+     * @param operand - packed operand
+     * @return - id of operand
+     */
+    private int operandId(long operand){
+        if (operand == Operand.NONE)
+            return NO_OPERAND;
+
+        int mask = operandIds.length - 1;
+        for (int cell = hash(operand) & mask; ; cell = (cell + 1) & mask) {
+            int id = operandIds[cell];
+            if (id == NO_OPERAND)
+                return addOperand(operand, cell);
+            if (operands[id] == operand)
+                return id;
+        }
+    }
+
+    /**
+     * add operand to table of operands
+     * @param operand - packed operand, which is not in table
+     * @param cell - empty cell of hash table for operand
+     * @return - id of operand
+     */
+    private int addOperand(long operand, int cell){
+        if (operandCount == operands.length)
+            operands = Arrays.copyOf(operands, 2 * operandCount);
+        int id = operandCount++;
+        operands[id] = operand;
+        operandIds[cell] = id;
+
+        /* bigger table is filled again */
+        if (2 * operandCount > operandIds.length){
+            operandIds = new int[2 * operandIds.length];
+            int mask = operandIds.length - 1;
+            for (int i = 1; i < operandCount; i++) {
+                int place = hash(operands[i]) & mask;
+                while (operandIds[place] != NO_OPERAND)
+                    place = (place + 1) & mask;
+                operandIds[place] = i;
+            }
+        }
+        return id;
+    }
+
+    /**
+     * mix bits of operand, so operands with different values and the same kind get different cells
+     * @param operand - packed operand
+     * @return - hash
+     */
+    private static int hash(long operand){
+        return (int) ((operand * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+
+    /**
+     * find id of name, or add name to table
+     * @param name - name
+     * @return - id of name
+     */
+    private int nameId(String name){
+        Integer id = nameIds.get(name);
+        if (id == null){
+            id = names.size();
+            names.add(name);
+            nameIds.put(name, id);
+        }
+        return id;
+    }
+
+    /**
+     * getter for name of LABEL or SYMBOL operand
+     * @param operand - operand
+     * @return - name
+     */
+    public String getName(long operand){
+        String name = names.get(Operand.getNameId(operand));
+        if (Operand.getKind(operand) == Operand.LABEL && Operand.getValue(operand) != NodeArena.NONE)
+            return name + Operand.getValue(operand);
+        return name;
+    }
+
+    /**
+     * getter for count of instructions
+     * @return - count of instructions
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * getter for opcode
+     * @param id - index of instruction
+     * @return - opcode
+     */
+    public Opcode getOpcode(int id) {
+        return OPCODES[opcodes[id]];
+    }
+
+    /**
+     * getter for first (destination) operand
+     * @param id - index of instruction
+     * @return - operand, Operand.NONE if it is absent
+     */
+    public long getFirst(int id) {
+        return operands[firsts[id]];
+    }
+
+    /**
+     * getter for second (source) operand
+     * @param id - index of instruction
+     * @return - operand, Operand.NONE if it is absent
+     */
+    public long getSecond(int id) {
+        return operands[seconds[id]];
+    }
+
+    /**
+     * getter for comment
+     * @param id - index of instruction
+     * @return - comment, null if it is absent
+     */
+    public String getComment(int id) {
+        return comments[id] == NO_COMMENT ? null : names.get(comments[id]);
+    }
+
+    /**
+     * getter for id of comment, used for moving comment to other instruction
+     * @param id - index of instruction
+     * @return - id of comment, NO_COMMENT if it is absent
+     */
+    int getCommentId(int id) {
+        return comments[id];
+    }
+
+    /**
+     * print instructions in MASM syntax, one instruction in line,
+     * instruction with comment starts new group of lines, so it is divided by empty line
+     * text is made in buffer and given to output by big pieces
+     * @param start - index of first instruction
+     * @param end - index after last instruction
+     * @param out - output
+     * @throws IOException - writing error
+     */
+    public void print(int start, int end, Appendable out) throws IOException {
+        StringBuilder text = new StringBuilder(2 * PIECE);
+        /* text of every different operand is made once */
+        String[] operandTexts = new String[operandCount];
+        for (int i = start; i < end; i++) {
+            if (comments[i] != NO_COMMENT)
+                text.append('\n');
+
+            switch (getOpcode(i)){
+                case LABEL:
+                    text.append(operandText(firsts[i], operandTexts)).append(':');
+                    break;
+                case PROC:
+                    text.append(getName(getFirst(i))).append(" PROC");
+                    break;
+                case ENDP:
+                    text.append(getName(getFirst(i))).append(" ENDP\n");
+                    break;
+                default:
+                    text.append(getOpcode(i).getMnemonic());
+                    if (firsts[i] != NO_OPERAND)
+                        text.append(' ').append(operandText(firsts[i], operandTexts));
+                    if (seconds[i] != NO_OPERAND)
+                        text.append(", ").append(operandText(seconds[i], operandTexts));
+            }
+
+            if (comments[i] != NO_COMMENT)
+                text.append("\t; ").append(names.get(comments[i]));
+            text.append('\n');
+
+            if (text.length() >= PIECE){
+                out.append(text);
+                text.setLength(0);
+            }
+        }
+        out.append(text);
+    }
+
+    /**
+     * find text of operand, text is made at first use
+     * @param id - id of operand
+     * @param operandTexts - texts of operands by id, null if text is not made yet
+     * @return - text of operand in MASM syntax
+     */
+    private String operandText(int id, String[] operandTexts) {
+        if (operandTexts[id] == null){
+            StringBuilder text = new StringBuilder();
+            printOperand(operands[id], text);
+            operandTexts[id] = text.toString();
+        }
+        return operandTexts[id];
+    }
+
+    /**
+     * print operand in MASM syntax
+     * @param operand - operand
+     * @param text - text for appending
+     */
+    private void printOperand(long operand, StringBuilder text) {
+        switch (Operand.getKind(operand)){
+            case Operand.REGISTER:
+                text.append(Operand.getRegister(operand).getRegisterName());
+                break;
+            case Operand.IMMEDIATE:
+                text.append(Operand.getValue(operand));
+                break;
+            case Operand.MEMORY: {
+                int displacement = Operand.getValue(operand);
+                text.append('[').append(Operand.getRegister(operand).getRegisterName());
+                if (displacement < 0)
+                    text.append('-').append(-(long) displacement);
+                else if (displacement > 0)
+                    text.append('+').append(displacement);
+                text.append(']');
+                break;
+            }
+            case Operand.LABEL:
+                text.append(names.get(Operand.getNameId(operand)));
+                if (Operand.getValue(operand) != NodeArena.NONE)
+                    text.append(Operand.getValue(operand));
+                break;
+            default:
+                text.append(getName(operand));
+        }
+    }
+}
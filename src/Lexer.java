@@ -1,20 +1,59 @@
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class Lexer {
-    /* start text, which will be parsed */
-    private String parseText;
+    /* flags of character classes */
+    private static final int DIGIT = 1, ALPHA = 2, WORD = 4, NUMBER = 8,
+                            HEX = 16, SYMBOL = 32, QUOTE = 64, INDENT = 128, BLANK = 256;
 
-    /* maps with different tokens */
-    private final Map<String, String> keywords;
-    private final Map<String, String> symbols;
-    private final Map<String, String> whitespace;
+    /* table with classes of every ASCII character */
+    private static final short[] CHAR_CLASS = new short[128];
 
-    /* list of future tokens */
-    private final ArrayList<Token> tokens = new ArrayList<>();
+    /* texts with at least this count of characters are lexed by chunks in parallel */
+    private static final int PARALLEL_THRESHOLD = 1 << 20;
+    /* minimal count of characters in one chunk of parallel lexing */
+    private static final int MIN_CHUNK = 1 << 16;
+
+    static {
+        for (char ch = '0'; ch <= '9'; ch++) {
+            CHAR_CLASS[ch] |= DIGIT | WORD | NUMBER | HEX;
+        }
+        for (char ch = 'a'; ch <= 'z'; ch++) {
+            CHAR_CLASS[ch] |= ALPHA | WORD;
+            CHAR_CLASS[Character.toUpperCase(ch)] |= ALPHA | WORD;
+        }
+        for (char ch = 'a'; ch <= 'f'; ch++) {
+            CHAR_CLASS[ch] |= HEX;
+            CHAR_CLASS[Character.toUpperCase(ch)] |= HEX;
+        }
+        CHAR_CLASS['_'] |= WORD;
+        CHAR_CLASS['.'] |= NUMBER;
+
+        /* first characters of symbol tokens */
+        for (char ch : "_.,=;'\"()+-*/%?:<>![]{}&|^~".toCharArray()) {
+            CHAR_CLASS[ch] |= SYMBOL;
+        }
+        CHAR_CLASS['\''] |= QUOTE;
+        CHAR_CLASS['"'] |= QUOTE;
+
+        /* whitespace tokens and '\\s' characters */
+        CHAR_CLASS[' '] |= INDENT | BLANK;
+        CHAR_CLASS['\t'] |= INDENT | BLANK;
+        for (char ch : "\n\u000B\f\r".toCharArray()) {
+            CHAR_CLASS[ch] |= BLANK;
+        }
+    }
+
+    /* start text, which will be parsed, scanned directly without copying to lines */
+    private CharSequence parseText;
+
+    /* buffer of future tokens */
+    private TokenBuffer tokens;
+    /* lexical errors */
+    private Diagnostics diagnostics;
+    /* max count of errors, lexing is stopped after it */
+    private final int maxErrors;
 
     /**
      * create lexer object
@@ -22,30 +61,25 @@ public class Lexer {
      * @param isFile - is nameFile represent file name or string with code
      */
     public Lexer(String nameFile, boolean isFile){
-        /* initialise maps */
-        keywords = new HashMap<>();
-        symbols = new HashMap<>();
-        whitespace = new HashMap<>();
-
-        /* StringBuilder for reading data from file */
-        StringBuilder parseBuilder = new StringBuilder();
-
-        /* fill maps by common tokens */
-        fillMaps();
+        this(nameFile, isFile, Diagnostics.DEFAULT_LIMIT);
+    }
 
-        /* add root token */
-        tokens.add(new Token("null", "START", -1, -1));
+    /**
+     * create lexer object
+     * @param nameFile - get python code from this file
+     * @param isFile - is nameFile represent file name or string with code
+     * @param maxErrors - max count of errors, lexing is stopped after it
+     */
+    public Lexer(String nameFile, boolean isFile, int maxErrors){
+        this.maxErrors = maxErrors;
 
         if(isFile) {
             /* read code from file */
-            try (FileReader reader = new FileReader(nameFile)) {
-                int symb;
-                while ((symb = reader.read()) != -1) {
-                    parseBuilder.append((char) symb);
-                }
-                this.parseText = parseBuilder.toString();
+            try {
+                this.parseText = SourceFile.read(nameFile);
             } catch (IOException e) {
                 System.out.println(e.getMessage());
+                this.parseText = "";
             }
         }
         else{
@@ -53,274 +87,312 @@ public class Lexer {
             this.parseText = nameFile;
         }
 
+        /*
+        * .py files have 'null' fragment before code
+        * remove this part
+        */
+        if (parseText.length() >= 4 && parseText.subSequence(0, 4).toString().equals("null")){
+            parseText = parseText.subSequence(4, parseText.length());
+        }
+
         /* start lexer parsing */
-        makeTokens();
+        makeTokens(0, -1);
     }
 
     /**
-     * fill maps with common tokens
+     * create lexer object for part of source, which starts from some row
+     * used for lexing again only changed lines
+     * @param text - python code lines
+     * @param firstRow - row of first line in whole source
+     * @param totalLines - count of lines in whole source
      */
-    private void fillMaps(){
-        /* fill word tokens */
-        keywords.put("and", "AND");
-        keywords.put("as", "AS");
-        keywords.put("assert", "ASSERT");
-        keywords.put("break", "BREAK");
-        keywords.put("class", "CLASS");
-        keywords.put("continue", "CONTINUE");
-        keywords.put("def", "DEF");
-        keywords.put("del", "DEL");
-        keywords.put("elif", "ELIF");
-        keywords.put("else", "ELSE");
-        keywords.put("except", "EXCEPT");
-        keywords.put("False", "FALSE");
-        keywords.put("finally", "FINALLY");
-        keywords.put("for", "FOR");
-        keywords.put("from", "FROM");
-        keywords.put("global", "GLOBAL");
-        keywords.put("if", "IF");
-        keywords.put("import", "IMPORT");
-        keywords.put("in", "IN");
-        keywords.put("is", "IS");
-        keywords.put("lambda", "LAMBDA");
-        keywords.put("None", "NONE");
-        keywords.put("nonlocal", "NONLOCAL");
-        keywords.put("not", "NOT");
-        keywords.put("or", "OR");
-        keywords.put("pass", "PASS");
-        keywords.put("raise", "RAISE");
-        keywords.put("range", "RANGE"); // range function, need to be function
-        keywords.put("return", "RETURN");
-        keywords.put("True", "TRUE");
-        keywords.put("try", "TRY");
-        keywords.put("while", "WHILE");
-        keywords.put("with", "WITH");
-        keywords.put("yield", "YIELD");
-
-        /* fill symbol tokens */
-        symbols.put("_", "DOWN_LINE");
-        symbols.put(".", "DOT");
-        symbols.put(",", "COMMA");
-        symbols.put("=", "ASSIGN");
-        symbols.put(";", "SEMICOLON");
-        symbols.put("'", "QUOTE");
-        symbols.put("\"", "DBQUOTE");
-        symbols.put("(", "LBR");
-        symbols.put(")", "RBR");
-        symbols.put("+", "ADD");
-        symbols.put("-", "SUB");
-        symbols.put("*", "MUL");
-        symbols.put("**", "POW");
-        symbols.put("/", "DIV");
-        symbols.put("//", "INT_DIV");
-        symbols.put("%", "PERCENT");
-        symbols.put("?", "QUESTION");
-        symbols.put(":", "COLON");
-        symbols.put("<", "LT");
-        symbols.put(">", "GT");
-        symbols.put("!", "NOT");
-        symbols.put("<=", "LE");
-        symbols.put(">=", "GE");
-        symbols.put("==", "EQ");
-        symbols.put("!=", "NE");
-        symbols.put("[", "LSBR");
-        symbols.put("]", "RSBR");
-        symbols.put("{", "LBRC");
-        symbols.put("}", "RBRC");
-        symbols.put("<<", "L_SHIFT");
-        symbols.put(">>", "R_SHIFT");
-        symbols.put("&", "BIT_AND");
-        symbols.put("|", "BIT_OR");
-        symbols.put("^", "BIT_XOR");
-        symbols.put("~", "BIT_NOT");
-        symbols.put("+=", "ADD_ASSIGN");
-        symbols.put("-=", "SUB_ASSIGN");
-        symbols.put("/=", "DIV_ASSIGN");
-        symbols.put("*=", "MUL_ASSIGN");
-        symbols.put("%=", "PERCENT_ASSIGN");
-        symbols.put("<<=", "L_SHIFT_ASSIGN");
-        symbols.put(">>=", "R_SHIFT_ASSIGN");
-        symbols.put("&=", "BIT_AND_ASSIGN");
-        symbols.put("|=", "BIT_OR_ASSIGN");
-        symbols.put("^=", "BIT_XOR_ASSIGN");
-
-        /* fill delimiter tokens */
-        whitespace.put(" ", "SPACE");
-        whitespace.put("\t", "TAB");
-        whitespace.put("\n", "NEW_LINE");
+    public Lexer(CharSequence text, int firstRow, int totalLines){
+        this.maxErrors = Diagnostics.DEFAULT_LIMIT;
+        this.parseText = text;
+
+        makeTokens(firstRow, totalLines);
     }
 
     /**
      * start lexer analysis
+     * big texts are divided into chunks of whole lines, which are lexed in parallel
+     * and concatenated in order of lines, so tokens are the same as after serial lexing
+     * @param firstRow - row of first line of parse text
+     * @param totalLines - count of lines in whole source, or -1 if parse text is whole source
      */
-    private void makeTokens(){
-        /*
-        * .py files have 'null' fragment before code
-        * remove this part
-        */
-        if (parseText.startsWith("null")){
-            parseText = parseText.substring(4);
+    private void makeTokens(int firstRow, int totalLines){
+        /* every '\n' or '\r' ends a line, trailing empty lines are not counted */
+        int textEnd = parseText.length();
+        while (textEnd > 0 && isLineEnd(parseText.charAt(textEnd - 1))){
+            textEnd--;
+        }
+
+        /* chunks are cut after line end, when chunk has enough characters */
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        int chunkSize = textEnd >= PARALLEL_THRESHOLD && parallelism > 1 ?
+                Math.max(textEnd / (parallelism * 4), MIN_CHUNK) : Integer.MAX_VALUE;
+        int chunkCount = chunkSize == Integer.MAX_VALUE ? 1 : textEnd / chunkSize + 1;
+        int[] chunkStarts = new int[chunkCount + 1],
+                chunkRows = new int[chunkCount + 1];
+        int chunk = 1;
+
+        int lineCount = 0;
+        for (int i = 0; i < textEnd; i++) {
+            if (isLineEnd(parseText.charAt(i))) {
+                lineCount++;
+                if (i + 1 - chunkStarts[chunk - 1] >= chunkSize){
+                    chunkStarts[chunk] = i + 1;
+                    chunkRows[chunk] = lineCount;
+                    chunk++;
+                }
+            }
+        }
+        if (textEnd > 0 || parseText.length() == 0)
+            lineCount++;
+        if (totalLines < 0)
+            totalLines = lineCount;
+        chunkStarts[chunk] = textEnd;
+        chunkRows[chunk] = lineCount;
+
+        if (chunk == 1){
+            /* tokens point to parse text, one token is expected for every few characters */
+            tokens = new TokenBuffer(parseText, parseText.length() / 4);
+
+            /* add root token */
+            tokens.add(TokenKind.START, 0, 0, -1, -1);
+            diagnostics = new Diagnostics(parseText, maxErrors);
+            parseLines(tokens, diagnostics, 0, 0, lineCount, textEnd, firstRow, totalLines);
+        }
+        else {
+            TokenBuffer[] parts = new TokenBuffer[chunk];
+            Diagnostics[] partErrors = new Diagnostics[chunk];
+            ForkJoinPool.commonPool().invoke(new ChunkAction(parts, partErrors, chunkStarts, chunkRows,
+                    0, chunk, textEnd, firstRow, totalLines));
+
+            int size = 1;
+            for (TokenBuffer part : parts) {
+                size += part.size();
+            }
+            tokens = new TokenBuffer(parseText, size);
+            tokens.add(TokenKind.START, 0, 0, -1, -1);
+            diagnostics = new Diagnostics(parseText, maxErrors);
+            for (int i = 0; i < chunk && !diagnostics.isFull(); i++) {
+                diagnostics.append(partErrors[i], tokens.size());
+                tokens.append(parts[i]);
+            }
+
+            /* serial lexing is stopped after token with last allowed error, remove next tokens */
+            if (diagnostics.isFull())
+                tokens.truncate(diagnostics.getTokenId(diagnostics.size() - 1) + 1);
+        }
+    }
+
+    /**
+     * Class describe task of parallel lexing for range of chunks
+     * range is divided in halves, until it has one chunk
+     */
+    private class ChunkAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /* buffers of tokens and errors for every chunk */
+        private final TokenBuffer[] parts;
+        private final Diagnostics[] partErrors;
+        /* index of first character and row of first line for every chunk */
+        private final int[] chunkStarts, chunkRows;
+        /* range of chunks [from, to) */
+        private final int from, to;
+        private final int textEnd, firstRow, totalLines;
+
+        private ChunkAction(TokenBuffer[] parts, Diagnostics[] partErrors, int[] chunkStarts, int[] chunkRows,
+                            int from, int to, int textEnd, int firstRow, int totalLines){
+            this.parts = parts;
+            this.partErrors = partErrors;
+            this.chunkStarts = chunkStarts;
+            this.chunkRows = chunkRows;
+            this.from = from;
+            this.to = to;
+            this.textEnd = textEnd;
+            this.firstRow = firstRow;
+            this.totalLines = totalLines;
         }
 
-        /* split python code into array with code lines */
-        String[] parseLines = parseText.split("[\n\r]");
+        @Override
+        protected void compute() {
+            if (to - from == 1){
+                TokenBuffer part = new TokenBuffer(parseText, (chunkStarts[to] - chunkStarts[from]) / 4);
+                Diagnostics errors = new Diagnostics(parseText, maxErrors);
+                parseLines(part, errors, chunkStarts[from], chunkRows[from], chunkRows[to],
+                        textEnd, firstRow, totalLines);
+                parts[from] = part;
+                partErrors[from] = errors;
+                return;
+            }
 
+            int middle = (from + to) >>> 1;
+            invokeAll(new ChunkAction(parts, partErrors, chunkStarts, chunkRows,
+                            from, middle, textEnd, firstRow, totalLines),
+                    new ChunkAction(parts, partErrors, chunkStarts, chunkRows,
+                            middle, to, textEnd, firstRow, totalLines));
+        }
+    }
+
+    /**
+     * parse range of lines and add tokens to buffer, it is stopped when limit of errors is reached
+     * @param out - buffer for tokens
+     * @param errors - list for lexical errors
+     * @param lineStart - index of first character of first line
+     * @param fromRow - row of first line in parse text
+     * @param toRow - row after last line in parse text
+     * @param textEnd - index after last character, which is not ending of line
+     * @param firstRow - row of first line of parse text
+     * @param totalLines - count of lines in whole source
+     */
+    private void parseLines(TokenBuffer out, Diagnostics errors, int lineStart, int fromRow, int toRow,
+                            int textEnd, int firstRow, int totalLines){
         /* go by every line and parse it */
-        for (int i=0; i < parseLines.length; i++) {
+        for (int row = fromRow; row < toRow && !errors.isFull(); row++) {
+            int lineEnd = lineStart;
+            while (lineEnd < textEnd && !isLineEnd(parseText.charAt(lineEnd))){
+                lineEnd++;
+            }
+
             /* parse and if result is true, add token(\n) after */
-            if (parseLine(parseLines[i], i)){
-                tokens.add(new Token("\n", whitespace.get("\n"), i, parseLines.length));
+            if (parseLine(out, errors, parseText, lineStart, lineEnd, firstRow + row)){
+                out.add(TokenTable.whitespace('\n'), lineEnd, 0, firstRow + row, totalLines);
             }
+            lineStart = lineEnd + 1;
         }
     }
 
     /**
      * parse line of tokens
-     * @param line - line for parsing
+     * walks the text by index, class of every character is taken from CHAR_CLASS table
+     * @param tokens - buffer for tokens of line
+     * @param errors - list for lexical errors
+     * @param text - text with line for parsing
+     * @param start - index of first line character in text
+     * @param end - index after last line character in text
      * @param row - number of row for exception message
      * @return - result of line parsing
      */
-    private boolean parseLine(String line, int row){
+    private boolean parseLine(TokenBuffer tokens, Diagnostics errors, CharSequence text, int start, int end, int row){
         /* end if started comment part */
-        String noCommentLine = line.split("#")[0];
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == '#'){
+                end = i;
+                break;
+            }
+        }
 
         /* end if line only with whitespaces and/or delimiters */
-        if (noCommentLine.matches("^\\s*$")){
+        int firstSymbol = start;
+        while (firstSymbol < end && hasClass(text.charAt(firstSymbol), BLANK)){
+            firstSymbol++;
+        }
+        if (firstSymbol == end){
             return false;
         }
 
-        /* create array of symbols */
-        String[] symbLine = noCommentLine.split("");
+        /* all spaces and tabs in start of line are one indent token */
+        int i = start;
+        while (i < end && hasClass(text.charAt(i), INDENT)){
+            i++;
+        }
+        if (i > start){
+            tokens.add(TokenKind.INDENT, start, i - start, row, 0);
+        }
 
         /* flag for adding whitespace tokens only in star of line */
         boolean spaceTabPart = true;
 
         /* go by every symbol and choosing correct token */
-        for (int i=0; i < symbLine.length; i++) {
-            /* symbol tokens with tree characters */
-            if (i+2 < symbLine.length && symbols.containsKey(symbLine[i] +
-                                                                symbLine[i+1] +
-                                                                symbLine[i+2])){
-                tokens.add(new Token(symbLine[i] + symbLine[i+1] + symbLine[i+2],
-                        symbols.get(symbLine[i] + symbLine[i+1] + symbLine[i+2]), row, i));
-                i+=2;
-            }
-            else {
-                /* symbol tokens with two characters */
-                if (i + 1 < symbLine.length && symbols.containsKey(symbLine[i] + symbLine[i + 1])) {
-                    tokens.add(new Token(symbLine[i] + symbLine[i + 1],
-                            symbols.get(symbLine[i] + symbLine[i + 1]), row, i));
-                    i++;
-                } else {
-                    /* one character symbol tokens and string var */
-                    if (symbols.containsKey(symbLine[i])) {
-                        /* string var choose if start with <'> or <"> */
-                        if (i + 1 != symbLine.length && (symbLine[i].matches("[\"']"))) {
-                            StringBuilder stringToken = new StringBuilder(symbLine[i]);
-                            short j = 1;
-                            /* add characters while line not ended or symbol is <'> or <"> */
-                            while (i + j < symbLine.length) {
-                                stringToken.append(symbLine[i + j]);
-                                j++;
-                                if (symbLine[i + j - 1].equals(symbLine[i])) {
-                                    break;
-                                }
-                            }
-
-                            tokens.add(new Token(stringToken.toString(), "STRING", row, i));
-
-                            /* jump to end of string */
-                            i += stringToken.length() - 1;
-                        } else {
-                            /* add symbol token */
-                            tokens.add(new Token(symbLine[i], symbols.get(symbLine[i]), row, i));
-                        }
-                    } else {
-                        if (whitespace.containsKey(symbLine[i])) {
-                            /* add whitespace token if it on start of line */
-                            if (spaceTabPart) {
-                                tokens.add(new Token(symbLine[i], whitespace.get(symbLine[i]), row, i));
-                            }
-                        } else {
-                            /* add bin/oct/hex number token if first is <0> and second is <x|o|b> */
-                            if (i + 1 != symbLine.length && symbLine[i].equals("0") &&
-                                    symbLine[i + 1].matches("[xob]")) {
-                                /* using the same algorithm as string var */
-                                StringBuilder num = new StringBuilder("0" + symbLine[i + 1]);
-                                short j = 2;
-                                while ((i + j < symbLine.length) &&
-                                        isOthNum(symbLine[i + j], symbLine[i + 1]) && j < 8) {
-                                    num.append(symbLine[i + j]);
-                                    j++;
-                                }
-
-                                switch (symbLine[i + 1]) {
-                                    case "x":
-                                        tokens.add(new Token(num.toString(), "HEXNUM", row, i));
-                                        break;
-                                    case "o":
-                                        tokens.add(new Token(num.toString(), "OCTNUM", row, i));
-                                        break;
-                                    case "b":
-                                        tokens.add(new Token(num.toString(), "BINNUM", row, i));
-                                        break;
-                                }
-
-                                i += num.length() - 1;
-                            } else {
-                                /* add float or int number tokens */
-                                if (symbLine[i].matches("\\d")) {
-                                    /* using the same algorithm as string var */
-                                    StringBuilder num = new StringBuilder();
-                                    /* float flag, true if found <.> */
-                                    boolean isFloat = false;
-                                    short j = 0;
-                                    while (i + j < symbLine.length &&
-                                            symbLine[i + j].matches("[\\d.]")) {
-                                        if (symbLine[i + j].equals(".")) {
-                                            isFloat = true;
-                                        }
-                                        num.append(symbLine[i + j]);
-                                        j++;
-                                    }
-
-                                    if (isFloat) {
-                                        tokens.add(new Token(num.toString(), "FLOAT", row, i));
-                                    } else {
-                                        tokens.add(new Token(num.toString(), "INT", row, i));
-                                    }
-                                    i += num.length() - 1;
-                                } else {
-                                    /* add word tokens */
-                                    if (symbLine[i].matches("[a-zA-Z]")) {
-                                        /* using the same algorithm as string var */
-                                        StringBuilder wordToken = new StringBuilder();
-                                        short j = 0;
-                                        while (i + j < symbLine.length &&
-                                                symbLine[i + j].matches("\\w")) {
-                                            wordToken.append(symbLine[i + j]);
-                                            j++;
-                                        }
-
-                                        tokens.add(new Token(wordToken.toString(),
-                                                keywords.getOrDefault(wordToken.toString(), "WORD"), row, i));
-                                        spaceTabPart = false;
-                                        i += wordToken.length() - 1;
-                                    } else {
-                                        /* if token not chosen before it, add undefined token */
-                                        tokens.add(new Token(symbLine[i], "UNDEF", row, i));
-                                        try {
-                                            throw new CompilerException("Undefined symbol", tokens.get(tokens.size() - 1));
-                                        } catch (CompilerException e) {
-                                            System.err.println(e.getMessage());
-                                            System.err.println((int) symbLine[i].toCharArray()[0]);
-                                        }
-                                    }
-                                }
-                            }
+        while (i < end) {
+            char symb = text.charAt(i);
+            int column = i - start;
+
+            if (hasClass(symb, SYMBOL)){
+                /* symbol tokens with three, two or one characters, the longest is chosen */
+                int length = TokenTable.symbolLength(text, i, end);
+                TokenKind symbType = TokenTable.symbol(text, i, length);
+
+                /* string var choose if start with <'> or <"> */
+                if (length == 1 && hasClass(symb, QUOTE) && i + 1 != end) {
+                    /* add characters while line not ended or symbol is <'> or <"> */
+                    int j = i + 1;
+                    while (j < end) {
+                        j++;
+                        if (text.charAt(j - 1) == symb) {
+                            break;
                         }
                     }
+
+                    tokens.add(TokenKind.STRING, i, j - i, row, column);
+
+                    /* jump to end of string */
+                    i = j;
+                } else {
+                    /* add symbol token */
+                    tokens.add(symbType, i, length, row, column);
+                    i += length;
+                }
+            } else if (hasClass(symb, INDENT)) {
+                /* add whitespace token if it on start of line */
+                if (spaceTabPart) {
+                    tokens.add(TokenTable.whitespace(symb), i, 1, row, column);
+                }
+                i++;
+            } else if (symb == '0' && i + 1 != end && isNumSystem(text.charAt(i + 1))) {
+                /* add bin/oct/hex number token if first is <0> and second is <x|o|b> */
+                char system = text.charAt(i + 1);
+                int j = 2;
+                while (i + j < end && isOthNum(text.charAt(i + j), system) && j < 8) {
+                    j++;
+                }
+
+                switch (system) {
+                    case 'x':
+                        tokens.add(TokenKind.HEXNUM, i, j, row, column);
+                        break;
+                    case 'o':
+                        tokens.add(TokenKind.OCTNUM, i, j, row, column);
+                        break;
+                    case 'b':
+                        tokens.add(TokenKind.BINNUM, i, j, row, column);
+                        break;
+                }
+
+                i += j;
+            } else if (hasClass(symb, DIGIT)) {
+                /* add float or int number tokens, float flag is true if found <.> */
+                boolean isFloat = false;
+                int j = i;
+                while (j < end && hasClass(text.charAt(j), NUMBER)) {
+                    if (text.charAt(j) == '.') {
+                        isFloat = true;
+                    }
+                    j++;
                 }
+
+                tokens.add(isFloat ? TokenKind.FLOAT : TokenKind.INT, i, j - i, row, column);
+                i = j;
+            } else if (hasClass(symb, ALPHA)) {
+                /* add word tokens */
+                int j = i;
+                while (j < end && hasClass(text.charAt(j), WORD)) {
+                    j++;
+                }
+
+                TokenKind keyword = TokenTable.keyword(text, i, j);
+                tokens.add(keyword != null ? keyword : TokenKind.WORD, i, j - i, row, column);
+                spaceTabPart = false;
+                i = j;
+            } else {
+                /* if token not chosen before it, add undefined token and error */
+                tokens.add(TokenKind.UNDEF, i, 1, row, column);
+                errors.add(Diagnostics.Kind.UNDEFINED_SYMBOL, tokens.size() - 1, i, row, column);
+                if (errors.isFull())
+                    return false;
+                i++;
             }
         }
         return true;
@@ -332,28 +404,64 @@ public class Lexer {
      * @param system - x(HEX), o(OCT), b(BIN)
      * @return is char represent element of this system
      */
-    private boolean isOthNum(String s, String system){
+    private static boolean isOthNum(char s, char system){
         switch (system){
-            case "x": return s.matches("[\\da-fA-F]");
-            case "o": return s.matches("[0-7]");
-            case "b": return s.equals("1") || s.equals("0");
+            case 'x': return hasClass(s, HEX);
+            case 'o': return s >= '0' && s <= '7';
+            case 'b': return s == '1' || s == '0';
             default: return false;
         }
     }
 
+    /**
+     * test if character is prefix of other number system
+     * @param s - character after <0>
+     * @return - is char one of <x|o|b>
+     */
+    private static boolean isNumSystem(char s){
+        return s == 'x' || s == 'o' || s == 'b';
+    }
+
+    /**
+     * test if character ends a line
+     * @param s - character
+     * @return - is char <\n> or <\r>
+     */
+    private static boolean isLineEnd(char s){
+        return s == '\n' || s == '\r';
+    }
+
+    /**
+     * test if character belongs to class from CHAR_CLASS table
+     * @param s - character
+     * @param charClass - class flag
+     * @return - is char in this class, non-ASCII chars are in no class
+     */
+    private static boolean hasClass(char s, int charClass){
+        return s < CHAR_CLASS.length && (CHAR_CLASS[s] & charClass) != 0;
+    }
+
     /**
      * getter for read text form file
      * @return - text
      */
     public String getParseText() {
-        return parseText;
+        return parseText.toString();
+    }
+
+    /**
+     * getter for lexical errors
+     * @return - list of errors
+     */
+    public Diagnostics getDiagnostics() {
+        return diagnostics;
     }
 
     /**
      * getter for token list
-     * @return - list of parsed tokens
+     * @return - buffer of parsed tokens
      */
-    public ArrayList<Token> getTokens() {
+    public TokenBuffer getTokens() {
         return tokens;
     }
 
@@ -361,7 +469,8 @@ public class Lexer {
      * print table of tokens(lexems)
      */
     public void printTokens() {
-        for (Token token: tokens) {
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
             System.out.printf("[ %10s <==> %-10s ]%n", token.getRawValue(), token.getType());
         }
     }
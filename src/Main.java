@@ -5,7 +5,6 @@ import javafx.scene.Scene;
 import javafx.scene.control.TextArea;
 import javafx.stage.Stage;
 
-import java.io.FileReader;
 import java.io.IOException;
 
 /**
@@ -37,16 +36,13 @@ public class Main extends Application {
         textFilename.setText(String.format("%s\\%s.py", System.getProperty("user.dir"), myName));
 
         /* open default file and show it in first window */
-        StringBuilder code = new StringBuilder();
-        try (FileReader reader = new FileReader(textFilename.getText())) {
-            int symb;
-            while ((symb = reader.read()) != -1) {
-                code.append((char)symb);
-            }
+        String code = "";
+        try {
+            code = SourceFile.readString(textFilename.getText());
         } catch (IOException e) {
             System.err.println(e.getMessage());
         }
-        textInput.setText(code.toString());
+        textInput.setText(code);
 
         stage.show();
     }
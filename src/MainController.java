@@ -1,5 +1,6 @@
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
 import javafx.scene.control.TextArea;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyCodeCombination;
@@ -20,12 +21,24 @@ public class MainController {
     @FXML
     private TextArea textInput, textFileName, textConsole, textASM;
 
+    /* result of syntax check, it is separate from console, so output of build is not replaced */
+    @FXML
+    private Label labelSyntax;
+
+    /* front end, which checks only changed part of source after every edit */
+    private IncrementalCompiler incrementalCompiler = new IncrementalCompiler();
+    /* source, which was checked last, keys without edit don't check it again */
+    private String checkedText;
+    /* AST of built sources, not changed source is built again without lexing and parsing */
+    private final AstCache astCache = new AstCache("ast-cache", AstCache.DEFAULT_SIZE);
+
     /**
      * event for key bindings
      * F9               - Build button
      * F10              - Run button
      * Ctrl+S           - Save button
      * Ctrl+Shift+S     - Save as... button
+     * other keys       - check syntax of source, if it is changed
      * @param keyEvent  - event with keys
      */
     @FXML
@@ -53,6 +66,7 @@ public class MainController {
                     saveAs();
                     break;
                 }
+                checkSyntax();
             }
         }
     }
@@ -75,16 +89,7 @@ public class MainController {
         if (selectedFile != null) {
             textFileName.setText(selectedFile.getAbsolutePath());
 
-            StringBuilder code = new StringBuilder();
-            try (FileReader reader = new FileReader(selectedFile)) {
-                int symb;
-                while ((symb = reader.read()) != -1) {
-                    code.append((char)symb);
-                }
-            } catch (IOException e) {
-                System.err.println(e.getMessage());
-            }
-            textInput.setText(code.toString());
+            textInput.setText(readFromFile(selectedFile.getAbsolutePath()));
         }
     }
 
@@ -142,7 +147,7 @@ public class MainController {
         }
 
         Compiler compiler = new Compiler(String.format("%s.py", myName.toString()),
-                                        String.format("%s.asm", myName.toString()));
+                                        String.format("%s.asm", myName.toString()), astCache);
         ByteArrayOutputStream consoleOutput = new ByteArrayOutputStream();
         PrintStream ps = new PrintStream(consoleOutput);
 
@@ -159,6 +164,33 @@ public class MainController {
         return compilationResult;
     }
 
+    /**
+     * lex and parse changed part of source and print result to interface syntax label
+     */
+    private void checkSyntax(){
+        String text = textInput.getText();
+        if (text.equals(checkedText))
+            return;
+        checkedText = text;
+
+        long start = System.nanoTime();
+        boolean result;
+        try {
+            result = incrementalCompiler.update(text);
+        } catch (RuntimeException e) {
+            /* partly typed source can break front end, its state is not finished, so it is created again */
+            incrementalCompiler = new IncrementalCompiler();
+            labelSyntax.setText(String.valueOf(e));
+            return;
+        }
+        double time = (System.nanoTime() - start) / 1e6;
+
+        if (result)
+            labelSyntax.setText(String.format("No syntax errors, checked in %.3f ms", time));
+        else
+            labelSyntax.setText(incrementalCompiler.getError().getMessage().replace("\n\t", " "));
+    }
+
     /**
      * compile and run built .asm file in console using masm32
      */
@@ -217,15 +249,11 @@ public class MainController {
      * @return - xontent of file in type String
      */
     private String readFromFile(String nameFile) {
-        StringBuilder result = new StringBuilder();
-        try (FileReader reader = new FileReader(nameFile)) {
-            int symb;
-            while ((symb = reader.read()) != -1) {
-                result.append((char) symb);
-            }
+        try {
+            return SourceFile.readString(nameFile);
         } catch (IOException e) {
             System.err.println(e.getMessage());
+            return "";
         }
-        return result.toString();
     }
 }
@@ -0,0 +1,581 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Class describe compact storage of AST nodes
+ * every node is kept in parallel arrays as kind, value, place in source text and links to
+ * parent, first child, last child and next sibling, so node is only its id and leaves have no lists
+ * values of nodes are shared with token buffer, so program keeps every name and number once
+ * all ASTs of one program are kept in one arena, so id of node is unique in program
+ */
+public class NodeArena {
+    /* id of absent node */
+    public static final int NONE = -1;
+    /* all kinds, used for getting kind by stored ordinal */
+    private static final TokenKind[] KINDS = TokenKind.values();
+
+    /* ordinal of node kind */
+    private byte[] kinds;
+    /* value of node token */
+    private String[] values;
+    /* row in high and column in low part */
+    private long[] positions;
+    /* links to other nodes, NONE if there is no such node */
+    private int[] parents;
+    private int[] firstChildren;
+    private int[] lastChildren;
+    private int[] nextSiblings;
+    /* count of stored nodes */
+    private int size;
+
+    /**
+     * create empty arena
+     * @param capacity - expected count of nodes
+     */
+    public NodeArena(int capacity){
+        capacity = Math.max(capacity, 16);
+        this.kinds = new byte[capacity];
+        this.values = new String[capacity];
+        this.positions = new long[capacity];
+        this.parents = new int[capacity];
+        this.firstChildren = new int[capacity];
+        this.lastChildren = new int[capacity];
+        this.nextSiblings = new int[capacity];
+        this.size = 0;
+    }
+
+    /**
+     * create node without parent and children
+     * @param value - token value
+     * @param kind - token kind
+     * @param row - row of token in input file
+     * @param column - column of token in input file
+     * @return - id of node
+     */
+    public int add(String value, TokenKind kind, int row, int column){
+        if (size == kinds.length){
+            int capacity = size + (size >> 1);
+            kinds = Arrays.copyOf(kinds, capacity);
+            values = Arrays.copyOf(values, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            firstChildren = Arrays.copyOf(firstChildren, capacity);
+            lastChildren = Arrays.copyOf(lastChildren, capacity);
+            nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+        }
+
+        kinds[size] = (byte) kind.ordinal();
+        values[size] = value;
+        positions[size] = ((long) row << 32) | (column & 0xFFFFFFFFL);
+        parents[size] = NONE;
+        firstChildren[size] = NONE;
+        lastChildren[size] = NONE;
+        nextSiblings[size] = NONE;
+        return size++;
+    }
+
+    /**
+     * create node on some token
+     * @param token - base token for node
+     * @return - id of node
+     */
+    public int add(Token token){
+        return add(token.getValue(), token.getKind(), token.getRow(), token.getColumn());
+    }
+
+    /**
+     * create node with the same token as other node, without parent and children
+     * @param id - id of copied node
+     * @return - id of new node
+     */
+    public int duplicate(int id){
+        return add(values[id], getKind(id), getRow(id), getColumn(id));
+    }
+
+    /**
+     * copy node with all children tree from other arena
+     * parent links are copied only if they are set in other arena
+     * @param other - arena of copied node
+     * @param id - id of copied node
+     * @return - id of new node
+     */
+    public int copy(NodeArena other, int id){
+        int result = add(other.values[id], other.getKind(id), other.getRow(id), other.getColumn(id));
+
+        /* pairs of node in other arena and its copy, whose children are not copied */
+        ArrayDeque<int[]> nodes = new ArrayDeque<>();
+        nodes.push(new int[]{id, result});
+
+        while (!nodes.isEmpty()){
+            int[] pair = nodes.pop();
+            for (int child = other.firstChildren[pair[0]]; child != NONE; child = other.nextSiblings[child]) {
+                int copied = add(other.values[child], other.getKind(child), other.getRow(child), other.getColumn(child));
+                appendChild(pair[1], copied);
+                if (other.parents[child] == pair[0])
+                    parents[copied] = pair[1];
+                nodes.push(new int[]{child, copied});
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * add range of nodes of other arena to the end, links between them are kept
+     * nodes of range must have links only to nodes of range
+     * @param other - arena of added nodes
+     * @param from - first added node
+     * @param to - node after last added node
+     * @return - offset of added nodes, node id of other arena plus offset is id in this arena
+     */
+    public int append(NodeArena other, int from, int to){
+        int offset = size - from, count = to - from, newSize = size + count;
+        if (newSize > kinds.length){
+            int capacity = Math.max(newSize, size + (size >> 1));
+            kinds = Arrays.copyOf(kinds, capacity);
+            values = Arrays.copyOf(values, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            firstChildren = Arrays.copyOf(firstChildren, capacity);
+            lastChildren = Arrays.copyOf(lastChildren, capacity);
+            nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+        }
+
+        System.arraycopy(other.kinds, from, kinds, size, count);
+        System.arraycopy(other.values, from, values, size, count);
+        System.arraycopy(other.positions, from, positions, size, count);
+        for (int i = from; i < to; i++) {
+            parents[offset + i] = shift(other.parents[i], offset);
+            firstChildren[offset + i] = shift(other.firstChildren[i], offset);
+            lastChildren[offset + i] = shift(other.lastChildren[i], offset);
+            nextSiblings[offset + i] = shift(other.nextSiblings[i], offset);
+        }
+        size = newSize;
+        return offset;
+    }
+
+    /**
+     * move link to other node by offset
+     * @param link - id of node, or NONE
+     * @param offset - offset of ids
+     * @return - moved link, NONE is not moved
+     */
+    private static int shift(int link, int offset){
+        return link == NONE ? NONE : link + offset;
+    }
+
+    /**
+     * getter for count of nodes
+     * @return - count of nodes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * getter for node kind
+     * @param id - id of node
+     * @return - kind
+     */
+    public TokenKind getKind(int id) {
+        return KINDS[kinds[id] & 0xFF];
+    }
+
+    /**
+     * getter for node value
+     * @param id - id of node
+     * @return - value
+     */
+    public String getValue(int id) {
+        return values[id];
+    }
+
+    /**
+     * getter for node row
+     * @param id - id of node
+     * @return - row
+     */
+    public int getRow(int id) {
+        return (int) (positions[id] >> 32);
+    }
+
+    /**
+     * getter for node column
+     * @param id - id of node
+     * @return - column
+     */
+    public int getColumn(int id) {
+        return (int) positions[id];
+    }
+
+    /**
+     * create token object of node, use it for messages
+     * @param id - id of node
+     * @return - token
+     */
+    public Token getToken(int id) {
+        return new Token(values[id], getKind(id), getRow(id), getColumn(id));
+    }
+
+    /**
+     * getter for parent
+     * @param id - id of node
+     * @return - parent node, or NONE
+     */
+    public int getParent(int id) {
+        return parents[id];
+    }
+
+    /**
+     * setter for parent
+     * @param id - id of node
+     * @param parent - node is need to be set as parent for current node
+     */
+    public void setParent(int id, int parent) {
+        parents[id] = parent;
+    }
+
+    /**
+     * getter for first child
+     * @param id - id of node
+     * @return - first child, or NONE if node has no children
+     */
+    public int getFirstChild(int id) {
+        return firstChildren[id];
+    }
+
+    /**
+     * getter for next child of the same parent
+     * @param id - id of node
+     * @return - next sibling, or NONE if node is the last child
+     */
+    public int getNextSibling(int id) {
+        return nextSiblings[id];
+    }
+
+    /**
+     * getter for one child by id in children list, children are walked from first
+     * @param id - id of node
+     * @param position - id in list of children
+     * @return - child node
+     */
+    public int getChild(int id, int position) {
+        int child = firstChildren[id];
+        for (int i = 0; i < position; i++) {
+            child = nextSiblings[child];
+        }
+        return child;
+    }
+
+    /**
+     * count children of node
+     * @param id - id of node
+     * @return - count of children
+     */
+    public int getChildCount(int id) {
+        int count = 0;
+        for (int child = firstChildren[id]; child != NONE; child = nextSiblings[child]) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * add node to the end of children list, parent of child is not changed
+     * @param id - id of node
+     * @param child - node which will be added
+     */
+    public void appendChild(int id, int child) {
+        if (firstChildren[id] == NONE)
+            firstChildren[id] = child;
+        else
+            nextSiblings[lastChildren[id]] = child;
+        lastChildren[id] = child;
+    }
+
+    /**
+     * use children list of other node as children list of node
+     * list is shared, so node must not get its own children
+     * @param id - id of node
+     * @param other - node, which children are used
+     */
+    public void shareChildren(int id, int other) {
+        firstChildren[id] = firstChildren[other];
+        lastChildren[id] = lastChildren[other];
+    }
+
+    /**
+     * change node to leaf with other value, place in source text is not changed
+     * @param id - id of node
+     * @param value - new value
+     * @param kind - new kind
+     */
+    public void setLeaf(int id, String value, TokenKind kind) {
+        kinds[id] = (byte) kind.ordinal();
+        values[id] = value;
+        firstChildren[id] = NONE;
+        lastChildren[id] = NONE;
+    }
+
+    /**
+     * change node to the same node as other node, they share children list,
+     * so other node must not be used after it
+     * @param id - id of node
+     * @param other - node, which takes place of node
+     */
+    public void replace(int id, int other) {
+        kinds[id] = kinds[other];
+        values[id] = values[other];
+        positions[id] = positions[other];
+        shareChildren(id, other);
+    }
+
+    /**
+     * reverse order of children
+     * @param id - id of node
+     */
+    public void reverseChildren(int id) {
+        int previous = NONE, child = firstChildren[id];
+        lastChildren[id] = child;
+        while (child != NONE){
+            int next = nextSiblings[child];
+            nextSiblings[child] = previous;
+            previous = child;
+            child = next;
+        }
+        firstChildren[id] = previous;
+    }
+
+    /**
+     * move all nodes by some rows, root node is not moved
+     * @param delta - count of rows
+     */
+    public void shiftRows(int delta) {
+        for (int i = 0; i < size; i++) {
+            if (getRow(i) >= 0)
+                positions[i] += (long) delta << 32;
+        }
+    }
+
+    /**
+     * write all nodes in compact binary form, every value is written once and nodes keep its number
+     * numbers are written by 7 bits in byte, links are written as distance from node and rows as
+     * difference with previous node, so most numbers take one byte
+     * @param out - output stream
+     * @throws IOException - stream can not be written
+     */
+    public void write(DataOutputStream out) throws IOException {
+        HashMap<String, Integer> numbers = new HashMap<>();
+        ArrayList<String> list = new ArrayList<>();
+        int[] valueNumbers = new int[size];
+        for (int i = 0; i < size; i++) {
+            if (values[i] == null){
+                valueNumbers[i] = NONE;
+                continue;
+            }
+            Integer number = numbers.get(values[i]);
+            if (number == null){
+                number = list.size();
+                numbers.put(values[i], number);
+                list.add(values[i]);
+            }
+            valueNumbers[i] = number;
+        }
+
+        ByteWriter writer = new ByteWriter(size * 8 + 64);
+        writer.putNumber(list.size());
+        for (String value : list) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writer.putNumber(bytes.length);
+            writer.put(bytes);
+        }
+
+        writer.putNumber(size);
+        int row = 0;
+        for (int i = 0; i < size; i++) {
+            writer.put(kinds[i]);
+            writer.putNumber(valueNumbers[i] + 1);
+            writer.putSigned(getRow(i) - row);
+            writer.putSigned(getColumn(i));
+            row = getRow(i);
+            writer.putLink(parents[i], i);
+            writer.putLink(firstChildren[i], i);
+            writer.putLink(lastChildren[i], i);
+            writer.putLink(nextSiblings[i], i);
+        }
+
+        out.writeInt(writer.size);
+        out.write(writer.bytes, 0, writer.size);
+    }
+
+    /**
+     * read nodes, which are written by write()
+     * @param in - input stream
+     * @return - arena with the same nodes
+     * @throws IOException - stream can not be read or has incorrect data
+     */
+    public static NodeArena read(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0)
+            throw new IOException("Incorrect size of data");
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        ByteReader reader = new ByteReader(bytes);
+
+        int count = reader.getCount();
+        if (count > length)
+            throw new IOException("Incorrect count of values");
+        String[] list = new String[count];
+        for (int i = 0; i < list.length; i++) {
+            list[i] = reader.getString();
+        }
+
+        /* every node takes 7 bytes at least */
+        int size = reader.getCount(), row = 0;
+        if (size > length / 7)
+            throw new IOException("Incorrect count of nodes");
+        NodeArena arena = new NodeArena(size);
+        for (int i = 0; i < size; i++) {
+            arena.kinds[i] = reader.getKind();
+            int number = reader.getCount() - 1;
+            if (number >= list.length)
+                throw new IOException("Incorrect value of node");
+            arena.values[i] = number == NONE ? null : list[number];
+            row += reader.getSigned();
+            arena.positions[i] = ((long) row << 32) | (reader.getSigned() & 0xFFFFFFFFL);
+            arena.parents[i] = reader.getLink(i, size);
+            arena.firstChildren[i] = reader.getLink(i, size);
+            arena.lastChildren[i] = reader.getLink(i, size);
+            arena.nextSiblings[i] = reader.getLink(i, size);
+        }
+        arena.size = size;
+        return arena;
+    }
+
+    /**
+     * Class describe growing array of bytes for write()
+     */
+    private static final class ByteWriter {
+        private byte[] bytes;
+        /* count of written bytes */
+        private int size;
+
+        private ByteWriter(int capacity){
+            this.bytes = new byte[capacity];
+        }
+
+        private void ensure(int count){
+            if (size + count > bytes.length)
+                bytes = Arrays.copyOf(bytes, Math.max(size + count, bytes.length * 2));
+        }
+
+        private void put(byte value){
+            ensure(1);
+            bytes[size++] = value;
+        }
+
+        private void put(byte[] values){
+            ensure(values.length);
+            System.arraycopy(values, 0, bytes, size, values.length);
+            size += values.length;
+        }
+
+        /* not negative number, 7 bits in every byte, high bit is set if next byte is used */
+        private void putNumber(int value){
+            ensure(5);
+            while ((value & ~0x7F) != 0){
+                bytes[size++] = (byte) (value | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        /* number with sign, small negative numbers are small too */
+        private void putSigned(int value){
+            putNumber((value << 1) ^ (value >> 31));
+        }
+
+        /* link as distance from node, 0 is NONE */
+        private void putLink(int link, int id){
+            int distance = link - id;
+            putNumber(link == NONE ? 0 : ((distance << 1) ^ (distance >> 31)) + 1);
+        }
+    }
+
+    /**
+     * Class describe reading of bytes, which are written by ByteWriter
+     * incorrect bytes produce IOException, so broken file can not create incorrect arena
+     */
+    private static final class ByteReader {
+        private final byte[] bytes;
+        /* index of next byte */
+        private int position;
+
+        private ByteReader(byte[] bytes){
+            this.bytes = bytes;
+        }
+
+        private byte get() throws IOException {
+            if (position == bytes.length)
+                throw new IOException("Unexpected end of data");
+            return bytes[position++];
+        }
+
+        private int getNumber() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0)
+                    return value;
+            }
+            throw new IOException("Incorrect number");
+        }
+
+        /* number of count, length or index, 5 bytes can give negative number */
+        private int getCount() throws IOException {
+            int value = getNumber();
+            if (value < 0)
+                throw new IOException("Incorrect number");
+            return value;
+        }
+
+        private int getSigned() throws IOException {
+            int value = getNumber();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private byte getKind() throws IOException {
+            byte kind = get();
+            if ((kind & 0xFF) >= KINDS.length)
+                throw new IOException("Incorrect kind of node");
+            return kind;
+        }
+
+        private String getString() throws IOException {
+            int length = getCount();
+            if (length > bytes.length - position)
+                throw new IOException("Unexpected end of data");
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private int getLink(int id, int size) throws IOException {
+            int value = getNumber();
+            if (value == 0)
+                return NONE;
+            value--;
+            int link = id + ((value >>> 1) ^ -(value & 1));
+            if (link < 0 || link >= size)
+                throw new IOException("Incorrect link of node");
+            return link;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+import java.util.Locale;
+
+/**
+ * Enum describe opcodes of x86 instructions made by asm creator,
+ * and pseudo instructions for labels and procedures
+ */
+public enum Opcode {
+    /* stack instructions */
+    PUSH, POP,
+
+    /* moving and arithmetic instructions */
+    MOV, ADD, SUB, INC, DEC, IMUL, CDQ, IDIV, NEG, AND, OR, XOR, SAL, SAR,
+
+    /* comparing instructions, SETcc puts flag to byte register */
+    CMP, SETE, SETNE, SETG, SETGE, SETL, SETLE,
+
+    /* jumps and procedure calls, conditional jumps use flags of signed comparing */
+    JMP, JE, JNE, JG, JGE, JL, JLE, CALL, RET,
+
+    /* pseudo instructions: label of next instruction, start and end of procedure, alignment of next instruction */
+    LABEL, PROC, ENDP, ALIGN;
+
+    /* name of instruction in asm text */
+    private final String mnemonic;
+
+    /**
+     * create opcode with lower case name of enum constant
+     */
+    Opcode() {
+        this.mnemonic = name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * getter for mnemonic
+     * @return - name of instruction in asm text
+     */
+    public String getMnemonic() {
+        return mnemonic;
+    }
+}
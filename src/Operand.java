@@ -0,0 +1,112 @@
+/**
+ * Class describe operands of instructions
+ * operand is packed to long: kind in high byte, register or id of name in next 24 bits and value in low 32 bits,
+ * so instructions keep operands without creating objects, and equal operands are equal numbers
+ */
+public final class Operand {
+    /* absent operand */
+    public static final long NONE = 0;
+
+    /* kinds of operands */
+    public static final int REGISTER = 1, IMMEDIATE = 2, MEMORY = 3, LABEL = 4, SYMBOL = 5;
+
+    /* all registers, used for getting register by stored ordinal */
+    private static final Register[] REGISTERS = Register.values();
+
+    private Operand() {
+    }
+
+    /**
+     * create register operand
+     * @param register - register
+     * @return - operand
+     */
+    public static long register(Register register) {
+        return pack(REGISTER, register.ordinal(), 0);
+    }
+
+    /**
+     * create immediate operand
+     * @param value - 32-bit value
+     * @return - operand
+     */
+    public static long immediate(int value) {
+        return pack(IMMEDIATE, 0, value);
+    }
+
+    /**
+     * create memory operand [base+displacement]
+     * @param base - base register
+     * @param displacement - offset from base in bytes
+     * @return - operand
+     */
+    public static long memory(Register base, int displacement) {
+        return pack(MEMORY, base.ordinal(), displacement);
+    }
+
+    /**
+     * create label operand, name of label is prefix and number
+     * @param prefix - id of prefix in instruction buffer
+     * @param number - number of label, NodeArena.NONE if label has only prefix
+     * @return - operand
+     */
+    static long label(int prefix, int number) {
+        return pack(LABEL, prefix, number);
+    }
+
+    /**
+     * create procedure name operand, name is kept by instruction buffer
+     * @param id - id of name in buffer
+     * @return - operand
+     */
+    static long symbol(int id) {
+        return pack(SYMBOL, id, 0);
+    }
+
+    /**
+     * getter for kind of operand
+     * @param operand - operand
+     * @return - kind, 0 for NONE
+     */
+    public static int getKind(long operand) {
+        return (int) (operand >>> 56);
+    }
+
+    /**
+     * getter for register of REGISTER operand or base of MEMORY operand
+     * @param operand - operand
+     * @return - register
+     */
+    public static Register getRegister(long operand) {
+        return REGISTERS[getNameId(operand)];
+    }
+
+    /**
+     * getter for id of name of SYMBOL operand or of label prefix, it is kept in the same place as register
+     * @param operand - operand
+     * @return - id of name in instruction buffer
+     */
+    static int getNameId(long operand) {
+        return (int) (operand >>> 32) & 0xFFFFFF;
+    }
+
+    /**
+     * getter for value of IMMEDIATE operand, displacement of MEMORY operand or number of LABEL
+     * @param operand - operand
+     * @return - value
+     */
+    public static int getValue(long operand) {
+        return (int) operand;
+    }
+
+    /**
+     * pack parts of operand
+     * @param kind - kind
+     * @param name - ordinal of register or id of name
+     * @param value - value
+     * @return - operand
+     */
+    private static long pack(int kind, int name, int value) {
+        return ((long) kind << 56) | ((long) name << 32) | (value & 0xFFFFFFFFL);
+    }
+}
@@ -1,49 +1,291 @@
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class Parser {
+    /* arena with nodes of all AST */
+    private final NodeArena nodes;
     private final AST mainAST;
     /* AST for all functions */
     private final HashMap<String, AST> defAST;
     /* map for all templates */
     private final HashMap<String, String[]> templates;
-    /* map for operation tokens with different priority */
-    private final HashMap<Integer, String> priority;
+    /* priority of binary operation for every token kind, smaller binds stronger, 0 if kind is not operation */
+    private static final int[] PRIORITY = new int[TokenKind.values().length];
+    /* kinds of value tokens, which can be converted to INT */
+    private static final EnumSet<TokenKind> VALUE_KINDS = EnumSet.of(TokenKind.INT, TokenKind.FLOAT,
+            TokenKind.BINNUM, TokenKind.OCTNUM, TokenKind.HEXNUM, TokenKind.STRING);
+    /* stack of not finished expression rules, frames are reused by all expressions */
+    private final ArrayList<Frame> frames = new ArrayList<>();
+    /* count of used frames */
+    private int depth;
+    /* syntax errors, which are found in recovery mode */
+    private final ArrayList<CompilerException> errors;
+    /* max count of errors in recovery mode, 0 if parsing is stopped by first error */
+    private final int maxErrors;
+    /* parser of function in parallel parsing doesn't print messages, they are printed by main parser,
+       parser of part of source doesn't print them too, its error is shown by owner */
+    private final boolean quiet;
+    /* min count of tokens for parallel parsing of top-level functions */
+    private static final int PARALLEL_THRESHOLD = 1 << 18;
+    /* minimal count of tokens in one chunk of parallel parsing */
+    private static final int MIN_CHUNK = 1 << 14;
+    /* for every top-level function, which is parsed in parallel:
+       index of first token, index of last parsed token and root node, NONE if function has error,
+       nodes of function are range [defFirstNodes, defLastNodes) in arena of its chunk */
+    private int[] defStarts = new int[0], defEnds, defRoots, defFirstNodes, defLastNodes;
+    /* arena of chunk for every top-level function, which is parsed in parallel */
+    private NodeArena[] defArenas;
+    /* functions of earlier parts of source, which can be used as parameters, null if there are no such parts */
+    private final HashMap<String, AST> knownDefs;
+    /* roots of known functions, which are copied to own arena, because call of function shares its children */
+    private final HashMap<String, Integer> importedDefs = new HashMap<>();
 
-    public Parser(ArrayList<Token> tokens) throws CompilerException {
-        EnhancedIterator<Token> tokenEnhancedIterator = new EnhancedIterator<>(tokens);
+    /**
+     * Enum describe rules of expression, which are parsed by frames
+     */
+    private enum Rule {
+        /* assignment: '<WORD> ["+"|"-"|...]"=" <EXP>', or <TERNAR> */
+        EXP,
+        /* ternary operator: '<PRIORITY> [ IF <PRIORITY> ELSE <TERNAR> ]' */
+        TERNAR,
+        /* binary operators: '<FACTOR> { <OPER> <PRIORITY> }' */
+        PRIORITY,
+        /* '"(" <TERNAR> ")"' | '<UNAR> <FACTOR>' | '<WORD> [ "(" <PARAMS> ")" ]' | <NUM> */
+        FACTOR,
+        /* parameters of function calling: '[ <TERNAR> { "," <TERNAR> } ]' */
+        PARAMS
+    }
+
+    /**
+     * Class describe not finished rule of expression
+     * frames are kept in list instead of java stack, so nesting of expression is limited only by heap
+     */
+    private static final class Frame {
+        /* parsed rule */
+        private Rule rule;
+        /* step of rule, which is continued after result of nested rule */
+        private int step;
+        /* the biggest priority for PRIORITY rule */
+        private int prior;
+        /* nodes and token, which are taken before nested rule */
+        private int first;
+        private int second;
+        private Token token;
+    }
+
+    /**
+     * Class describe not finished block of statement
+     */
+    private static final class Block {
+        /* statement, which owns block */
+        private final int statement;
+        /* node, which gets statements of block as children */
+        private final int target;
+        /* count of tabs and spaces common for previous structure */
+        private final int prevSpaceTabCount;
+        /* count of tabs and spaces of block relative to previous structure, -1 before first statement */
+        private int currentSpaceTabCount = -1;
+
+        private Block(int statement, int target, int prevSpaceTabCount) {
+            this.statement = statement;
+            this.target = target;
+            this.prevSpaceTabCount = prevSpaceTabCount;
+        }
+    }
+
+    public Parser(TokenBuffer tokens) throws CompilerException {
+        this(tokens, 0);
+    }
+
+    /**
+     * create parser, which can continue parsing after syntax errors
+     * statement with error is skipped with its nested lines, so AST has all other statements
+     * @param tokens - tokens of source
+     * @param maxErrors - count of errors, after which parsing is stopped, 0 if first error is thrown
+     * @throws CompilerException - first error, if maxErrors is 0
+     */
+    public Parser(TokenBuffer tokens, int maxErrors) throws CompilerException {
+        this(tokens, maxErrors, null, false);
+    }
+
+    /**
+     * create parser for part of source, functions of earlier parts can be used as parameters
+     * it doesn't print messages, error is only thrown
+     * @param tokens - tokens of part of source
+     * @param knownDefs - functions of earlier parts, they are not changed
+     * @throws CompilerException - first error
+     */
+    public Parser(TokenBuffer tokens, HashMap<String, AST> knownDefs) throws CompilerException {
+        this(tokens, 0, knownDefs, true);
+    }
+
+    private Parser(TokenBuffer tokens, int maxErrors, HashMap<String, AST> knownDefs, boolean quiet)
+            throws CompilerException {
+        TokenIterator tokenEnhancedIterator = new TokenIterator(tokens);
 
         /* initialise all global variables */
         this.defAST = new HashMap<>();
-        this.mainAST = new AST(tokenEnhancedIterator.next());
+        this.nodes = new NodeArena(tokens.size());
+        this.mainAST = new AST(nodes, tokenEnhancedIterator.next());
         this.templates = new HashMap<>();
-        this.priority = new HashMap<>();
+        this.errors = new ArrayList<>();
+        this.maxErrors = maxErrors;
+        this.quiet = quiet;
+        this.knownDefs = knownDefs;
 
         /* use methods that fill maps */
         fillTemplates();
-        initPriority();
 
-        /* start parsing */
+        /* parse functions of big source in parallel, then start parsing */
+        parseDefs(tokens);
         parseProg(tokenEnhancedIterator);
     }
 
     /**
-     * fill priority map by token types
+     * create parser for top-level functions of one chunk in parallel parsing
+     * it has no functions for parameters and doesn't print messages, errors are thrown
+     * @param capacity - expected count of nodes
+     */
+    private Parser(int capacity) {
+        this.defAST = new HashMap<>();
+        this.nodes = new NodeArena(capacity);
+        this.mainAST = null;
+        this.templates = new HashMap<>();
+        this.errors = new ArrayList<>();
+        this.maxErrors = 0;
+        this.quiet = true;
+        this.knownDefs = null;
+    }
+
+    /**
+     * parse top-level functions in parallel, if source is big and there are several threads
+     * functions are divided by chunks, every chunk is parsed by own parser to own arena,
+     * nodes of function are added to arena of program, when parseProg() reaches it,
+     * so ids of nodes and labels of asm are the same as in serial parsing
+     * function with error is not used, so it is parsed again by parseProg() with the same messages
+     * @param tokens - tokens of source
+     */
+    private void parseDefs(TokenBuffer tokens) {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        if (tokens.size() < PARALLEL_THRESHOLD || parallelism <= 1)
+            return;
+
+        /* function is top-level, if DEF is first token of line without indent */
+        int count = 0;
+        int[] starts = new int[16];
+        for (int i = 1; i < tokens.size(); i++) {
+            if (tokens.getKind(i) == TokenKind.DEF &&
+                    (i == 1 || tokens.getKind(i - 1) == TokenKind.NEW_LINE)){
+                if (count == starts.length)
+                    starts = Arrays.copyOf(starts, count * 2);
+                starts[count++] = i;
+            }
+        }
+        if (count < 2)
+            return;
+
+        /* chunks are cut before function, when chunk has enough tokens */
+        int chunkSize = Math.max(tokens.size() / (parallelism * 4), MIN_CHUNK);
+        int[] chunkDefs = new int[count + 1];
+        int chunk = 1;
+        for (int i = 1; i < count; i++) {
+            if (starts[i] - starts[chunkDefs[chunk - 1]] >= chunkSize)
+                chunkDefs[chunk++] = i;
+        }
+        chunkDefs[chunk] = count;
+        if (chunk == 1)
+            return;
+
+        defStarts = Arrays.copyOf(starts, count);
+        defEnds = new int[count];
+        defRoots = new int[count];
+        defFirstNodes = new int[count];
+        defLastNodes = new int[count];
+        defArenas = new NodeArena[count];
+        ForkJoinPool.commonPool().invoke(new ChunkAction(tokens, chunkDefs, 0, chunk));
+    }
+
+    /**
+     * Class describe task of parallel parsing for range of chunks
+     * range is divided in halves, until it has one chunk
      */
-    private void initPriority() {
-        //priority.put(4, "POW");
-        //priority.put(5, "(ADD)|(SUB)|(BIT_NOT)");
-        priority.put(6, "(MUL)|(DIV)|(INT_DIV)|(PERCENT)");
-        priority.put(7, "(ADD)|(SUB)");
-        priority.put(8, "(L_SHIFT)|(R_SHIFT)");
-        priority.put(9, "BIT_AND");
-        priority.put(10, "BIT_XOR");
-        priority.put(11, "BIT_OR");
-        priority.put(12, "(IN)|(IS)|(LT)|(GT)|(LE)|(GE)|(NE)|(EQ)");
-        priority.put(13, "NOT");
-        priority.put(14, "AND");
-        priority.put(15, "OR");
+    private class ChunkAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final TokenBuffer tokens;
+        /* index of first function for every chunk */
+        private final int[] chunkDefs;
+        /* range of chunks [from, to) */
+        private final int from, to;
+
+        private ChunkAction(TokenBuffer tokens, int[] chunkDefs, int from, int to){
+            this.tokens = tokens;
+            this.chunkDefs = chunkDefs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1){
+                int first = chunkDefs[from], last = chunkDefs[to] - 1;
+                int end = last + 1 < defStarts.length ? defStarts[last + 1] : tokens.size();
+                Parser parser = new Parser(end - defStarts[first]);
+
+                for (int i = first; i <= last; i++) {
+                    TokenIterator tokenEnhancedIterator = new TokenIterator(tokens, defStarts[i] - 1);
+                    defFirstNodes[i] = parser.nodes.size();
+                    defArenas[i] = parser.nodes;
+                    try {
+                        defRoots[i] = parser.parseStat(0, tokenEnhancedIterator);
+                        defEnds[i] = tokenEnhancedIterator.getIndex();
+                        defLastNodes[i] = parser.nodes.size();
+                    } catch (CompilerException | RuntimeException e) {
+                        /* parameter can be function from other chunk, it is known only by main parser */
+                        defRoots[i] = NodeArena.NONE;
+                    }
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new ChunkAction(tokens, chunkDefs, from, middle),
+                    new ChunkAction(tokens, chunkDefs, middle, to));
+        }
+    }
+
+    /* fill priority table by token kinds */
+    static {
+        //initPriority(4, TokenKind.POW);
+        //initPriority(5, TokenKind.ADD, TokenKind.SUB, TokenKind.BIT_NOT);
+        initPriority(6, TokenKind.MUL, TokenKind.DIV, TokenKind.INT_DIV, TokenKind.PERCENT);
+        initPriority(7, TokenKind.ADD, TokenKind.SUB);
+        initPriority(8, TokenKind.L_SHIFT, TokenKind.R_SHIFT);
+        initPriority(9, TokenKind.BIT_AND);
+        initPriority(10, TokenKind.BIT_XOR);
+        initPriority(11, TokenKind.BIT_OR);
+        initPriority(12, TokenKind.IN, TokenKind.IS, TokenKind.LT, TokenKind.GT,
+                        TokenKind.LE, TokenKind.GE, TokenKind.NE, TokenKind.EQ);
+        initPriority(13, TokenKind.NOT);
+        initPriority(14, TokenKind.AND);
+        initPriority(15, TokenKind.OR);
+    }
+
+    /**
+     * set priority for operation token kinds
+     * @param prior - priority level
+     * @param kinds - kinds with this priority
+     */
+    private static void initPriority(int prior, TokenKind... kinds) {
+        for (TokenKind kind : kinds) {
+            PRIORITY[kind.ordinal()] = prior;
+        }
     }
 
     /**
@@ -71,24 +313,21 @@ public class Parser {
         templates.put("UNAR_FACTOR", new String[]{"UNAR", "FACTOR"});
         templates.put("UNAR", new String[]{"SUB|NOT"});
 
-        templates.put("S", new String[]{"TAB", "SPACE"});
+        templates.put("S", new String[]{"INDENT"});
     }
 
     /**
      * test is next token has correct type
      * @param enhancedIterator - iterator
-     * @param type - type to be needed
+     * @param kind - kind to be needed
      * @param errId - error id when exception
-     * @return - this next token, if it need to be used
      * @throws CompilerException - fail will produce this exception
      */
-    private Token isLikeTemplate(EnhancedIterator<Token> enhancedIterator, String type, int errId)
+    private void isLikeTemplate(TokenIterator enhancedIterator, TokenKind kind, int errId)
             throws CompilerException {
-        Token token = enhancedIterator.next();
-        if (!token.getType().equals(type)){
-            fail(errId, token);
+        if (enhancedIterator.nextKind() != kind){
+            fail(errId, enhancedIterator.current());
         }
-        return token;
     }
 
     /**
@@ -96,421 +335,428 @@ public class Parser {
      * @param tokenEnhancedIterator - iterator
      * @throws CompilerException - fail will produce this exception
      */
-    private void parseProg(EnhancedIterator<Token> tokenEnhancedIterator) throws CompilerException {
+    private void parseProg(TokenIterator tokenEnhancedIterator) throws CompilerException {
+        /* next function, which is parsed in parallel */
+        int nextDef = 0;
+
         /* parsing program like a block */
         while (tokenEnhancedIterator.hasNext()){
-            Node_AST node = parseStat(0, tokenEnhancedIterator);
+            int node;
+            int index = tokenEnhancedIterator.getIndex();
+            while (nextDef < defStarts.length && defStarts[nextDef] <= index)
+                nextDef++;
+
+            if (nextDef < defStarts.length && defStarts[nextDef] == index + 1 &&
+                    defRoots[nextDef] != NodeArena.NONE){
+                /* function is already parsed without errors, its nodes get ids of serial parsing */
+                node = defRoots[nextDef] + nodes.append(defArenas[nextDef],
+                        defFirstNodes[nextDef], defLastNodes[nextDef]);
+                tokenEnhancedIterator.setIndex(defEnds[nextDef]);
+            }
+            else {
+                try {
+                    node = parseStat(0, tokenEnhancedIterator);
+                } catch (CompilerException e) {
+                    recover(e, 0, tokenEnhancedIterator);
+                    continue;
+                }
+            }
 
-            switch (node.getCurrent().getType()){
-                case "DEF_WORD": {
+            switch (nodes.getKind(node)){
+                case DEF_WORD: {
 
                     /* create function AST */
-                    AST tmp = new AST(node);
+                    AST tmp = new AST(nodes, node);
 
                     /* add AST to map */
-                    if (defAST.containsKey(node.getCurrent().getValue()))
-                        defAST.replace(tmp.getRoot().getCurrent().getValue(), tmp);
+                    if (defAST.containsKey(nodes.getValue(node)))
+                        defAST.replace(nodes.getValue(tmp.getRoot()), tmp);
                     else
-                        defAST.put(tmp.getRoot().getCurrent().getValue(), tmp);
+                        defAST.put(nodes.getValue(tmp.getRoot()), tmp);
 
                     break;
                 }
                 default:{
-                    node.setParent(mainAST.getRoot());
-                    mainAST.getRoot().appendChild(node);
+                    nodes.setParent(node, mainAST.getRoot());
+                    nodes.appendChild(mainAST.getRoot(), node);
                 }
             }
         }
     }
 
     /**
-     * parse Block, as '{ TAB | SPACE } STAT'
-     * @param prevSpaceTabCount - count of tabs and spaces common for previous structure
+     * parse statement with all nested blocks, as 'STAT { INDENT STAT }'
+     * width of INDENT token is count of spaces, tab is 8 spaces
+     * not finished blocks are kept in stack instead of java stack, so nesting of blocks is limited only by heap
+     * @param currentSpaceCount - spaces count in current statement
      * @param tokenEnhancedIterator - iterator
-     * @return - list of statements
+     * @return - statement node
      * @throws CompilerException - fail will produce this exception
      */
-    private ArrayList<Node_AST> parseBlock(int prevSpaceTabCount, EnhancedIterator<Token> tokenEnhancedIterator)
+    private int parseStat(int currentSpaceCount, TokenIterator tokenEnhancedIterator)
             throws CompilerException {
-        ArrayList<Node_AST> statements = new ArrayList<>();
-        int currentSpaceTabCount = -1;
+        ArrayDeque<Block> blocks = new ArrayDeque<>();
+        int statement = parseStatHead(currentSpaceCount, tokenEnhancedIterator, blocks);
+        /* statement of block was skipped by error */
+        boolean skipped = false;
+
+        while (!blocks.isEmpty()){
+            Block block = blocks.peek();
+
+            /* add finished statement to block */
+            if (statement != NodeArena.NONE || skipped){
+                if (statement != NodeArena.NONE){
+                    nodes.appendChild(block.target, statement);
+                    nodes.setParent(statement, block.target);
+                }
+                statement = NodeArena.NONE;
+                skipped = false;
 
-        Token token = tokenEnhancedIterator.peek();
-        do {
-            int tmpSpaceTabCount = 0, spaceTokenCount = 0;
-            tokenEnhancedIterator.next();
-
-            /* count all tabs and spaces */
-            while (token.getType().matches("(TAB)|(SPACE)")) {
-                spaceTokenCount++;
-                if (token.getType().equals("TAB"))
-                    tmpSpaceTabCount += 8;
-                else
-                    tmpSpaceTabCount++;
-                token = tokenEnhancedIterator.next();
+                if (!tokenEnhancedIterator.hasNext()){
+                    statement = blocks.pop().statement;
+                    continue;
+                }
             }
 
-            /* initialise space count for first statement */
-            if (currentSpaceTabCount == -1)
-                currentSpaceTabCount = tmpSpaceTabCount-prevSpaceTabCount;
-
-            /* go back before spaces */
-            if (tmpSpaceTabCount <= prevSpaceTabCount){
-                for (int i = 0; i < spaceTokenCount; i++) {
-                    tokenEnhancedIterator.previous();
+            int tmpSpaceTabCount = 0;
+            try {
+                /* take width of indent */
+                if (tokenEnhancedIterator.nextKind() == TokenKind.INDENT) {
+                    tmpSpaceTabCount = tokenEnhancedIterator.currentIndentWidth();
+                    tokenEnhancedIterator.nextKind();
                 }
-                break;
-            }
 
-            /* error if count of spaces is incorrect */
-            if (tmpSpaceTabCount - prevSpaceTabCount != currentSpaceTabCount){
-                System.err.printf("Expected %d spaces, but found %d!\n",
-                        currentSpaceTabCount+prevSpaceTabCount, tmpSpaceTabCount);
-                fail(0, token);
-            }
-            tokenEnhancedIterator.previous();
+                /* initialise space count for first statement */
+                if (block.currentSpaceTabCount == -1)
+                    block.currentSpaceTabCount = tmpSpaceTabCount - block.prevSpaceTabCount;
 
-            statements.add(parseStat(tmpSpaceTabCount, tokenEnhancedIterator));
+                /* go back before indent, block is finished */
+                if (tmpSpaceTabCount <= block.prevSpaceTabCount){
+                    if (tmpSpaceTabCount > 0)
+                        tokenEnhancedIterator.previous();
+                    tokenEnhancedIterator.previous();
 
-            if (!tokenEnhancedIterator.hasNext())
-                return statements;
+                    statement = blocks.pop().statement;
+                    continue;
+                }
 
-            token = tokenEnhancedIterator.peek();
-        }while(true);
+                /* error if count of spaces is incorrect */
+                if (tmpSpaceTabCount - block.prevSpaceTabCount != block.currentSpaceTabCount){
+                    if (!quiet)
+                        System.err.printf("Expected %d spaces, but found %d!\n",
+                                block.currentSpaceTabCount + block.prevSpaceTabCount, tmpSpaceTabCount);
+                    fail(0, tokenEnhancedIterator.current());
+                }
+                tokenEnhancedIterator.previous();
 
-        tokenEnhancedIterator.previous();
+                statement = parseStatHead(tmpSpaceTabCount, tokenEnhancedIterator, blocks);
+            } catch (CompilerException e) {
+                recover(e, tmpSpaceTabCount, tokenEnhancedIterator);
+                skipped = true;
+            }
+        }
 
-        return statements;
+        return statement;
     }
 
     /**
-     * parse DEF | RETURN | IF | ELIF | ELSE, or expression
+     * parse DEF | RETURN | IF | ELIF | ELSE, or expression without its block
+     * statement with block is returned by parseStat(), when its block is finished
      * @param currentSpaceCount - spaces count in current statement
      * @param tokenEnhancedIterator - iterator
-     * @return - statement node
+     * @param blocks - stack of not finished blocks, block of statement is pushed to it
+     * @return - statement node, or NONE if statement has block
      * @throws CompilerException - fail will produce this exception
      */
-    private Node_AST parseStat(int currentSpaceCount, EnhancedIterator<Token> tokenEnhancedIterator)
-            throws CompilerException {
-        Token token;
+    private int parseStatHead(int currentSpaceCount, TokenIterator tokenEnhancedIterator,
+                              ArrayDeque<Block> blocks) throws CompilerException {
+        Token token = null;
 
-        token = tokenEnhancedIterator.peek();
-        switch (token.getType()){
+        switch (tokenEnhancedIterator.peekKind()){
 
             /* create function statement: 'DEF WORD "(" ")" ":" NEW_LINE { STAT }' */
-            case "DEF":{
-                tokenEnhancedIterator.next();
+            case DEF:{
+                tokenEnhancedIterator.nextKind();
 
                 /* test if tokens is correctly placed for function */
-                Token defToken = isLikeTemplate(tokenEnhancedIterator, "WORD", 1);
-                isLikeTemplate(tokenEnhancedIterator, "LBR", 1);
+                isLikeTemplate(tokenEnhancedIterator, TokenKind.WORD, 1);
+                Token defToken = tokenEnhancedIterator.current();
+                isLikeTemplate(tokenEnhancedIterator, TokenKind.LBR, 1);
 
                 /* parsing method parameters */
-                Node_AST params = parseParams(tokenEnhancedIterator, true);
+                int params = parseDefParams(tokenEnhancedIterator);
 
-                isLikeTemplate(tokenEnhancedIterator, "RBR", 1);
-                isLikeTemplate(tokenEnhancedIterator, "COLON", 1);
-                isLikeTemplate(tokenEnhancedIterator, "NEW_LINE", 1);
+                isLikeTemplate(tokenEnhancedIterator, TokenKind.RBR, 1);
+                isLikeTemplate(tokenEnhancedIterator, TokenKind.COLON, 1);
+                isLikeTemplate(tokenEnhancedIterator, TokenKind.NEW_LINE, 1);
 
-                Node_AST def = new Node_AST(new Token(defToken.getValue(), "DEF_WORD",
-                        defToken.getRow(), defToken.getColumn()));
+                int def = nodes.add(defToken.getValue(), TokenKind.DEF_WORD,
+                        defToken.getRow(), defToken.getColumn());
 
-                params.setParent(def);
-                def.appendChild(params);
+                nodes.setParent(params, def);
+                nodes.appendChild(def, params);
 
                 /* parse function block */
-                ArrayList<Node_AST> statements = parseBlock(currentSpaceCount, tokenEnhancedIterator);
-
-                def.appendChildren(statements);
-                for (Node_AST child: statements) {
-                    child.setParent(def);
-                }
+                blocks.push(new Block(def, def, currentSpaceCount));
 
-                return def;
+                return NodeArena.NONE;
             }
 
             /* return statement: 'RETURN <EXP> NEW_LINE' */
-            case "RETURN":{
-                tokenEnhancedIterator.next();
-                Node_AST returnNode = new Node_AST(token),
+            case RETURN:{
+                token = tokenEnhancedIterator.next();
+                int returnNode = nodes.add(token),
                         /* parse exp in return statement */
                         retExp = parseExp(tokenEnhancedIterator);
 
                 /* set family relations */
-                returnNode.appendChild(retExp);
-                retExp.setParent(returnNode);
+                nodes.appendChild(returnNode, retExp);
+                nodes.setParent(retExp, returnNode);
 
-                isLikeTemplate(tokenEnhancedIterator, "NEW_LINE", 1);
+                isLikeTemplate(tokenEnhancedIterator, TokenKind.NEW_LINE, 1);
 
                 return returnNode;
             }
 
-            case "BREAK":
-            case "CONTINUE": {
-                tokenEnhancedIterator.next();
-                Node_AST oneWordNode = new Node_AST(token);
+            case BREAK:
+            case CONTINUE: {
+                token = tokenEnhancedIterator.next();
+                int oneWordNode = nodes.add(token);
 
-                isLikeTemplate(tokenEnhancedIterator, "NEW_LINE", 1);
+                isLikeTemplate(tokenEnhancedIterator, TokenKind.NEW_LINE, 1);
 
                 return oneWordNode;
             }
 
             /* if statement: 'IF <EXP> ":" NEW_LINE { <STAT> }' */
-            case "IF":{
-                tokenEnhancedIterator.next();
-                Node_AST ifNode = new Node_AST(token);
+            case IF:{
+                token = tokenEnhancedIterator.next();
+                int ifNode = nodes.add(token);
 
                 /* parse exp in if statement */
-                Node_AST    ifExp = parseExp(tokenEnhancedIterator),
-                            ifTrue = new Node_AST(new Token("iftrue", "IF_TRUE",
-                        tokenEnhancedIterator.current().getRow(), tokenEnhancedIterator.current().getColumn()));
-
-                isLikeTemplate(tokenEnhancedIterator, "COLON", 1);
-                isLikeTemplate(tokenEnhancedIterator, "NEW_LINE", 1);
+                int ifExp = parseExp(tokenEnhancedIterator),
+                    ifTrue = nodes.add("iftrue", TokenKind.IF_TRUE,
+                        tokenEnhancedIterator.current().getRow(), tokenEnhancedIterator.current().getColumn());
 
-                /* parse block after if */
-                ArrayList<Node_AST> ifBlock = parseBlock(currentSpaceCount, tokenEnhancedIterator);
+                isLikeTemplate(tokenEnhancedIterator, TokenKind.COLON, 1);
+                isLikeTemplate(tokenEnhancedIterator, TokenKind.NEW_LINE, 1);
 
                 /* set family relations */
-                ifTrue.appendChildren(ifBlock);
-                for (Node_AST child: ifBlock) {
-                    child.setParent(ifTrue);
-                }
+                nodes.appendChild(ifNode, ifExp);
+                nodes.appendChild(ifNode, ifTrue);
+                nodes.setParent(ifExp, ifNode);
+                nodes.setParent(ifTrue, ifNode);
 
-                ifNode.appendChild(ifExp);
-                ifNode.appendChild(ifTrue);
-                ifExp.setParent(ifNode);
-                ifTrue.setParent(ifNode);
+                /* parse block after if */
+                blocks.push(new Block(ifNode, ifTrue, currentSpaceCount));
 
-                return ifNode;
+                return NodeArena.NONE;
             }
 
             /* elif statement: 'ELIF <EXP> ":" NEW_LINE { <STAT> }' */
-            case "ELIF":{
-                tokenEnhancedIterator.next();
+            case ELIF:{
+                token = tokenEnhancedIterator.next();
 
-                Node_AST elifNode = new Node_AST((token));
+                int elifNode = nodes.add(token);
 
                 /* parse exp in elif statement */
-                Node_AST    elifExp = parseExp(tokenEnhancedIterator),
-                            elifTrue = new Node_AST(new Token("eliftrue", "ELIF_TRUE",
-                        tokenEnhancedIterator.current().getRow(), tokenEnhancedIterator.current().getColumn()));
+                int elifExp = parseExp(tokenEnhancedIterator),
+                    elifTrue = nodes.add("eliftrue", TokenKind.ELIF_TRUE,
+                        tokenEnhancedIterator.current().getRow(), tokenEnhancedIterator.current().getColumn());
 
-                isLikeTemplate(tokenEnhancedIterator, "COLON", 1);
-                isLikeTemplate(tokenEnhancedIterator, "NEW_LINE", 1);
-
-                /* parse block after elif */
-                ArrayList<Node_AST> elifBlock = parseBlock(currentSpaceCount, tokenEnhancedIterator);
+                isLikeTemplate(tokenEnhancedIterator, TokenKind.COLON, 1);
+                isLikeTemplate(tokenEnhancedIterator, TokenKind.NEW_LINE, 1);
 
                 /* set family relations */
-                elifTrue.appendChildren(elifBlock);
-                for (Node_AST child: elifBlock) {
-                    child.setParent(elifTrue);
-                }
+                nodes.appendChild(elifNode, elifExp);
+                nodes.appendChild(elifNode, elifTrue);
+                nodes.setParent(elifExp, elifNode);
+                nodes.setParent(elifTrue, elifNode);
 
-                elifNode.appendChild(elifExp);
-                elifNode.appendChild(elifTrue);
-                elifExp.setParent(elifNode);
-                elifTrue.setParent(elifNode);
+                /* parse block after elif */
+                blocks.push(new Block(elifNode, elifTrue, currentSpaceCount));
 
-                return elifNode;
+                return NodeArena.NONE;
             }
 
             /* elif statement: 'ELSE ":" NEW_LINE { <STAT> }' */
-            case "ELSE":{
-                tokenEnhancedIterator.next();
-
-                Node_AST elseNode = new Node_AST((token));
+            case ELSE:{
+                token = tokenEnhancedIterator.next();
 
-                isLikeTemplate(tokenEnhancedIterator, "COLON", 1);
-                isLikeTemplate(tokenEnhancedIterator, "NEW_LINE", 1);
+                int elseNode = nodes.add(token);
 
-                ArrayList <Node_AST> elseBlock = parseBlock(currentSpaceCount, tokenEnhancedIterator);
+                isLikeTemplate(tokenEnhancedIterator, TokenKind.COLON, 1);
+                isLikeTemplate(tokenEnhancedIterator, TokenKind.NEW_LINE, 1);
 
-                /* set family relations */
-                elseNode.appendChildren(elseBlock);
-                for (Node_AST child: elseBlock) {
-                    child.setParent(elseNode);
-                }
+                blocks.push(new Block(elseNode, elseNode, currentSpaceCount));
 
-                return elseNode;
+                return NodeArena.NONE;
             }
 
             /* for statement: 'FOR WORD IN RANGE "(" <EXP> [ "," <EXP> [ "," <EXP> ] ] ")" ":" NEW_LINE { <STAT> }' */
-            case "FOR": {
-                tokenEnhancedIterator.next();
+            case FOR: {
+                token = tokenEnhancedIterator.next();
                 Token token_tmp = tokenEnhancedIterator.next();
 
-                Node_AST forNode = new Node_AST((token)),
-                        forVar = null,
-                        forAssign = new Node_AST(new Token("=", "ASSIGN",
-                            token_tmp.getRow(), token_tmp.getColumn())),
-                        forAssignThird = new Node_AST(new Token("=", "ASSIGN",
-                            token_tmp.getRow(), token_tmp.getColumn())),
-                        forLessThan = new Node_AST(new Token("<", "LT",
-                            token_tmp.getRow(), token_tmp.getColumn())),
-                        forAdd = new Node_AST(new Token("+", "ADD",
-                            token_tmp.getRow(), token_tmp.getColumn()));
-
-                if (token_tmp.getType().equals("WORD")){
-                    forVar = new Node_AST(new Token(token_tmp.getValue(), "ID",
-                            token_tmp.getRow(), token_tmp.getColumn()));
+                int forNode = nodes.add(token),
+                        forVar = NodeArena.NONE,
+                        forAssign = nodes.add("=", TokenKind.ASSIGN,
+                            token_tmp.getRow(), token_tmp.getColumn()),
+                        forAssignThird = nodes.add("=", TokenKind.ASSIGN,
+                            token_tmp.getRow(), token_tmp.getColumn()),
+                        forLessThan = nodes.add("<", TokenKind.LT,
+                            token_tmp.getRow(), token_tmp.getColumn()),
+                        forAdd = nodes.add("+", TokenKind.ADD,
+                            token_tmp.getRow(), token_tmp.getColumn());
+
+                if (token_tmp.getKind() == TokenKind.WORD){
+                    forVar = nodes.add(token_tmp.getValue(), TokenKind.ID,
+                            token_tmp.getRow(), token_tmp.getColumn());
                 }
                 else {
-                    if (token_tmp.getType().equals("DOWN_LINE")){
-                        forVar = new Node_AST(new Token("_tmp_for_var", "ID",
-                                token_tmp.getRow(), token_tmp.getColumn()));
+                    if (token_tmp.getKind() == TokenKind.DOWN_LINE){
+                        forVar = nodes.add("_tmp_for_var", TokenKind.ID,
+                                token_tmp.getRow(), token_tmp.getColumn());
                     }
                     else {
                         fail(1, token_tmp);
                     }
                 }
 
-                isLikeTemplate(tokenEnhancedIterator, "IN", 1);
-                isLikeTemplate(tokenEnhancedIterator, "RANGE", 1);
-                isLikeTemplate(tokenEnhancedIterator, "LBR", 7);
+                isLikeTemplate(tokenEnhancedIterator, TokenKind.IN, 1);
+                isLikeTemplate(tokenEnhancedIterator, TokenKind.RANGE, 1);
+                isLikeTemplate(tokenEnhancedIterator, TokenKind.LBR, 7);
 
-                Node_AST fExp = parseExp(tokenEnhancedIterator), sExp, tExp;
+                int fExp = parseExp(tokenEnhancedIterator), sExp, tExp;
 
-                if (tokenEnhancedIterator.peek().getType().equals("COMMA")){
-                    tokenEnhancedIterator.next();
+                if (tokenEnhancedIterator.peekKind() == TokenKind.COMMA){
+                    tokenEnhancedIterator.nextKind();
                     sExp = parseExp(tokenEnhancedIterator);
-                    if (tokenEnhancedIterator.peek().getType().equals("COMMA")){
-                        tokenEnhancedIterator.next();
+                    if (tokenEnhancedIterator.peekKind() == TokenKind.COMMA){
+                        tokenEnhancedIterator.nextKind();
                         tExp = parseExp(tokenEnhancedIterator);
                     }
                     else {
-                        tExp = new Node_AST(new Token("1", "INT",
+                        tExp = nodes.add("1", TokenKind.INT,
                                 tokenEnhancedIterator.current().getRow(),
-                                tokenEnhancedIterator.current().getColumn()));
+                                tokenEnhancedIterator.current().getColumn());
                     }
 
                     /* set relationship for first data and ASSIGN */
-                    fExp.setParent(forAssign);
-                    forAssign.appendChild(fExp);
+                    nodes.setParent(fExp, forAssign);
+                    nodes.appendChild(forAssign, fExp);
                     /* set relationship for ASSIGN and cycle variable */
-                    forAssign.setParent(forVar);
-                    forVar.appendChild(forAssign);
+                    nodes.setParent(forAssign, forVar);
+                    nodes.appendChild(forVar, forAssign);
                     /* set relationship for cycle variable and FOR node */
-                    forVar.setParent(forNode);
-                    forNode.appendChild(forVar);
+                    nodes.setParent(forVar, forNode);
+                    nodes.appendChild(forNode, forVar);
 
                     /* create copy of variable */
-                    Node_AST forVarSec = new Node_AST(forVar.getCurrent());
+                    int forVarSec = nodes.duplicate(forVar);
                     /* set relationship for cycle variable and LT */
-                    forVarSec.setParent(forLessThan);
-                    forLessThan.appendChild(forVarSec);
+                    nodes.setParent(forVarSec, forLessThan);
+                    nodes.appendChild(forLessThan, forVarSec);
                     /* set relationship for second data and LT */
-                    sExp.setParent(forLessThan);
-                    forLessThan.appendChild(sExp);
+                    nodes.setParent(sExp, forLessThan);
+                    nodes.appendChild(forLessThan, sExp);
                 }
                 else {
-                    sExp = new Node_AST(new Token("0", "INT",
+                    sExp = nodes.add("0", TokenKind.INT,
                             tokenEnhancedIterator.current().getRow(),
-                            tokenEnhancedIterator.current().getColumn()));
-                    tExp = new Node_AST(new Token("1", "INT",
+                            tokenEnhancedIterator.current().getColumn());
+                    tExp = nodes.add("1", TokenKind.INT,
                             tokenEnhancedIterator.current().getRow(),
-                            tokenEnhancedIterator.current().getColumn()));
+                            tokenEnhancedIterator.current().getColumn());
 
                     /* set relationship for first data and ASSIGN */
-                    sExp.setParent(forAssign);
-                    forAssign.appendChild(sExp);
+                    nodes.setParent(sExp, forAssign);
+                    nodes.appendChild(forAssign, sExp);
                     /* set relationship for ASSIGN and cycle variable */
-                    forAssign.setParent(forVar);
-                    forVar.appendChild(forAssign);
+                    nodes.setParent(forAssign, forVar);
+                    nodes.appendChild(forVar, forAssign);
                     /* set relationship for cycle variable and FOR node */
-                    forVar.setParent(forNode);
-                    forNode.appendChild(forVar);
+                    nodes.setParent(forVar, forNode);
+                    nodes.appendChild(forNode, forVar);
 
                     /* create copy of variable */
-                    Node_AST forVarSec = new Node_AST(forVar.getCurrent());
+                    int forVarSec = nodes.duplicate(forVar);
                     /* set relationship for cycle variable and LT */
-                    forVarSec.setParent(forLessThan);
-                    forLessThan.appendChild(forVarSec);
+                    nodes.setParent(forVarSec, forLessThan);
+                    nodes.appendChild(forLessThan, forVarSec);
                     /* set relationship for second data and LT */
-                    fExp.setParent(forLessThan);
-                    forLessThan.appendChild(fExp);
+                    nodes.setParent(fExp, forLessThan);
+                    nodes.appendChild(forLessThan, fExp);
                 }
 
                 /* set relationship for LT and FOR node */
-                forLessThan.setParent(forNode);
-                forNode.appendChild(forLessThan);
+                nodes.setParent(forLessThan, forNode);
+                nodes.appendChild(forNode, forLessThan);
 
-                isLikeTemplate(tokenEnhancedIterator, "RBR", 5);
+                isLikeTemplate(tokenEnhancedIterator, TokenKind.RBR, 5);
 
                 /* create copy of variable for ADD and for ASSIGN */
-                Node_AST    forVarThird = new Node_AST(forVar.getCurrent()),
-                            forVarInit = new Node_AST(forVar.getCurrent());
+                int forVarThird = nodes.duplicate(forVar),
+                    forVarInit = nodes.duplicate(forVar);
                 /* set relationship for cycle variable and ADD */
-                forVarThird.setParent(forAdd);
-                forAdd.appendChild(forVarThird);
+                nodes.setParent(forVarThird, forAdd);
+                nodes.appendChild(forAdd, forVarThird);
                 /* set relationship for third data and ADD */
-                tExp.setParent(forAdd);
-                forAdd.appendChild(tExp);
+                nodes.setParent(tExp, forAdd);
+                nodes.appendChild(forAdd, tExp);
                 /* set relationship for LT and ASSIGN node */
-                forAdd.setParent(forAssignThird);
-                forAssignThird.appendChild(forAdd);
+                nodes.setParent(forAdd, forAssignThird);
+                nodes.appendChild(forAssignThird, forAdd);
                 /* set relationship for ASSIGN and VAR node */
-                forAssignThird.setParent(forVarInit);
-                forVarInit.appendChild(forAssignThird);
+                nodes.setParent(forAssignThird, forVarInit);
+                nodes.appendChild(forVarInit, forAssignThird);
                 /* set relationship for VAR and FOR node */
-                forVarInit.setParent(forNode);
-                forNode.appendChild(forVarInit);
+                nodes.setParent(forVarInit, forNode);
+                nodes.appendChild(forNode, forVarInit);
 
-                isLikeTemplate(tokenEnhancedIterator, "COLON", 1);
-                isLikeTemplate(tokenEnhancedIterator, "NEW_LINE", 1);
+                isLikeTemplate(tokenEnhancedIterator, TokenKind.COLON, 1);
+                isLikeTemplate(tokenEnhancedIterator, TokenKind.NEW_LINE, 1);
 
-                Node_AST forBody = new Node_AST(new Token("for_body", "FOR_BODY",
-                        token_tmp.getRow(), token_tmp.getColumn()));
+                int forBody = nodes.add("for_body", TokenKind.FOR_BODY,
+                        token_tmp.getRow(), token_tmp.getColumn());
 
-                ArrayList <Node_AST> forBlock = parseBlock(currentSpaceCount, tokenEnhancedIterator);
-
-                /* set family relations */
-                forBody.appendChildren(forBlock);
-                for (Node_AST child: forBlock) {
-                    child.setParent(forBody);
-                }
+                nodes.setParent(forBody, forNode);
+                nodes.appendChild(forNode, forBody);
 
-                forBody.setParent(forNode);
-                forNode.appendChild(forBody);
+                blocks.push(new Block(forNode, forBody, currentSpaceCount));
 
-                return forNode;
+                return NodeArena.NONE;
             }
 
             /* while statement: 'WHILE "(" <EXP> ")" ":" NEW_LINE' */
-            case "WHILE": {
-                tokenEnhancedIterator.next();
-
-                Node_AST whileNode = new Node_AST(token), whileExp = parseExp(tokenEnhancedIterator);
+            case WHILE: {
+                token = tokenEnhancedIterator.next();
 
-                whileExp.setParent(whileNode);
-                whileNode.appendChild(whileExp);
+                int whileNode = nodes.add(token), whileExp = parseExp(tokenEnhancedIterator);
 
-                isLikeTemplate(tokenEnhancedIterator, "COLON", 1);
-                Token body = isLikeTemplate(tokenEnhancedIterator, "NEW_LINE", 1);
+                nodes.setParent(whileExp, whileNode);
+                nodes.appendChild(whileNode, whileExp);
 
-                Node_AST whileBody = new Node_AST(new Token("while_body", "WHILE_BODY",
-                        body.getRow(), body.getColumn()));
+                isLikeTemplate(tokenEnhancedIterator, TokenKind.COLON, 1);
+                isLikeTemplate(tokenEnhancedIterator, TokenKind.NEW_LINE, 1);
+                Token body = tokenEnhancedIterator.current();
 
-                ArrayList <Node_AST> whileBlock = parseBlock(currentSpaceCount, tokenEnhancedIterator);
+                int whileBody = nodes.add("while_body", TokenKind.WHILE_BODY,
+                        body.getRow(), body.getColumn());
 
-                /* set family relations */
-                whileBody.appendChildren(whileBlock);
-                for (Node_AST child: whileBlock) {
-                    child.setParent(whileBody);
-                }
+                nodes.setParent(whileBody, whileNode);
+                nodes.appendChild(whileNode, whileBody);
 
-                whileBody.setParent(whileNode);
-                whileNode.appendChild(whileBody);
+                blocks.push(new Block(whileNode, whileBody, currentSpaceCount));
 
-                return whileNode;
+                return NodeArena.NONE;
             }
 
             /* else variant such as create var, or do something: <EXP> */
             default: {
-                Node_AST exp = parseExp(tokenEnhancedIterator);
+                int exp = parseExp(tokenEnhancedIterator);
 
-                isLikeTemplate(tokenEnhancedIterator, "NEW_LINE", 1);
+                isLikeTemplate(tokenEnhancedIterator, TokenKind.NEW_LINE, 1);
 
                 return exp;
             }
@@ -518,43 +764,37 @@ public class Parser {
     }
 
     /**
-     * parsing parameters of functions for defining and calling
+     * parsing parameters of functions for defining
      * @param tokenEnhancedIterator - iterator
-     * @param isDef - flag showing is this parameters in defining, or in calling
      * @return - parameters node
      * @throws CompilerException - fail will produce this exception
      */
-    private Node_AST parseParams(EnhancedIterator<Token> tokenEnhancedIterator, boolean isDef)
-            throws CompilerException {
-        Node_AST params = new Node_AST(new Token("params", "PARAMS",
-                tokenEnhancedIterator.peek().getRow(), tokenEnhancedIterator.peek().getColumn()));
+    private int parseDefParams(TokenIterator tokenEnhancedIterator) throws CompilerException {
+        int params = nodes.add("params", TokenKind.PARAMS,
+                tokenEnhancedIterator.peek().getRow(), tokenEnhancedIterator.peek().getColumn());
         Token token = tokenEnhancedIterator.peek();
 
-        while (!token.getType().equals("RBR")){
-            if (isDef) {
-                tokenEnhancedIterator.next();
-                if (token.getType().equals("WORD")) {
-                    if (tokenEnhancedIterator.peek().getType().equals("LBR")) {
-                        isLikeTemplate(tokenEnhancedIterator, "LBR", 5);
-                        isLikeTemplate(tokenEnhancedIterator, "RBR", 7);
-
-                        params.appendChild(new Node_AST(new Token(token.getValue(), "DEF_CALL",
-                                token.getRow(), token.getColumn()), null,
-                                defAST.get(token.getValue()).getRoot().getChildren()));
-                    } else {
-                        params.appendChild(new Node_AST(new Token(token.getValue(), "ID",
-                                token.getRow(), token.getColumn())));
-                    }
+        while (token.getKind() != TokenKind.RBR){
+            tokenEnhancedIterator.nextKind();
+            if (token.getKind() == TokenKind.WORD) {
+                if (tokenEnhancedIterator.peekKind() == TokenKind.LBR) {
+                    isLikeTemplate(tokenEnhancedIterator, TokenKind.LBR, 5);
+                    isLikeTemplate(tokenEnhancedIterator, TokenKind.RBR, 7);
+
+                    int defCall = nodes.add(token.getValue(), TokenKind.DEF_CALL,
+                            token.getRow(), token.getColumn());
+                    nodes.shareChildren(defCall, defRoot(token.getValue()));
+                    nodes.appendChild(params, defCall);
+                } else {
+                    nodes.appendChild(params, nodes.add(token.getValue(), TokenKind.ID,
+                            token.getRow(), token.getColumn()));
                 }
             }
-            else {
-                params.appendChild(parseTernar(tokenEnhancedIterator));
-            }
 
-            if (tokenEnhancedIterator.peek().getType().equals("COMMA"))
-                tokenEnhancedIterator.next();
+            if (tokenEnhancedIterator.peekKind() == TokenKind.COMMA)
+                tokenEnhancedIterator.nextKind();
             else {
-                if (!tokenEnhancedIterator.peek().getType().equals("RBR"))
+                if (tokenEnhancedIterator.peekKind() != TokenKind.RBR)
                     fail(5, tokenEnhancedIterator.peek());
             }
 
@@ -565,250 +805,371 @@ public class Parser {
     }
 
     /**
-     * parse assignment or start parsing ternary
+     * parse expression
      * @param tokenEnhancedIterator - iterator
      * @return - expression node
      * @throws CompilerException - fail will produce this exception
      */
-    private Node_AST parseExp(EnhancedIterator<Token> tokenEnhancedIterator) throws CompilerException {
-        Token token = tokenEnhancedIterator.next(),
-                token2 = tokenEnhancedIterator.next();
-
-        tokenEnhancedIterator.previous();
-        tokenEnhancedIterator.previous();
-        /* parse variable assignment: '<WORD> [("+"|"-"|"/"|"*"|"&"|"|"|"^"|"<<"|">>")]"=" <EXP>' */
-        if (token.getType().equals("WORD") && (token2.getType().equals("ASSIGN") ||
-                                                token2.getType().equals("ADD_ASSIGN") ||
-                                                token2.getType().equals("SUB_ASSIGN") ||
-                                                token2.getType().equals("DIV_ASSIGN") ||
-                                                token2.getType().equals("MUL_ASSIGN") ||
-                                                token2.getType().equals("PERCENT_ASSIGN") ||
-                                                token2.getType().equals("L_SHIFT_ASSIGN") ||
-                                                token2.getType().equals("R_SHIFT_ASSIGN") ||
-                                                token2.getType().equals("BIT_AND_ASSIGN") ||
-                                                token2.getType().equals("BIT_OR_ASSIGN") ||
-                                                token2.getType().equals("BIT_XOR_ASSIGN"))){
-            tokenEnhancedIterator.next();
-            tokenEnhancedIterator.next();
-            Node_AST id = new Node_AST(new Token(token.getValue(), "ID", token.getRow(), token.getColumn())),
-                    assign = new Node_AST(new Token("=", "ASSIGN", token2.getRow(), token2.getColumn())),
-                    exp = parseExp(tokenEnhancedIterator);
-
-            /* do this for any TYPE_ASSIGN */
-            if (!token2.getType().equals("ASSIGN")){
-                Node_AST operation = new Node_AST(new Token(
-                        /* make + from += */
-                        token2.getValue().substring(0, token2.getValue().length()-1),
-                        /* make ADD from ADD_ASSIGN */
-                        token2.getType().substring(0, token2.getType().length()-7),
-                        token2.getRow(), token2.getColumn())),
-                        id2 = new Node_AST(id.getCurrent());
-
-                operation.appendChild(id2);
-                operation.appendChild(exp);
-
-                id2.setParent(operation);
-                exp.setParent(operation);
-
-                assign.appendChild(operation);
-                operation.setParent(assign);
-            }
-            else {
-                assign.appendChild(exp);
-                exp.setParent(assign);
+    private int parseExp(TokenIterator tokenEnhancedIterator) throws CompilerException {
+        depth = 0;
+        push(Rule.EXP, 0);
+        int result = NodeArena.NONE;
+
+        while (true) {
+            Frame frame = frames.get(depth - 1);
+            int done;
+
+            switch (frame.rule){
+                case EXP: done = parseExpStep(frame, result, tokenEnhancedIterator); break;
+                case TERNAR: done = parseTernarStep(frame, result, tokenEnhancedIterator); break;
+                case PRIORITY: done = parsePriorityStep(frame, result, tokenEnhancedIterator); break;
+                case FACTOR: done = parseFactorStep(frame, result, tokenEnhancedIterator); break;
+                default: done = parseParamsStep(frame, result, tokenEnhancedIterator);
             }
 
-            id.appendChild(assign);
-            assign.setParent(id);
+            /* nested rule is pushed, it will be parsed first */
+            if (done == NodeArena.NONE)
+                continue;
 
-            return id;
-        }
-        /* parse ternary operator, or other priority actions */
-        else {
-            return parseTernar(tokenEnhancedIterator);
+            /* rule is finished, its node is result for previous frame */
+            result = done;
+            if (--depth == 0)
+                return result;
         }
     }
 
     /**
-     * parse Ternary operator, or priority actions
+     * push frame of nested rule, frames are reused
+     * @param rule - rule for parsing
+     * @param prior - the biggest priority for PRIORITY rule
+     */
+    private void push(Rule rule, int prior) {
+        if (depth == frames.size())
+            frames.add(new Frame());
+
+        Frame frame = frames.get(depth++);
+        frame.rule = rule;
+        frame.step = 0;
+        frame.prior = prior;
+        frame.first = NodeArena.NONE;
+        frame.second = NodeArena.NONE;
+        frame.token = null;
+    }
+
+    /**
+     * step of assignment, or start parsing ternary
+     * @param frame - frame of rule
+     * @param result - node of finished nested rule
      * @param tokenEnhancedIterator - iterator
-     * @return - node which is useful for expression
+     * @return - expression node, or NONE if nested rule is pushed
      * @throws CompilerException - fail will produce this exception
      */
-    private Node_AST parseTernar(EnhancedIterator<Token> tokenEnhancedIterator) throws CompilerException {
-        /* parse true condition: <EXP>, or priority, if this is not ternary */
-        Node_AST trueCon = parsePriority(15, tokenEnhancedIterator);
-
-        /* parse ternary */
-        if (tokenEnhancedIterator.peek().getType().equals("IF")){
-            tokenEnhancedIterator.next();
+    private int parseExpStep(Frame frame, int result, TokenIterator tokenEnhancedIterator)
+            throws CompilerException {
+        switch (frame.step){
+            case 0: {
+                TokenKind kind = tokenEnhancedIterator.nextKind(),
+                        kind2 = tokenEnhancedIterator.nextKind();
+
+                tokenEnhancedIterator.previous();
+                tokenEnhancedIterator.previous();
+                /* parse variable assignment: '<WORD> [("+"|"-"|"/"|"*"|"&"|"|"|"^"|"<<"|">>")]"=" <EXP>' */
+                if (kind == TokenKind.WORD && kind2.isAssign()){
+                    Token token = tokenEnhancedIterator.next(),
+                            token2 = tokenEnhancedIterator.next();
+                    frame.first = nodes.add(token.getValue(), TokenKind.ID,
+                            token.getRow(), token.getColumn());
+                    frame.second = nodes.add("=", TokenKind.ASSIGN,
+                            token2.getRow(), token2.getColumn());
+                    frame.token = token2;
+
+                    frame.step = 1;
+                    push(Rule.EXP, 0);
+                }
+                /* parse ternary operator, or other priority actions, in the same frame */
+                else {
+                    frame.rule = Rule.TERNAR;
+                }
+                return NodeArena.NONE;
+            }
+            default: {
+                int id = frame.first, assign = frame.second, exp = result;
+                Token token2 = frame.token;
+
+                /* do this for any TYPE_ASSIGN */
+                if (token2.getKind() != TokenKind.ASSIGN){
+                    int operation = nodes.add(
+                            /* make + from += */
+                            token2.getValue().substring(0, token2.getValue().length()-1),
+                            /* make ADD from ADD_ASSIGN */
+                            token2.getKind().getOperation(),
+                            token2.getRow(), token2.getColumn()),
+                            id2 = nodes.duplicate(id);
+
+                    nodes.appendChild(operation, id2);
+                    nodes.appendChild(operation, exp);
+
+                    nodes.setParent(id2, operation);
+                    nodes.setParent(exp, operation);
+
+                    nodes.appendChild(assign, operation);
+                    nodes.setParent(operation, assign);
+                }
+                else {
+                    nodes.appendChild(assign, exp);
+                    nodes.setParent(exp, assign);
+                }
 
-            /* expression for if: IF <EXP> */
-            Node_AST ifExp = parsePriority(15, tokenEnhancedIterator);
+                nodes.appendChild(id, assign);
+                nodes.setParent(assign, id);
 
-            isLikeTemplate(tokenEnhancedIterator, "ELSE", 6);
+                return id;
+            }
+        }
+    }
 
+    /**
+     * step of Ternary operator, or priority actions
+     * @param frame - frame of rule
+     * @param result - node of finished nested rule
+     * @param tokenEnhancedIterator - iterator
+     * @return - node which is useful for expression, or NONE if nested rule is pushed
+     * @throws CompilerException - fail will produce this exception
+     */
+    private int parseTernarStep(Frame frame, int result, TokenIterator tokenEnhancedIterator)
+            throws CompilerException {
+        switch (frame.step){
+            /* parse true condition: <EXP>, or priority, if this is not ternary */
+            case 0: {
+                frame.step = 1;
+                push(Rule.PRIORITY, 15);
+                return NodeArena.NONE;
+            }
+            case 1: {
+                if (tokenEnhancedIterator.peekKind() != TokenKind.IF)
+                    return result;
+
+                /* expression for if: IF <EXP> */
+                tokenEnhancedIterator.nextKind();
+                frame.first = result;
+                frame.step = 2;
+                push(Rule.PRIORITY, 15);
+                return NodeArena.NONE;
+            }
             /* parse ternary: ELSE <TERNAR> */
-            Node_AST elseCon = parseTernar(tokenEnhancedIterator),
-                        ternarNode = new Node_AST(new Token("ternar", "TERNAR",
-                                ifExp.getCurrent().getRow(), ifExp.getCurrent().getColumn()));
-
-            /* set family relations */
-            ifExp.setParent(ternarNode);
-            trueCon.setParent(ternarNode);
-            elseCon.setParent(ternarNode);
-            ternarNode.appendChild(ifExp);
-            ternarNode.appendChild(trueCon);
-            ternarNode.appendChild(elseCon);
-
-            return ternarNode;
-        }
+            case 2: {
+                frame.second = result;
+                isLikeTemplate(tokenEnhancedIterator, TokenKind.ELSE, 6);
+
+                frame.step = 3;
+                push(Rule.TERNAR, 0);
+                return NodeArena.NONE;
+            }
+            default: {
+                int trueCon = frame.first, ifExp = frame.second, elseCon = result,
+                        ternarNode = nodes.add("ternar", TokenKind.TERNAR,
+                                nodes.getRow(ifExp), nodes.getColumn(ifExp));
 
-        return trueCon;
+                /* set family relations */
+                nodes.setParent(ifExp, ternarNode);
+                nodes.setParent(trueCon, ternarNode);
+                nodes.setParent(elseCon, ternarNode);
+                nodes.appendChild(ternarNode, ifExp);
+                nodes.appendChild(ternarNode, trueCon);
+                nodes.appendChild(ternarNode, elseCon);
+
+                return ternarNode;
+            }
+        }
     }
 
     /**
-     * parse all arithmetic/logical/bitwise operators by their priority level
-     * use recursive for going deeper in priority and check equals
-     * @param prior - current level priority
+     * step of all arithmetic/logical/bitwise operators by their priority level
+     * precedence climbing: operators with priority not bigger than prior are taken in loop,
+     * right operand takes only operators with smaller priority, so operators of one level are left-associative
+     * @param frame - frame of rule, prior of frame is the biggest priority, which can be taken
+     * @param result - node of finished nested rule
      * @param tokenEnhancedIterator - iterator
-     * @return - node
+     * @return - node, or NONE if nested rule is pushed
      * @throws CompilerException - fail will produce this exception
      */
-    private Node_AST parsePriority(int prior, EnhancedIterator<Token> tokenEnhancedIterator) throws CompilerException {
-        Node_AST topOperSign = null, left;
+    private int parsePriorityStep(Frame frame, int result, TokenIterator tokenEnhancedIterator)
+            throws CompilerException {
+        switch (frame.step){
+            case 0: {
+                /* variables and numbers are parsed without frame */
+                frame.first = parseSimpleFactor(tokenEnhancedIterator);
+                if (frame.first == NodeArena.NONE){
+                    frame.step = 1;
+                    push(Rule.FACTOR, 0);
+                    return NodeArena.NONE;
+                }
+                break;
+            }
+            case 1: {
+                frame.first = result;
+                break;
+            }
+            default: {
+                int left = frame.first, oper = frame.second, right = result;
 
-        /* exit from recursion, go to parseFactor (top priority method) */
-        if (prior <= 6)
-            left = parseFactor(tokenEnhancedIterator);
-        /* go deeper */
-        else
-            left = parsePriority(prior-1, tokenEnhancedIterator);
+                nodes.appendChild(oper, left);
+                nodes.appendChild(oper, right);
+                nodes.setParent(left, oper);
+                nodes.setParent(right, oper);
 
-        ArrayList<Node_AST> nodeQueue = new ArrayList<>(),
-                            operQueue = new ArrayList<>();
-        nodeQueue.add(left);
+                frame.first = oper;
+            }
+        }
 
-        Token token = tokenEnhancedIterator.peek();
+        /* take operators while they have allowed priority: { <OPER> <EXP> } */
+        int operPrior = PRIORITY[tokenEnhancedIterator.peekKind().ordinal()];
+        if (operPrior != 0 && operPrior <= frame.prior) {
+            frame.second = addNext(tokenEnhancedIterator.nextKind(), tokenEnhancedIterator);
+            frame.step = 2;
+            push(Rule.PRIORITY, operPrior - 1);
+            return NodeArena.NONE;
+        }
 
-        /* if equals operator: <OPER> <EXP> */
-        if (token.getType().matches(priority.get(prior))) {
-            /* check for repeating operators with one priority: { <OPER> <EXP> } */
-            while (token.getType().matches(priority.get(prior))) {
-                tokenEnhancedIterator.next();
+        return frame.first;
+    }
 
-                /* add operator node to list */
-                operQueue.add(new Node_AST(token));
+    /**
+     * step of Factor, top level priority operators
+     * @param frame - frame of rule
+     * @param result - node of finished nested rule
+     * @param tokenEnhancedIterator - iterator
+     * @return - node, or NONE if nested rule is pushed
+     * @throws CompilerException - fail will produce this exception
+     */
+    private int parseFactorStep(Frame frame, int result, TokenIterator tokenEnhancedIterator)
+            throws CompilerException {
+        switch (frame.step){
+            case 0: {
+                int simple = parseSimpleFactor(tokenEnhancedIterator);
+                if (simple != NodeArena.NONE)
+                    return simple;
 
-                Node_AST node;
-                /* exit from recursion, go to parseFactor (top priority method) */
-                if (prior <= 6)
-                    node = parseFactor(tokenEnhancedIterator);
-                /* go deeper */
-                else
-                    node = parsePriority(prior-1, tokenEnhancedIterator);
+                Token token = tokenEnhancedIterator.next();
 
-                /* add right node to list */
-                nodeQueue.add(node);
+                /* parse ' "(" <EXP> ")" ' */
+                if (token.getKind() == TokenKind.LBR){
+                    frame.step = 1;
+                    push(Rule.TERNAR, 0);
+                    return NodeArena.NONE;
+                }
+                /* parse ' <UNAR> <EXP> ' */
+                if (token.getKind().toUnary() != null){
+                    frame.first = nodes.add(token.getValue(), token.getKind().toUnary(),
+                            token.getRow(), token.getColumn());
+                    frame.step = 2;
+                    push(Rule.FACTOR, 0);
+                    return NodeArena.NONE;
+                }
+                /* parse function calling: ' <WORD> "(" <PARAMS> ")" ' */
+                if (token.getKind() != TokenKind.WORD)
+                    fail(3, token);
 
-                token = tokenEnhancedIterator.peek();
+                isLikeTemplate(tokenEnhancedIterator, TokenKind.LBR, 5);
+
+                /* parsing method parameters */
+                frame.token = token;
+                frame.step = 3;
+                push(Rule.PARAMS, 0);
+                return NodeArena.NONE;
             }
+            case 1: {
+                isLikeTemplate(tokenEnhancedIterator, TokenKind.RBR, 5);
 
-            /*
-            * reverse lists for going back because
-            * first operator in row of one level operators
-            * must be calculated first
-            */
-            Collections.reverse(operQueue);
-            Collections.reverse(nodeQueue);
+                return result;
+            }
+            case 2: {
+                int oper = frame.first;
+                nodes.appendChild(oper, result);
+                nodes.setParent(result, oper);
+                return oper;
+            }
+            default: {
+                int params = result;
+                Token token = frame.token;
 
-            EnhancedIterator<Node_AST> enhancedIteratorOper = new EnhancedIterator<>(operQueue);
-            EnhancedIterator<Node_AST> enhancedIteratorNode = new EnhancedIterator<>(nodeQueue);
-            topOperSign = enhancedIteratorOper.next();
-            topOperSign.appendChild(enhancedIteratorNode.next());
+                isLikeTemplate(tokenEnhancedIterator, TokenKind.RBR, 7);
 
-            /* create relations in backwards order */
-            while (enhancedIteratorOper.hasNext()) {
-                Node_AST deepest = topOperSign.getDeepestLeft(),
-                        tmpOper = enhancedIteratorOper.next(),
-                        tmpNode = enhancedIteratorNode.next();
+                int def_call = nodes.add(token.getValue(), TokenKind.DEF_CALL,
+                        token.getRow(), token.getColumn());
 
-                tmpOper.appendChild(tmpNode);
-                tmpNode.setParent(tmpOper);
+                nodes.setParent(params, def_call);
+                nodes.appendChild(def_call, params);
 
-                deepest.setFirstChild(tmpOper);
-                tmpOper.setParent(deepest);
+                return def_call;
             }
-            topOperSign.getDeepestLeft().setFirstChild(enhancedIteratorNode.next());
         }
-
-        /* return call stack, or only left, if one element */
-        return topOperSign == null ? left : topOperSign;
     }
 
     /**
-     * parse Factor, top level priority operators
+     * parse getter from var: ' <WORD> ', or number: ' <NUM> '
      * @param tokenEnhancedIterator - iterator
-     * @return - node
+     * @return - node, or NONE if factor is not variable or number
      * @throws CompilerException - fail will produce this exception
      */
-    private Node_AST parseFactor(EnhancedIterator<Token> tokenEnhancedIterator) throws CompilerException {
-        Token token = tokenEnhancedIterator.next();
+    private int parseSimpleFactor(TokenIterator tokenEnhancedIterator) throws CompilerException {
+        TokenKind kind = tokenEnhancedIterator.nextKind();
 
-        Node_AST oper;
+        if (kind == TokenKind.WORD && tokenEnhancedIterator.peekKind() != TokenKind.LBR)
+            return addNext(TokenKind.ID, tokenEnhancedIterator);
+        if (kind == TokenKind.INT)
+            return addNext(kind, tokenEnhancedIterator);
+        /* parse <NUM> to <INT> */
+        if (VALUE_KINDS.contains(kind))
+            return parseExpression(tokenEnhancedIterator.current());
 
-        /* parse ' "(" <EXP> ")" ' */
-        if (token.getType().equals("LBR")){
-            Node_AST exp = parseTernar(tokenEnhancedIterator);
-            isLikeTemplate(tokenEnhancedIterator, "RBR", 5);
+        tokenEnhancedIterator.previous();
+        return NodeArena.NONE;
+    }
+
+    /**
+     * create node on current token, Token object is not created
+     * @param kind - kind of node
+     * @param tokenEnhancedIterator - iterator
+     * @return - node
+     */
+    private int addNext(TokenKind kind, TokenIterator tokenEnhancedIterator) {
+        return nodes.add(tokenEnhancedIterator.currentValue(), kind,
+                tokenEnhancedIterator.currentRow(), tokenEnhancedIterator.currentColumn());
+    }
 
-            return exp;
+    /**
+     * step of parameters of function calling
+     * @param frame - frame of rule
+     * @param result - node of finished nested rule
+     * @param tokenEnhancedIterator - iterator
+     * @return - parameters node, or NONE if nested rule is pushed
+     * @throws CompilerException - fail will produce this exception
+     */
+    private int parseParamsStep(Frame frame, int result, TokenIterator tokenEnhancedIterator)
+            throws CompilerException {
+        if (frame.step == 0){
+            frame.first = nodes.add("params", TokenKind.PARAMS,
+                    tokenEnhancedIterator.peek().getRow(), tokenEnhancedIterator.peek().getColumn());
+            frame.step = 1;
         }
-        /* parse ' <UNAR> <EXP> ' */
         else {
-            if (token.getType().matches("(ADD)|(SUB)|(NOT)")){
-                oper = new Node_AST(new Token(token.getValue(), "UNAR_"+token.getType(),
-                                                token.getRow(), token.getColumn()));
-                Node_AST nextFactor = parseFactor(tokenEnhancedIterator);
-                oper.appendChild(nextFactor);
-                nextFactor.setParent(oper);
-                return oper;
-            }
-            /* parse getter from var: ' <WORD> ' */
-            else {
-                if (token.getType().equals("WORD")){
-                    if (tokenEnhancedIterator.peek().getType().equals("LBR")){
-                        isLikeTemplate(tokenEnhancedIterator, "LBR", 5);
-
-                        /* parsing method parameters */
-                        Node_AST params = parseParams(tokenEnhancedIterator, false);
+            nodes.appendChild(frame.first, result);
 
-                        isLikeTemplate(tokenEnhancedIterator, "RBR", 7);
-
-                        Node_AST def_call = new Node_AST(new Token(token.getValue(), "DEF_CALL",
-                                token.getRow(), token.getColumn()));
-
-                        params.setParent(def_call);
-                        def_call.appendChild(params);
-
-                        return def_call;
-                    }
-                    else {
-                        return new Node_AST(new Token(token.getValue(), "ID", token.getRow(), token.getColumn()));
-                    }
-                }
-                /* parse number: ' <NUM> ' */
-                else {
-                    if (token.getType().matches("(INT)|(FLOAT)|(BINNUM)|(OCTNUM)|(HEXNUM)|(STRING)")) {
-                        /* parse <NUM> to <INT> */
-                        return parseExpression(token);
-                    } else {
-                        fail(3, token);
-                    }
-                }
+            if (tokenEnhancedIterator.peekKind() == TokenKind.COMMA)
+                tokenEnhancedIterator.nextKind();
+            else {
+                if (tokenEnhancedIterator.peekKind() != TokenKind.RBR)
+                    fail(5, tokenEnhancedIterator.peek());
             }
         }
-        return null;
+
+        if (tokenEnhancedIterator.peekKind() != TokenKind.RBR){
+            push(Rule.TERNAR, 0);
+            return NodeArena.NONE;
+        }
+
+        return frame.first;
     }
 
     /**
@@ -817,14 +1178,14 @@ public class Parser {
      * @return - int node
      * @throws CompilerException - fail will produce this exception
      */
-    private Node_AST parseExpression(Token token) throws CompilerException {
+    private int parseExpression(Token token) throws CompilerException {
         String value = token.getValue();
 
-        switch (token.getType()){
-            case "INT": {
-                return new Node_AST(token);
+        switch (token.getKind()){
+            case INT: {
+                return nodes.add(token);
             }
-            case "FLOAT": {
+            case FLOAT: {
                 StringBuilder casted = new StringBuilder();
                 for (char ch: value.toCharArray()) {
                     /* stop on <.> */
@@ -833,25 +1194,25 @@ public class Parser {
                     }
                     casted.append(ch);
                 }
-                return new Node_AST(new Token(casted.toString(),
-                        "INT(FLOAT)", token.getRow(), token.getColumn()));
+                return nodes.add(casted.toString(),
+                        TokenKind.INT_FLOAT, token.getRow(), token.getColumn());
             }
-            case "HEXNUM": {
-                return new Node_AST(new Token(Long.decode(value).toString(),
-                        "INT(HEXNUM)", token.getRow(), token.getColumn()));
+            case HEXNUM: {
+                return nodes.add(Long.decode(value).toString(),
+                        TokenKind.INT_HEXNUM, token.getRow(), token.getColumn());
             }
-            case "OCTNUM": {
-                return new Node_AST(new Token(Integer.parseInt(value.substring(2), 8)+"",
-                        "INT(OCTNUM)", token.getRow(), token.getColumn()));
+            case OCTNUM: {
+                return nodes.add(Integer.parseInt(value.substring(2), 8)+"",
+                        TokenKind.INT_OCTNUM, token.getRow(), token.getColumn());
             }
-            case "BINNUM": {
-                return new Node_AST(new Token(Integer.parseInt(value.substring(2), 2)+"",
-                        "INT(BINNUM)", token.getRow(), token.getColumn()));
+            case BINNUM: {
+                return nodes.add(Integer.parseInt(value.substring(2), 2)+"",
+                        TokenKind.INT_BINNUM, token.getRow(), token.getColumn());
             }
-            case "STRING": {
+            case STRING: {
                 if (value.length() == 3){
-                    return new Node_AST(new Token((int)value.toCharArray()[1]+"",
-                            "INT(CHAR)", token.getRow(), token.getColumn()));
+                    return nodes.add((int)value.toCharArray()[1]+"",
+                            TokenKind.INT_CHAR, token.getRow(), token.getColumn());
                 }
                 else {
                     fail(2, token);
@@ -859,7 +1220,50 @@ public class Parser {
                 break;
             }
         }
-        return null;
+        return NodeArena.NONE;
+    }
+
+    /**
+     * remember error and skip tokens to the end of line with error and lines nested deeper than it,
+     * so parsing is continued from next statement
+     * when limit of errors is reached, all tokens are skipped
+     * @param error - found error
+     * @param spaceCount - spaces count in statement with error
+     * @param tokenEnhancedIterator - iterator
+     * @throws CompilerException - error is thrown again, if parser is not in recovery mode
+     */
+    private void recover(CompilerException error, int spaceCount, TokenIterator tokenEnhancedIterator)
+            throws CompilerException {
+        if (maxErrors == 0)
+            throw error;
+
+        errors.add(error);
+        if (errors.size() >= maxErrors){
+            while (tokenEnhancedIterator.hasNext())
+                tokenEnhancedIterator.nextKind();
+            return;
+        }
+
+        skipLine(tokenEnhancedIterator);
+
+        /* skip nested lines, they can be block of statement with error */
+        while (tokenEnhancedIterator.hasNext()){
+            if (tokenEnhancedIterator.nextKind() != TokenKind.INDENT ||
+                    tokenEnhancedIterator.currentIndentWidth() <= spaceCount){
+                tokenEnhancedIterator.previous();
+                break;
+            }
+            skipLine(tokenEnhancedIterator);
+        }
+    }
+
+    /**
+     * go to NEW_LINE token, which ends current line
+     * @param tokenEnhancedIterator - iterator
+     */
+    private void skipLine(TokenIterator tokenEnhancedIterator) {
+        while (tokenEnhancedIterator.currentKind() != TokenKind.NEW_LINE && tokenEnhancedIterator.hasNext())
+            tokenEnhancedIterator.nextKind();
     }
 
     /**
@@ -909,6 +1313,40 @@ public class Parser {
         throw new CompilerException(msg, token);
     }
 
+    /**
+     * getter for syntax errors, which are found in recovery mode
+     * @return - errors in order of tokens
+     */
+    public ArrayList<CompilerException> getErrors() {
+        return errors;
+    }
+
+    /**
+     * test if limit of errors is reached and parsing was stopped
+     * @return - is parsing stopped
+     */
+    public boolean isStopped() {
+        return maxErrors > 0 && errors.size() >= maxErrors;
+    }
+
+    /**
+     * find root of function for call in parameters, function of earlier part of source is copied to own arena once
+     * @param name - name of function
+     * @return - root of function in own arena
+     */
+    private int defRoot(String name) {
+        if (defAST.containsKey(name) || knownDefs == null || !knownDefs.containsKey(name))
+            return defAST.get(name).getRoot();
+
+        Integer root = importedDefs.get(name);
+        if (root == null) {
+            AST def = knownDefs.get(name);
+            root = nodes.copy(def.getNodes(), def.getRoot());
+            importedDefs.put(name, root);
+        }
+        return root;
+    }
+
     /**
      * getter for map with functions AST
      * @return - map
@@ -917,6 +1355,14 @@ public class Parser {
         return defAST;
     }
 
+    /**
+     * getter for names of functions of earlier parts of source, which are used by this part
+     * @return - set of names
+     */
+    public Set<String> getImportedDefs() {
+        return importedDefs.keySet();
+    }
+
     /**
      * getter for main AST
      * @return - main AST
@@ -0,0 +1,559 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * Class describe peephole optimizer of generated asm instructions
+ * code is changed in place: window pass looks at last instructions of already optimized code
+ * and removes pairs of push/pop and redundant moves, jump pass makes jumps shorter and removes
+ * jumps to next instruction, not used labels and unreachable code, passes are repeated while code is changed
+ *
+ * rules rely on properties of code made by asm creator:
+ * flags are read only by SETcc and Jcc right after CMP, so removed or added moves don't change them,
+ * variables are addressed by ebp and are never below esp, so pushed values are not changed by stores to variables
+ */
+public class Peephole {
+    /* max count of instructions between push and pop, which are joined */
+    public static final int WINDOW = 4;
+    /* bit of memory in masks of used registers */
+    private static final int MEMORY = 1 << 8;
+    /* bit of esp in masks of used registers */
+    private static final int STACK = 1 << Register.ESP.ordinal();
+
+    /* optimized code */
+    private final InstructionBuffer code;
+    /* true if last pass changed code */
+    private boolean changed;
+
+    /**
+     * create optimizer of code
+     * @param code - instructions, which are changed by optimize()
+     */
+    public Peephole(InstructionBuffer code){
+        this.code = code;
+    }
+
+    /**
+     * optimize part of code, which is not connected by jumps with other parts, for example all procedures
+     * next instructions are moved to the end of optimized part
+     * @param start - index of first instruction
+     * @param end - index after last instruction
+     * @return - index after last instruction of optimized part
+     */
+    public int optimize(int start, int end){
+        int size = end;
+        do {
+            changed = false;
+            size = jumpPass(start, windowPass(start, size));
+        } while (changed);
+
+        code.remove(size, end);
+        return size;
+    }
+
+    /**
+     * copy instructions one by one to the end of optimized code and apply rules to its last instructions
+     * @param start - index of first instruction
+     * @param end - index after last instruction
+     * @return - index after last instruction of optimized code
+     */
+    private int windowPass(int start, int end){
+        int size = start;
+        for (int i = start; i < end; i++) {
+            code.copy(i, size++);
+            int reduced;
+            while ((reduced = reduce(start, size)) != size)
+                size = reduced;
+        }
+        return size;
+    }
+
+    /**
+     * apply first suitable rule to the last instructions
+     * @param start - index of first instruction
+     * @param size - index after last instruction
+     * @return - new index after last instruction, size if no rule was applied
+     */
+    private int reduce(int start, int size){
+        int last = size - 1;
+        Opcode opcode = code.getOpcode(last);
+        long first = code.getFirst(last), second = code.getSecond(last);
+
+        /* mov x, x */
+        if (opcode == Opcode.MOV && first == second)
+            return remove(last, size);
+
+        /* add esp, 0 and neighbour changes of esp */
+        if (isStackChange(last)){
+            int value = stackChange(last);
+            if (value == 0)
+                return remove(last, size);
+            if (last > start && isStackChange(last - 1)){
+                setStackChange(last - 1, stackChange(last - 1) + value);
+                return remove(last, size);
+            }
+        }
+
+        if (last == start)
+            return size;
+        Opcode previous = code.getOpcode(last - 1);
+
+        /* mov a, b; mov b, a */
+        if (opcode == Opcode.MOV && previous == Opcode.MOV &&
+                code.getFirst(last - 1) == second && code.getSecond(last - 1) == first)
+            return remove(last, size);
+
+        /* mov m, r1; mov r2, m => mov r2, r1 */
+        if (opcode == Opcode.MOV && previous == Opcode.MOV && Operand.getKind(second) == Operand.MEMORY &&
+                code.getFirst(last - 1) == second && isFullRegister(code.getSecond(last - 1)) && isFullRegister(first)){
+            code.set(last, Opcode.MOV, first, code.getSecond(last - 1), code.getCommentId(last));
+            return size;
+        }
+
+        /* push a; ...; pop b */
+        if (opcode == Opcode.POP){
+            int reduced = joinPushPop(start, size);
+            if (reduced != size)
+                return reduced;
+        }
+
+        /* mov r1, a; mov r2, r1; r1 is changed without reading => mov r2, a */
+        if (last - 2 >= start && previous == Opcode.MOV && code.getOpcode(last - 2) == Opcode.MOV){
+            long copied = code.getFirst(last - 2), target = code.getFirst(last - 1);
+            if (isFullRegister(copied) && isFullRegister(target) && copied != target &&
+                    code.getSecond(last - 1) == copied && overwrites(last, copied)){
+                code.set(last - 2, Opcode.MOV, target, code.getSecond(last - 2), code.getCommentId(last - 2));
+                return remove(last - 1, size);
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * join last pop with push before it, instructions between them must not use stack
+     * pair is removed, if value stays in place, or it is changed to move
+     * @param start - index of first instruction
+     * @param size - index after last instruction, last instruction is pop
+     * @return - new index after last instruction, size if pair is not found
+     */
+    private int joinPushPop(int start, int size){
+        int pop = size - 1;
+        long target = code.getFirst(pop);
+        int reads = 0, writes = 0;
+
+        for (int push = pop - 1; push >= start && push >= pop - 1 - WINDOW; push--) {
+            if (code.getOpcode(push) == Opcode.PUSH){
+                long value = code.getFirst(push);
+
+                /* move value at place of pop, value must not be changed between */
+                if ((writes & uses(value)) == 0 &&
+                        !(Operand.getKind(value) == Operand.MEMORY && Operand.getKind(target) == Operand.MEMORY)){
+                    int comment = code.getCommentId(pop) != InstructionBuffer.NO_COMMENT ?
+                            code.getCommentId(pop) : code.getCommentId(push);
+                    size = remove(push, size);
+                    if (value == target)
+                        return remove(size - 1, size);
+                    code.set(size - 1, Opcode.MOV, target, value, comment);
+                    return size;
+                }
+
+                /* move value at place of push, target must not be used between */
+                if (Operand.getKind(target) == Operand.REGISTER && ((reads | writes) & uses(target)) == 0){
+                    int comment = code.getCommentId(push) != InstructionBuffer.NO_COMMENT ?
+                            code.getCommentId(push) : code.getCommentId(pop);
+                    if (value == target)
+                        size = remove(push, size);
+                    else
+                        code.set(push, Opcode.MOV, target, value, comment);
+                    return remove(size - 1, size);
+                }
+                return size;
+            }
+
+            int read = reads(push), written = writes(push);
+            if (read < 0 || ((read | written) & STACK) != 0)
+                return size;
+            reads |= read;
+            writes |= written;
+        }
+        return size;
+    }
+
+    /**
+     * test that instruction writes whole register without reading it
+     * @param id - index of instruction
+     * @param register - register operand
+     * @return - true if old value of register is not used
+     */
+    private boolean overwrites(int id, long register){
+        switch (code.getOpcode(id)){
+            case MOV:
+                return code.getFirst(id) == register && (uses(code.getSecond(id)) & uses(register)) == 0;
+            case POP:
+                return code.getFirst(id) == register;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * test that instruction is add or sub of esp and immediate
+     * @param id - index of instruction
+     * @return - result of test
+     */
+    private boolean isStackChange(int id){
+        return (code.getOpcode(id) == Opcode.ADD || code.getOpcode(id) == Opcode.SUB) &&
+                code.getFirst(id) == Operand.register(Register.ESP) &&
+                Operand.getKind(code.getSecond(id)) == Operand.IMMEDIATE;
+    }
+
+    /**
+     * getter for value added to esp by add or sub
+     * @param id - index of instruction
+     * @return - added value
+     */
+    private int stackChange(int id){
+        int value = Operand.getValue(code.getSecond(id));
+        return code.getOpcode(id) == Opcode.ADD ? value : -value;
+    }
+
+    /**
+     * change add or sub of esp to instruction, which adds value
+     * @param id - index of instruction
+     * @param value - added value
+     */
+    private void setStackChange(int id, int value){
+        code.set(id, value < 0 ? Opcode.SUB : Opcode.ADD, Operand.register(Register.ESP),
+                Operand.immediate(Math.abs(value)), code.getCommentId(id));
+    }
+
+    /**
+     * make jumps shorter and remove not needed jumps, labels and unreachable code
+     * @param start - index of first instruction
+     * @param end - index after last instruction
+     * @return - index after last instruction of optimized code
+     */
+    private int jumpPass(int start, int end){
+        /* places of labels, labels with the same name are not changed */
+        HashMap<Long, Integer> labels = new HashMap<>();
+        HashSet<Long> duplicates = new HashSet<>();
+        for (int i = start; i < end; i++) {
+            if (code.getOpcode(i) == Opcode.LABEL && labels.put(code.getFirst(i), i) != null)
+                duplicates.add(code.getFirst(i));
+        }
+
+        /* jump to label before other jump goes to target of that jump */
+        for (int i = start; i < end; i++) {
+            if (!isJump(i))
+                continue;
+            long label = code.getFirst(i), target = finalTarget(label, labels, duplicates, end);
+            if (target != label){
+                code.set(i, code.getOpcode(i), target, Operand.NONE, code.getCommentId(i));
+                changed = true;
+            }
+        }
+
+        /* count of reachable jumps to labels, labels without them are not needed */
+        boolean[] reachable = findReachable(start, end, labels, duplicates);
+        HashMap<Long, Integer> references = new HashMap<>();
+        for (int i = start; i < end; i++) {
+            if (reachable[i - start] && isJump(i))
+                references.merge(code.getFirst(i), 1, Integer::sum);
+        }
+
+        int size = start;
+        for (int i = start; i < end; i++) {
+            Opcode opcode = code.getOpcode(i);
+
+            /* alignment is kept only before reachable instruction */
+            boolean kept = opcode == Opcode.PROC || opcode == Opcode.ENDP ||
+                    opcode == Opcode.ALIGN && i + 1 < end && reachable[i + 1 - start];
+            if (opcode == Opcode.LABEL && references.getOrDefault(code.getFirst(i), 0) == 0 ||
+                    !reachable[i - start] && !kept){
+                changed = true;
+                continue;
+            }
+
+            if (isJump(i) && !duplicates.contains(code.getFirst(i))){
+                long label = code.getFirst(i);
+
+                /* jump to next instruction */
+                if (isNextLabel(label, i + 1, end)){
+                    references.merge(label, -1, Integer::sum);
+                    changed = true;
+                    continue;
+                }
+
+                /* je a; jmp b; a: => jne b; a: */
+                if (opcode != Opcode.JMP && i + 2 < end && code.getOpcode(i + 1) == Opcode.JMP &&
+                        code.getOpcode(i + 2) == Opcode.LABEL && code.getFirst(i + 2) == label){
+                    code.set(i + 1, opposite(opcode), code.getFirst(i + 1), Operand.NONE,
+                            code.getCommentId(i) != InstructionBuffer.NO_COMMENT ?
+                                    code.getCommentId(i) : code.getCommentId(i + 1));
+                    references.merge(label, -1, Integer::sum);
+                    changed = true;
+                    continue;
+                }
+            }
+
+            code.copy(i, size++);
+        }
+        return size;
+    }
+
+    /**
+     * find instructions, which can be executed: procedures are started from the first instruction,
+     * next instruction is executed after all instructions except JMP and RET, jump goes to all labels with its name
+     * @param start - index of first instruction
+     * @param end - index after last instruction
+     * @param labels - places of labels
+     * @param duplicates - labels with the same name
+     * @return - flags of reachable instructions, index of flag is index of instruction minus start
+     */
+    private boolean[] findReachable(int start, int end, HashMap<Long, Integer> labels, HashSet<Long> duplicates){
+        boolean[] reachable = new boolean[end - start];
+        ArrayDeque<Integer> entries = new ArrayDeque<>();
+        /* places of labels with the same name, they are found once, not for every jump */
+        HashMap<Long, ArrayList<Integer>> places = new HashMap<>();
+        for (int i = start; i < end; i++) {
+            if (i == start || code.getOpcode(i) == Opcode.PROC)
+                entries.push(i);
+            if (code.getOpcode(i) == Opcode.LABEL && duplicates.contains(code.getFirst(i)))
+                places.computeIfAbsent(code.getFirst(i), label -> new ArrayList<>()).add(i);
+        }
+
+        while (!entries.isEmpty()){
+            for (int i = entries.pop(); i < end && !reachable[i - start]; i++) {
+                reachable[i - start] = true;
+                Opcode opcode = code.getOpcode(i);
+
+                if (isJump(i)){
+                    long label = code.getFirst(i);
+                    if (duplicates.contains(label)){
+                        for (int place : places.get(label))
+                            entries.push(place);
+                    }
+                    else if (labels.containsKey(label))
+                        entries.push(labels.get(label));
+                }
+                if (opcode == Opcode.JMP || opcode == Opcode.RET || opcode == Opcode.ENDP)
+                    break;
+            }
+        }
+        return reachable;
+    }
+
+    /**
+     * find label, which is reached by jumping to label, jumps after labels are passed
+     * @param label - label operand
+     * @param labels - places of labels
+     * @param duplicates - labels with the same name
+     * @param end - index after last instruction
+     * @return - final label, or the same label if jumps go round
+     */
+    private long finalTarget(long label, HashMap<Long, Integer> labels, HashSet<Long> duplicates, int end){
+        HashSet<Long> visited = new HashSet<>();
+        long target = label;
+        while (visited.add(target)){
+            long next = jumpAfter(target, labels, duplicates, end);
+            if (next == Operand.NONE)
+                return target;
+            target = next;
+        }
+        return label;
+    }
+
+    /**
+     * find target of jump, which is the first instruction after label
+     * @param label - label operand
+     * @param labels - places of labels
+     * @param duplicates - labels with the same name
+     * @param end - index after last instruction
+     * @return - target label, Operand.NONE if there is no such jump or label is not known
+     */
+    private long jumpAfter(long label, HashMap<Long, Integer> labels, HashSet<Long> duplicates, int end){
+        Integer place = labels.get(label);
+        if (place == null || duplicates.contains(label))
+            return Operand.NONE;
+
+        int i = place + 1;
+        while (i < end && code.getOpcode(i) == Opcode.LABEL)
+            i++;
+        if (i == end || code.getOpcode(i) != Opcode.JMP)
+            return Operand.NONE;
+
+        long target = code.getFirst(i);
+        return labels.containsKey(target) && !duplicates.contains(target) ? target : Operand.NONE;
+    }
+
+    /**
+     * test that label is placed before next instruction
+     * @param label - label operand
+     * @param id - index of next instruction
+     * @param end - index after last instruction
+     * @return - result of test
+     */
+    private boolean isNextLabel(long label, int id, int end){
+        for (int i = id; i < end && code.getOpcode(i) == Opcode.LABEL; i++) {
+            if (code.getFirst(i) == label)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * test that instruction is jump to label
+     * @param id - index of instruction
+     * @return - result of test
+     */
+    private boolean isJump(int id){
+        switch (code.getOpcode(id)){
+            case JMP:
+            case JE:
+            case JNE:
+            case JG:
+            case JGE:
+            case JL:
+            case JLE:
+                return Operand.getKind(code.getFirst(id)) == Operand.LABEL;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * getter for conditional jump with opposite condition
+     * @param jump - conditional jump
+     * @return - jump, which is made when jump is not made
+     */
+    private static Opcode opposite(Opcode jump){
+        switch (jump){
+            case JE: return Opcode.JNE;
+            case JNE: return Opcode.JE;
+            case JG: return Opcode.JLE;
+            case JLE: return Opcode.JG;
+            case JGE: return Opcode.JL;
+            default: return Opcode.JGE;
+        }
+    }
+
+    /**
+     * remove instruction of optimized code
+     * @param id - index of instruction
+     * @param size - index after last instruction
+     * @return - new index after last instruction
+     */
+    private int remove(int id, int size){
+        for (int i = id + 1; i < size; i++)
+            code.copy(i, i - 1);
+        return size - 1;
+    }
+
+    /**
+     * mask of registers, which are read by instruction
+     * @param id - index of instruction
+     * @return - mask, -1 if instruction is not simple moving or arithmetic
+     */
+    private int reads(int id){
+        long first = code.getFirst(id), second = code.getSecond(id);
+        switch (code.getOpcode(id)){
+            case MOV:
+                return uses(second) | address(first);
+            case ADD:
+            case SUB:
+            case IMUL:
+            case AND:
+            case OR:
+            case XOR:
+            case SAL:
+            case SAR:
+            case CMP:
+                return uses(first) | uses(second);
+            case NEG:
+            case INC:
+            case DEC:
+            case SETE:
+            case SETNE:
+            case SETG:
+            case SETGE:
+            case SETL:
+            case SETLE:
+                return uses(first);
+            case CDQ:
+                return mask(Register.EAX);
+            case IDIV:
+                return uses(first) | mask(Register.EAX) | mask(Register.EDX);
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * mask of registers, which are written by instruction
+     * @param id - index of instruction
+     * @return - mask, -1 if instruction is not simple moving or arithmetic
+     */
+    private int writes(int id){
+        long first = code.getFirst(id);
+        switch (code.getOpcode(id)){
+            case CMP:
+                return 0;
+            case CDQ:
+                return mask(Register.EDX);
+            case IDIV:
+                return mask(Register.EAX) | mask(Register.EDX);
+            default:
+                return reads(id) < 0 ? -1 : uses(first) & ~address(first);
+        }
+    }
+
+    /**
+     * mask of registers and memory used by operand
+     * @param operand - operand
+     * @return - mask
+     */
+    private static int uses(long operand){
+        switch (Operand.getKind(operand)){
+            case Operand.REGISTER:
+                return mask(Operand.getRegister(operand));
+            case Operand.MEMORY:
+                return mask(Operand.getRegister(operand)) | MEMORY;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * mask of registers used for address of memory operand
+     * @param operand - operand
+     * @return - mask, 0 if operand is not memory
+     */
+    private static int address(long operand){
+        return Operand.getKind(operand) == Operand.MEMORY ? mask(Operand.getRegister(operand)) : 0;
+    }
+
+    /**
+     * mask of register, byte registers are parts of 32-bit registers
+     * @param register - register
+     * @return - mask
+     */
+    private static int mask(Register register){
+        switch (register){
+            case AL: return 1 << Register.EAX.ordinal();
+            case CL: return 1 << Register.ECX.ordinal();
+            default: return 1 << register.ordinal();
+        }
+    }
+
+    /**
+     * test that operand is 32-bit register
+     * @param operand - operand
+     * @return - result of test
+     */
+    private static boolean isFullRegister(long operand){
+        return Operand.getKind(operand) == Operand.REGISTER &&
+                Operand.getRegister(operand) != Register.AL && Operand.getRegister(operand) != Register.CL;
+    }
+}
@@ -0,0 +1,30 @@
+import java.util.Locale;
+
+/**
+ * Enum describe x86 registers used in generated code
+ */
+public enum Register {
+    /* 32-bit registers */
+    EAX, EBX, ECX, EDX, ESI, EDI, EBP, ESP,
+
+    /* byte registers for SETcc result and shift count */
+    AL, CL;
+
+    /* name of register in asm text */
+    private final String registerName;
+
+    /**
+     * create register with lower case name of enum constant
+     */
+    Register() {
+        this.registerName = name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * getter for register name
+     * @return - name of register in asm text
+     */
+    public String getRegisterName() {
+        return registerName;
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * Class describe stack of values of expression, which code is being made
+ * top values are kept in registers, values under them are spilled to machine stack,
+ * so spilled values are always the bottom of stack and are taken back by pop in reverse order
+ * eax, ecx and edx are not used for values, they are free for idiv, shifts and setcc
+ */
+public class RegisterStack {
+    /* registers for values, lower registers are taken first, edi is the last, so it can be given to cycle variable */
+    public static final Register[] POOL = {Register.EBX, Register.ESI, Register.EDI};
+
+    /* count of values in machine stack */
+    private int spilled;
+    /* registers of top values, registers[0] is the lowest value */
+    private final Register[] registers;
+    /* count of values in registers */
+    private int count;
+
+    /**
+     * create empty stack
+     */
+    public RegisterStack(){
+        this(POOL.length);
+    }
+
+    /**
+     * create empty stack, which uses only first registers of pool
+     * @param size - count of used registers
+     */
+    public RegisterStack(int size){
+        this.registers = new Register[size];
+    }
+
+    /**
+     * take free register for new top value, the lowest value in register is spilled if all registers are taken
+     * @param code - code for appending
+     * @return - register operand of new value
+     */
+    public long allocate(InstructionBuffer code){
+        if (count == registers.length){
+            code.add(Opcode.PUSH, Operand.register(registers[0]));
+            System.arraycopy(registers, 1, registers, 0, --count);
+            spilled++;
+        }
+        Register register = freeRegister();
+        registers[count++] = register;
+        return Operand.register(register);
+    }
+
+    /**
+     * put spilled values back to registers, so top values are in registers
+     * @param values - count of top values, not bigger than count of registers
+     * @param code - code for appending
+     */
+    public void load(int values, InstructionBuffer code){
+        while (count < values){
+            Register register = freeRegister();
+            code.add(Opcode.POP, Operand.register(register));
+            System.arraycopy(registers, 0, registers, 1, count++);
+            registers[0] = register;
+            spilled--;
+        }
+    }
+
+    /**
+     * getter for register of value, value must be loaded
+     * @param depth - place of value from top, 0 for top value
+     * @return - register operand
+     */
+    public long get(int depth){
+        return Operand.register(registers[count - 1 - depth]);
+    }
+
+    /**
+     * remove top values, which are in registers, their registers become free
+     * @param values - count of values
+     */
+    public void drop(int values){
+        count -= values;
+    }
+
+    /**
+     * put value of free register to top
+     * @param register - register operand
+     */
+    public void push(long register){
+        registers[count++] = Operand.getRegister(register);
+    }
+
+    /**
+     * move all values from registers to machine stack, it is made before calling and branching,
+     * values in machine stack are not changed by called function and are the same after every branch
+     * @param code - code for appending
+     */
+    public void spill(InstructionBuffer code){
+        for (int i = 0; i < count; i++)
+            code.add(Opcode.PUSH, Operand.register(registers[i]));
+        spilled += count;
+        count = 0;
+    }
+
+    /**
+     * remove top values of machine stack, which are removed from it by code
+     * @param values - count of values
+     */
+    public void discard(int values){
+        spilled -= values;
+    }
+
+    /**
+     * getter for count of values
+     * @return - count of values in registers and machine stack
+     */
+    public int size(){
+        return spilled + count;
+    }
+
+    /**
+     * find register, which has no value
+     * @return - register
+     */
+    private Register freeRegister(){
+        for (int j = 0; j < registers.length; j++) {
+            Register register = POOL[j];
+            boolean taken = false;
+            for (int i = 0; i < count; i++)
+                taken |= registers[i] == register;
+            if (!taken)
+                return register;
+        }
+        throw new IllegalStateException("all registers are taken");
+    }
+}
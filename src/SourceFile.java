@@ -0,0 +1,48 @@
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Class for reading source files
+ * file is mapped to memory and decoded in one pass,
+ * so only decoded characters are stored in heap
+ */
+public class SourceFile {
+
+    /**
+     * read file content as characters
+     * @param fileName - name of file to be read
+     * @return - buffer with decoded characters of file
+     * @throws IOException - file can not be opened, read or is too large
+     */
+    public static CharBuffer read(String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException(String.format("File is too large: %s", fileName));
+
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            /* decode the same way as FileReader, incorrect bytes are replaced */
+            return Charset.defaultCharset().newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                    .decode(bytes);
+        }
+    }
+
+    /**
+     * read file content as string
+     * @param fileName - name of file to be read
+     * @return - text of file
+     * @throws IOException - file can not be opened, read or is too large
+     */
+    public static String readString(String fileName) throws IOException {
+        return read(fileName).toString();
+    }
+}
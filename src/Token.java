@@ -4,8 +4,8 @@
 public class Token {
     /* value of token */
     private final String value;
-    /* type of token */
-    private final String type;
+    /* kind of token */
+    private final TokenKind kind;
     /* row of token in input file */
     private final int row;
     /* column of token in input file */
@@ -14,13 +14,13 @@ public class Token {
     /**
      * create new token
      * @param value - token value
-     * @param type - token type
+     * @param kind - token kind
      * @param row - row of token in input file
      * @param column - column of token in input file
      */
-    public Token(String value, String type, int row, int column){
+    public Token(String value, TokenKind kind, int row, int column){
         this.value = value;
-        this.type = type;
+        this.kind = kind;
         this.row = row;
         this.column = column;
     }
@@ -39,20 +39,29 @@ public class Token {
      * @return - raw value
      */
     public String getRawValue() {
-        switch (type){
-            case "NEW_LINE": return "\\n";
-            case "TAB": return "\\t";
-            case "SPACE": return "\\s";
+        switch (kind){
+            case NEW_LINE: return "\\n";
+            case TAB: return "\\t";
+            case SPACE: return "\\s";
+            case INDENT: return value.replace("\t", "\\t").replace(" ", "\\s");
             default: return value;
         }
     }
 
     /**
-     * getter for type
+     * getter for type name, use it only for printing
      * @return - type
      */
     public String getType() {
-        return type;
+        return kind.getTypeName();
+    }
+
+    /**
+     * getter for kind
+     * @return - kind
+     */
+    public TokenKind getKind() {
+        return kind;
     }
 
     /**
@@ -70,4 +79,13 @@ public class Token {
     public int getColumn() {
         return column;
     }
+
+    /**
+     * create copy of token, which is moved by some rows
+     * @param delta - count of rows
+     * @return - moved token
+     */
+    public Token shiftRow(int delta) {
+        return new Token(value, kind, row + delta, column);
+    }
 }
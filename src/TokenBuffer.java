@@ -0,0 +1,276 @@
+import java.util.Arrays;
+
+/**
+ * Class describe compact storage of tokens
+ * every token is kept in parallel arrays as kind, place in source text and packed row/column,
+ * Token objects and their text are created only when they are asked
+ */
+public class TokenBuffer {
+    /* all kinds, used for getting kind by stored ordinal */
+    private static final TokenKind[] KINDS = TokenKind.values();
+
+    /* source text, which tokens are pointing to */
+    private final CharSequence source;
+
+    /* ordinal of token kind */
+    private byte[] kinds;
+    /* index of first token character in source */
+    private int[] starts;
+    /* count of token characters */
+    private int[] lengths;
+    /* row in high and column in low part */
+    private long[] positions;
+    /* count of stored tokens */
+    private int size;
+    /* created values of tokens in hash table with open addressing, every value is created once */
+    private volatile String[] values = new String[64];
+    /* count of created values */
+    private int valueCount;
+
+    /**
+     * create empty token buffer
+     * @param source - source text of tokens
+     * @param capacity - expected count of tokens
+     */
+    public TokenBuffer(CharSequence source, int capacity){
+        this.source = source;
+        capacity = Math.max(capacity, 16);
+        this.kinds = new byte[capacity];
+        this.starts = new int[capacity];
+        this.lengths = new int[capacity];
+        this.positions = new long[capacity];
+        this.size = 0;
+    }
+
+    /**
+     * add token to the end of buffer
+     * @param kind - token kind
+     * @param start - index of first token character in source
+     * @param length - count of token characters
+     * @param row - row of token in input file
+     * @param column - column of token in input file
+     */
+    public void add(TokenKind kind, int start, int length, int row, int column){
+        if (size == kinds.length){
+            int capacity = size + (size >> 1);
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+        }
+
+        kinds[size] = (byte) kind.ordinal();
+        starts[size] = start;
+        lengths[size] = length;
+        positions[size] = ((long) row << 32) | (column & 0xFFFFFFFFL);
+        size++;
+    }
+
+    /**
+     * add all tokens of other buffer to the end of buffer
+     * both buffers must point to the same source text
+     * @param other - buffer with next tokens
+     */
+    public void append(TokenBuffer other){
+        int capacity = size + other.size;
+        if (capacity > kinds.length){
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+        }
+
+        System.arraycopy(other.kinds, 0, kinds, size, other.size);
+        System.arraycopy(other.starts, 0, starts, size, other.size);
+        System.arraycopy(other.lengths, 0, lengths, size, other.size);
+        System.arraycopy(other.positions, 0, positions, size, other.size);
+        size = capacity;
+    }
+
+    /**
+     * remove tokens from the end of buffer
+     * @param size - count of tokens, which are kept
+     */
+    public void truncate(int size){
+        this.size = Math.min(this.size, size);
+    }
+
+    /**
+     * getter for count of tokens
+     * @return - count of tokens
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * getter for token kind
+     * @param id - id of token
+     * @return - kind
+     */
+    public TokenKind getKind(int id) {
+        return KINDS[kinds[id] & 0xFF];
+    }
+
+    /**
+     * getter for token row
+     * @param id - id of token
+     * @return - row
+     */
+    public int getRow(int id) {
+        return (int) (positions[id] >> 32);
+    }
+
+    /**
+     * getter for token column
+     * @param id - id of token
+     * @return - column
+     */
+    public int getColumn(int id) {
+        return (int) positions[id];
+    }
+
+    /**
+     * getter for width of INDENT token, tab has width 8 and space has width 1
+     * @param id - id of token
+     * @return - width
+     */
+    public int getIndentWidth(int id) {
+        int width = 0;
+        for (int i = starts[id]; i < starts[id] + lengths[id]; i++) {
+            width += source.charAt(i) == '\t' ? 8 : 1;
+        }
+        return width;
+    }
+
+    /**
+     * move all tokens by some rows, root token is not moved
+     * @param delta - count of rows
+     */
+    public void shiftRows(int delta) {
+        for (int i = 0; i < size; i++) {
+            if (getRow(i) >= 0)
+                positions[i] += (long) delta << 32;
+        }
+    }
+
+    /**
+     * create text of token
+     * START and NEW_LINE tokens have no text in source
+     * @param id - id of token
+     * @return - value
+     */
+    public String getValue(int id) {
+        switch (getKind(id)){
+            case START: return "null";
+            case NEW_LINE: return "\n";
+            default: return value(starts[id], lengths[id]);
+        }
+    }
+
+    /**
+     * find created value of source part, or create it, so tokens with the same text share one string
+     * values can be asked from several threads, found value is read without lock,
+     * new value is added under lock and bigger table is published only when it is filled
+     * @param start - index of first character in source
+     * @param length - count of characters
+     * @return - value
+     */
+    private String value(int start, int length) {
+        /* the same hash as String.hashCode() */
+        int hash = 0;
+        for (int i = start; i < start + length; i++) {
+            hash = 31 * hash + source.charAt(i);
+        }
+
+        String value = findValue(values, hash, start, length);
+        return value != null ? value : addValue(hash, start, length);
+    }
+
+    /**
+     * find value of source part in hash table
+     * @param table - hash table of values
+     * @param hash - hash of source part
+     * @param start - index of first character in source
+     * @param length - count of characters
+     * @return - value, or null if it is not created
+     */
+    private String findValue(String[] table, int hash, int start, int length) {
+        int mask = table.length - 1, place = (hash ^ (hash >>> 16)) & mask;
+        while (table[place] != null){
+            if (isValue(table[place], start, length))
+                return table[place];
+            place = (place + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * create value of source part and add it to hash table, if other thread didn't add it
+     * @param hash - hash of source part
+     * @param start - index of first character in source
+     * @param length - count of characters
+     * @return - value
+     */
+    private synchronized String addValue(int hash, int start, int length) {
+        String value = findValue(values, hash, start, length);
+        if (value != null)
+            return value;
+
+        value = source.subSequence(start, start + length).toString();
+
+        /* keep table half empty */
+        String[] table = values;
+        if ((valueCount + 1) * 2 > table.length){
+            table = new String[table.length * 2];
+            for (String item : values) {
+                if (item != null)
+                    putValue(table, item.hashCode(), item);
+            }
+        }
+        putValue(table, hash, value);
+        valueCount++;
+        values = table;
+        return value;
+    }
+
+    /**
+     * put value to free place of hash table
+     * @param table - hash table of values
+     * @param hash - hash of value
+     * @param value - value
+     */
+    private static void putValue(String[] table, int hash, String value) {
+        int mask = table.length - 1, place = (hash ^ (hash >>> 16)) & mask;
+        while (table[place] != null){
+            place = (place + 1) & mask;
+        }
+        table[place] = value;
+    }
+
+    /**
+     * test if value is the same as source part
+     * @param value - created value
+     * @param start - index of first character in source
+     * @param length - count of characters
+     * @return - is it the same text
+     */
+    private boolean isValue(String value, int start, int length) {
+        if (value.length() != length)
+            return false;
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) != source.charAt(start + i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * create token object
+     * @param id - id of token
+     * @return - token
+     */
+    public Token get(int id) {
+        return new Token(getValue(id), getKind(id), getRow(id), getColumn(id));
+    }
+}
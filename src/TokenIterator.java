@@ -0,0 +1,112 @@
+/**
+ * Class for iterator over token buffer
+ * kinds are read without creating Token objects,
+ * Token is created only by next(), current() and peek()
+ */
+public class TokenIterator {
+    private final TokenBuffer tokens;
+    private int indexSelected=-1;
+    public TokenIterator(TokenBuffer tokens){
+        this.tokens=tokens;
+    }
+
+    /**
+     * create iterator, which is placed on some token
+     * @param tokens - tokens
+     * @param indexSelected - index of current token, next() returns token after it
+     */
+    public TokenIterator(TokenBuffer tokens, int indexSelected){
+        this.tokens=tokens;
+        this.indexSelected=indexSelected;
+    }
+
+    public boolean hasNext() {
+        return indexSelected<tokens.size()-1;
+    }
+
+    public Token next() {
+        indexSelected++;
+        return current();
+    }
+
+    /**
+     * go to next token and return only its kind
+     * @return - next kind
+     */
+    public TokenKind nextKind() {
+        indexSelected++;
+        return currentKind();
+    }
+
+    /**
+     * decrement index
+     */
+    public void previous(){
+        indexSelected--;
+    }
+    /**
+     * getter for index of current token
+     * @return - index
+     */
+    public int getIndex(){
+        return indexSelected;
+    }
+
+    /**
+     * move iterator to some token
+     * @param indexSelected - index of new current token
+     */
+    public void setIndex(int indexSelected){
+        this.indexSelected=indexSelected;
+    }
+
+    public Token current(){
+        return tokens.get(indexSelected);
+    }
+    public TokenKind currentKind(){
+        return tokens.getKind(indexSelected);
+    }
+
+    /**
+     * get value of current token without creating Token object
+     * @return - value
+     */
+    public String currentValue(){
+        return tokens.getValue(indexSelected);
+    }
+
+    /**
+     * get row of current token
+     * @return - row
+     */
+    public int currentRow(){
+        return tokens.getRow(indexSelected);
+    }
+
+    /**
+     * get column of current token
+     * @return - column
+     */
+    public int currentColumn(){
+        return tokens.getColumn(indexSelected);
+    }
+
+    /**
+     * get width of current INDENT token
+     * @return - count of spaces, tab is 8 spaces
+     */
+    public int currentIndentWidth(){
+        return tokens.getIndentWidth(indexSelected);
+    }
+
+    /**
+     * new method for getting next element without changing index
+     * @return - next item
+     */
+    public Token peek(){
+        return tokens.get(indexSelected+1);
+    }
+    public TokenKind peekKind(){
+        return tokens.getKind(indexSelected+1);
+    }
+}
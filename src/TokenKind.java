@@ -0,0 +1,102 @@
+/**
+ * Enum describe all kinds of tokens and AST nodes
+ */
+public enum TokenKind {
+    /* service tokens */
+    START, UNDEF,
+
+    /* whitespace tokens, INDENT is all spaces and tabs in start of line */
+    NEW_LINE, TAB, SPACE, INDENT,
+
+    /* keyword tokens */
+    AND, AS, ASSERT, BREAK, CLASS, CONTINUE, DEF, DEL, ELIF, ELSE, EXCEPT, FALSE, FINALLY, FOR, FROM,
+    GLOBAL, IF, IMPORT, IN, IS, LAMBDA, NONE, NONLOCAL, NOT, OR, PASS, RAISE, RANGE, RETURN, TRUE, TRY,
+    WHILE, WITH, YIELD,
+
+    /* symbol tokens */
+    DOWN_LINE, DOT, COMMA, ASSIGN, SEMICOLON, QUOTE, DBQUOTE, LBR, RBR, ADD, SUB, MUL, POW, DIV, INT_DIV,
+    PERCENT, QUESTION, COLON, LT, GT, LE, GE, EQ, NE, LSBR, RSBR, LBRC, RBRC, L_SHIFT, R_SHIFT,
+    BIT_AND, BIT_OR, BIT_XOR, BIT_NOT,
+
+    /* assign symbol tokens, operation is the same kind without assignment */
+    ADD_ASSIGN(ADD), SUB_ASSIGN(SUB), DIV_ASSIGN(DIV), MUL_ASSIGN(MUL), PERCENT_ASSIGN(PERCENT),
+    L_SHIFT_ASSIGN(L_SHIFT), R_SHIFT_ASSIGN(R_SHIFT),
+    BIT_AND_ASSIGN(BIT_AND), BIT_OR_ASSIGN(BIT_OR), BIT_XOR_ASSIGN(BIT_XOR),
+
+    /* value tokens */
+    WORD, STRING, INT, FLOAT, BINNUM, OCTNUM, HEXNUM,
+
+    /* AST nodes created by parser */
+    ID, DEF_WORD, DEF_CALL, PARAMS, IF_TRUE, ELIF_TRUE, FOR_BODY, WHILE_BODY, TERNAR,
+    UNAR_ADD, UNAR_SUB, UNAR_NOT,
+    INT_CHAR("INT(CHAR)"), INT_FLOAT("INT(FLOAT)"), INT_BINNUM("INT(BINNUM)"),
+    INT_OCTNUM("INT(OCTNUM)"), INT_HEXNUM("INT(HEXNUM)");
+
+    /* name of kind for printing */
+    private final String typeName;
+    /* operation of assign kind, null for other kinds */
+    private final TokenKind operation;
+
+    /**
+     * create kind with name of enum constant
+     */
+    TokenKind() {
+        this.typeName = name();
+        this.operation = null;
+    }
+
+    /**
+     * create kind with special name for printing
+     * @param typeName - name of kind
+     */
+    TokenKind(String typeName) {
+        this.typeName = typeName;
+        this.operation = null;
+    }
+
+    /**
+     * create assign kind
+     * @param operation - operation that is done before assignment
+     */
+    TokenKind(TokenKind operation) {
+        this.typeName = name();
+        this.operation = operation;
+    }
+
+    /**
+     * getter for type name
+     * @return - type name
+     */
+    public String getTypeName() {
+        return typeName;
+    }
+
+    /**
+     * getter for operation of assign kind
+     * @return - operation kind, or null if kind is not assign with operation
+     */
+    public TokenKind getOperation() {
+        return operation;
+    }
+
+    /**
+     * test if kind is any assignment: '=' or '<OPER>='
+     * @return - is kind an assignment
+     */
+    public boolean isAssign() {
+        return this == ASSIGN || operation != null;
+    }
+
+    /**
+     * get unary kind for token, which is placed before factor
+     * @return - unary kind, or null if this token can't be unary
+     */
+    public TokenKind toUnary() {
+        switch (this) {
+            case ADD: return UNAR_ADD;
+            case SUB: return UNAR_SUB;
+            case NOT: return UNAR_NOT;
+            default: return null;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ * Class describe static tables of keywords and symbols, which are shared by all lexers
+ * tables are built once, lookups don't create strings or other objects
+ * keywords are found by perfect hash, symbols by the longest path in trie of characters
+ */
+public final class TokenTable {
+    /* keywords with their kinds */
+    private static final String[] KEYWORDS = {
+            "and", "as", "assert", "break", "class", "continue", "def", "del", "elif", "else", "except",
+            "False", "finally", "for", "from", "global", "if", "import", "in", "is", "lambda", "None",
+            "nonlocal", "not", "or", "pass", "raise", "range", "return", "True", "try", "while", "with",
+            "yield"
+    };
+    private static final TokenKind[] KEYWORD_KINDS = {
+            TokenKind.AND, TokenKind.AS, TokenKind.ASSERT, TokenKind.BREAK, TokenKind.CLASS,
+            TokenKind.CONTINUE, TokenKind.DEF, TokenKind.DEL, TokenKind.ELIF, TokenKind.ELSE,
+            TokenKind.EXCEPT, TokenKind.FALSE, TokenKind.FINALLY, TokenKind.FOR, TokenKind.FROM,
+            TokenKind.GLOBAL, TokenKind.IF, TokenKind.IMPORT, TokenKind.IN, TokenKind.IS, TokenKind.LAMBDA,
+            TokenKind.NONE, TokenKind.NONLOCAL, TokenKind.NOT, TokenKind.OR, TokenKind.PASS,
+            TokenKind.RAISE, TokenKind.RANGE, TokenKind.RETURN, TokenKind.TRUE, TokenKind.TRY,
+            TokenKind.WHILE, TokenKind.WITH, TokenKind.YIELD
+    };
+
+    /* symbols with their kinds */
+    private static final String[] SYMBOLS = {
+            "_", ".", ",", "=", ";", "'", "\"", "(", ")", "+", "-", "*", "**", "/", "//", "%", "?", ":",
+            "<", ">", "!", "<=", ">=", "==", "!=", "[", "]", "{", "}", "<<", ">>", "&", "|", "^", "~",
+            "+=", "-=", "/=", "*=", "%=", "<<=", ">>=", "&=", "|=", "^="
+    };
+    private static final TokenKind[] SYMBOL_KINDS = {
+            TokenKind.DOWN_LINE, TokenKind.DOT, TokenKind.COMMA, TokenKind.ASSIGN, TokenKind.SEMICOLON,
+            TokenKind.QUOTE, TokenKind.DBQUOTE, TokenKind.LBR, TokenKind.RBR, TokenKind.ADD, TokenKind.SUB,
+            TokenKind.MUL, TokenKind.POW, TokenKind.DIV, TokenKind.INT_DIV, TokenKind.PERCENT,
+            TokenKind.QUESTION, TokenKind.COLON, TokenKind.LT, TokenKind.GT, TokenKind.NOT, TokenKind.LE,
+            TokenKind.GE, TokenKind.EQ, TokenKind.NE, TokenKind.LSBR, TokenKind.RSBR, TokenKind.LBRC,
+            TokenKind.RBRC, TokenKind.L_SHIFT, TokenKind.R_SHIFT, TokenKind.BIT_AND, TokenKind.BIT_OR,
+            TokenKind.BIT_XOR, TokenKind.BIT_NOT, TokenKind.ADD_ASSIGN, TokenKind.SUB_ASSIGN,
+            TokenKind.DIV_ASSIGN, TokenKind.MUL_ASSIGN, TokenKind.PERCENT_ASSIGN, TokenKind.L_SHIFT_ASSIGN,
+            TokenKind.R_SHIFT_ASSIGN, TokenKind.BIT_AND_ASSIGN, TokenKind.BIT_OR_ASSIGN,
+            TokenKind.BIT_XOR_ASSIGN
+    };
+
+    /* hash table of keywords without collisions, empty places are null */
+    private static final char[][] KEYWORD_TABLE;
+    private static final TokenKind[] KEYWORD_TABLE_KINDS;
+    /* multiplier and shift of perfect hash */
+    private static final int KEYWORD_MULTIPLIER, KEYWORD_SHIFT;
+
+    /* root of symbols trie */
+    private static final TrieNode SYMBOL_TRIE = new TrieNode();
+
+    /**
+     * Class describe node of symbols trie, children are indexed by ASCII character
+     */
+    private static final class TrieNode {
+        /* kind of symbol, which ends in this node, or null */
+        private TokenKind kind;
+        private final TrieNode[] next = new TrieNode[128];
+    }
+
+    static {
+        /*
+        * find multiplier, which gives different places for all keywords,
+        * search starts from golden ratio multiplier, table is at least two times bigger
+        * than count of keywords, so multiplier is found after few hundreds attempts
+        */
+        int bits = 33 - Integer.numberOfLeadingZeros(KEYWORDS.length), multiplier = 0;
+        search:
+        for (; bits <= 10; bits++) {
+            multiplier = 0x9E3779B9;
+            for (int attempt = 0; attempt < 1 << 16; attempt++, multiplier += 2) {
+                boolean[] used = new boolean[1 << bits];
+                boolean collision = false;
+                for (String keyword : KEYWORDS) {
+                    int place = hash(keyword, 0, keyword.length()) * multiplier >>> (32 - bits);
+                    if (used[place]) {
+                        collision = true;
+                        break;
+                    }
+                    used[place] = true;
+                }
+                if (!collision)
+                    break search;
+            }
+        }
+        if (bits > 10)
+            throw new IllegalStateException("No perfect hash for keywords");
+
+        KEYWORD_MULTIPLIER = multiplier;
+        KEYWORD_SHIFT = 32 - bits;
+        KEYWORD_TABLE = new char[1 << bits][];
+        KEYWORD_TABLE_KINDS = new TokenKind[1 << bits];
+        for (int i = 0; i < KEYWORDS.length; i++) {
+            int place = hash(KEYWORDS[i], 0, KEYWORDS[i].length()) * multiplier >>> KEYWORD_SHIFT;
+            KEYWORD_TABLE[place] = KEYWORDS[i].toCharArray();
+            KEYWORD_TABLE_KINDS[place] = KEYWORD_KINDS[i];
+        }
+
+        /* fill trie by all symbols */
+        for (int i = 0; i < SYMBOLS.length; i++) {
+            TrieNode node = SYMBOL_TRIE;
+            for (char symb : SYMBOLS[i].toCharArray()) {
+                if (node.next[symb] == null)
+                    node.next[symb] = new TrieNode();
+                node = node.next[symb];
+            }
+            node.kind = SYMBOL_KINDS[i];
+        }
+    }
+
+    private TokenTable(){
+    }
+
+    /**
+     * hash of word from its first, middle and last characters and length,
+     * they are different for all keywords
+     * @param text - text with word
+     * @param start - index of first word character
+     * @param end - index after last word character
+     * @return - hash
+     */
+    private static int hash(CharSequence text, int start, int end){
+        int length = end - start;
+        return ((text.charAt(start) * 31 + text.charAt(start + length / 2)) * 31
+                + text.charAt(end - 1)) * 31 + length;
+    }
+
+    /**
+     * find keyword kind of word
+     * @param text - text with word
+     * @param start - index of first word character
+     * @param end - index after last word character
+     * @return - keyword kind, or null if word is not keyword
+     */
+    public static TokenKind keyword(CharSequence text, int start, int end){
+        int place = hash(text, start, end) * KEYWORD_MULTIPLIER >>> KEYWORD_SHIFT;
+        char[] keyword = KEYWORD_TABLE[place];
+        if (keyword == null || keyword.length != end - start)
+            return null;
+        for (int i = 0; i < keyword.length; i++) {
+            if (keyword[i] != text.charAt(start + i))
+                return null;
+        }
+        return KEYWORD_TABLE_KINDS[place];
+    }
+
+    /**
+     * find length of the longest symbol from start of text part
+     * @param text - text with symbols
+     * @param start - index of first symbol character
+     * @param end - index after last character, which can be used
+     * @return - length of symbol, or 0 if there is no symbol
+     */
+    public static int symbolLength(CharSequence text, int start, int end){
+        TrieNode node = SYMBOL_TRIE;
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            char symb = text.charAt(i);
+            if (symb >= node.next.length || (node = node.next[symb]) == null)
+                break;
+            if (node.kind != null)
+                length = i - start + 1;
+        }
+        return length;
+    }
+
+    /**
+     * get kind of symbol
+     * @param text - text with symbol
+     * @param start - index of first symbol character
+     * @param length - length of symbol, returned by symbolLength()
+     * @return - kind of symbol, or null if length is 0
+     */
+    public static TokenKind symbol(CharSequence text, int start, int length){
+        TrieNode node = SYMBOL_TRIE;
+        for (int i = start; i < start + length; i++) {
+            node = node.next[text.charAt(i)];
+        }
+        return node.kind;
+    }
+
+    /**
+     * get kind of whitespace character
+     * @param symb - ' ', '\t' or '\n'
+     * @return - kind of whitespace, or null for other characters
+     */
+    public static TokenKind whitespace(char symb){
+        switch (symb){
+            case ' ': return TokenKind.SPACE;
+            case '\t': return TokenKind.TAB;
+            case '\n': return TokenKind.NEW_LINE;
+            default: return null;
+        }
+    }
+}
@@ -0,0 +1,353 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Class describe simulator of instructions, which are created by asm creator
+ * it runs _main procedure of instruction buffer and counts executed instructions,
+ * so code of template and optimized asm creator can be compared without assembler
+ * flags are valid only after CMP, so code, which uses flags of other instruction, is an error,
+ * memory below stack pointer is removed after every instruction, so reading of freed stack is found too
+ */
+public class AsmSimulator {
+    /* start of stack and base of _main frame, variables of _main are below this base */
+    private static final int STACK = 0x00800000, MAIN_BASE = 0x20000000;
+    /* size of stack, memory of stack is not compared, it has values of finished calls */
+    private static final int STACK_SIZE = 0x00100000;
+    /* return addresses are instruction indices plus this base, so they differ from all values of programs */
+    private static final int RETURN_BASE = 0x60000000;
+
+    /* instructions */
+    private final InstructionBuffer code;
+    /* max count of executed instructions, program is stopped after it */
+    private final long limit;
+    /* index of every label and procedure */
+    private final HashMap<Long, Integer> labels = new HashMap<>();
+    private final HashMap<String, Integer> procedures = new HashMap<>();
+
+    /* values of 32-bit registers by ordinal, byte registers are parts of EAX and ECX */
+    private final int[] registers = new int[8];
+    /* memory by address of 32-bit value */
+    private final HashMap<Integer, Integer> memory = new HashMap<>();
+    /* operands of last CMP, flagsValid is false after other instructions, which change flags */
+    private int compareFirst, compareSecond;
+    private boolean flagsValid;
+
+    /* error of run, null if program is finished by return from _main */
+    private String error;
+    /* count of executed instructions */
+    private long executed;
+
+    /**
+     * create simulator for instructions
+     * @param code - instructions with _main procedure
+     * @param limit - max count of executed instructions
+     */
+    public AsmSimulator(InstructionBuffer code, long limit){
+        this.code = code;
+        this.limit = limit;
+
+        for (int i = 0; i < code.size(); i++) {
+            /* repeated label has null index */
+            if (code.getOpcode(i) == Opcode.LABEL)
+                labels.put(code.getFirst(i), labels.containsKey(code.getFirst(i)) ? null : i);
+            if (code.getOpcode(i) == Opcode.PROC)
+                procedures.put(code.getName(code.getFirst(i)), i);
+        }
+    }
+
+    /**
+     * test that every label is defined once and every jump has defined label,
+     * template asm creator repeats labels of while statements, which are not in for statement
+     * @return - result of test
+     */
+    public boolean hasCorrectLabels(){
+        for (int i = 0; i < code.size(); i++) {
+            Opcode opcode = code.getOpcode(i);
+            boolean jump = opcode.compareTo(Opcode.JMP) >= 0 && opcode.compareTo(Opcode.JLE) <= 0;
+            if ((jump || opcode == Opcode.LABEL) && labels.get(code.getFirst(i)) == null)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * test that instruction is not executed
+     * @param opcode - opcode of instruction
+     * @return - result of test
+     */
+    public static boolean isPseudo(Opcode opcode){
+        return opcode == Opcode.LABEL || opcode == Opcode.PROC || opcode == Opcode.ENDP || opcode == Opcode.ALIGN;
+    }
+
+    /**
+     * run _main procedure until its return, error or limit of instructions
+     * @return - this simulator
+     */
+    public AsmSimulator run(){
+        registers[Register.ESP.ordinal()] = STACK - 4;
+        registers[Register.EBP.ordinal()] = MAIN_BASE;
+        memory.put(STACK - 4, RETURN_BASE - 1);
+
+        Integer main = procedures.get("_main");
+        if (main == null){
+            error = "no _main procedure";
+            return this;
+        }
+
+        int pc = main + 1, depth = 0;
+        while (error == null) {
+            Opcode opcode = code.getOpcode(pc);
+            long first = code.getFirst(pc), second = code.getSecond(pc);
+            if (opcode == Opcode.ENDP){
+                error = "end of procedure without return";
+                break;
+            }
+            if (isPseudo(opcode)){
+                pc++;
+                continue;
+            }
+            if (++executed > limit){
+                error = "limit of instructions";
+                break;
+            }
+
+            int next = pc + 1, stack = registers[Register.ESP.ordinal()];
+            switch (opcode){
+                case PUSH: push(value(first)); break;
+                case POP: store(first, pop()); break;
+                case MOV: store(first, value(second)); break;
+                case ADD: change(first, value(first) + value(second)); break;
+                case SUB: change(first, value(first) - value(second)); break;
+                case IMUL: change(first, value(first) * value(second)); break;
+                case AND: change(first, value(first) & value(second)); break;
+                case OR: change(first, value(first) | value(second)); break;
+                case XOR: change(first, value(first) ^ value(second)); break;
+                case SAL: change(first, value(first) << value(second)); break;
+                case SAR: change(first, value(first) >> value(second)); break;
+                case NEG: change(first, -value(first)); break;
+                case INC: change(first, value(first) + 1); break;
+                case DEC: change(first, value(first) - 1); break;
+                case CDQ:
+                    registers[Register.EDX.ordinal()] = registers[Register.EAX.ordinal()] < 0 ? -1 : 0;
+                    break;
+                case IDIV: divide(value(first)); break;
+                case CMP:
+                    compareFirst = value(first);
+                    compareSecond = value(second);
+                    flagsValid = true;
+                    break;
+                case SETE: case SETNE: case SETG: case SETGE: case SETL: case SETLE:
+                    if (condition(opcode))
+                        store(first, 1);
+                    else if (error == null)
+                        store(first, 0);
+                    break;
+                case JMP: next = target(first, next); break;
+                case JE: case JNE: case JG: case JGE: case JL: case JLE:
+                    if (condition(opcode))
+                        next = target(first, next);
+                    break;
+                case CALL: {
+                    Integer procedure = procedures.get(code.getName(first));
+                    if (procedure == null){
+                        error = "unknown procedure " + code.getName(first);
+                        break;
+                    }
+                    push(RETURN_BASE + next);
+                    next = procedure + 1;
+                    depth++;
+                    break;
+                }
+                case RET: {
+                    int address = pop() - RETURN_BASE;
+                    if (depth-- == 0)
+                        return this;
+                    if (address < 0 || address >= code.size())
+                        error = "incorrect return address";
+                    next = address;
+                    break;
+                }
+                default:
+                    error = "unknown opcode " + opcode;
+            }
+
+            /* values of popped stack are garbage */
+            for (int address = stack; address < registers[Register.ESP.ordinal()]; address += 4) {
+                memory.remove(address);
+            }
+            pc = next;
+        }
+        return this;
+    }
+
+    /**
+     * read value of operand
+     * @param operand - register, immediate or memory operand
+     * @return - 32-bit value
+     */
+    private int value(long operand){
+        switch (Operand.getKind(operand)){
+            case Operand.REGISTER: {
+                Register register = Operand.getRegister(operand);
+                int value = registers[family(register)];
+                return register == Register.AL || register == Register.CL ? value & 0xFF : value;
+            }
+            case Operand.IMMEDIATE:
+                return Operand.getValue(operand);
+            case Operand.MEMORY:
+                return memory.getOrDefault(address(operand), 0);
+            default:
+                error = "incorrect source operand";
+                return 0;
+        }
+    }
+
+    /**
+     * write value to operand
+     * @param operand - register or memory operand
+     * @param value - 32-bit value
+     */
+    private void store(long operand, int value){
+        switch (Operand.getKind(operand)){
+            case Operand.REGISTER: {
+                Register register = Operand.getRegister(operand);
+                int family = family(register);
+                if (register == Register.AL || register == Register.CL)
+                    registers[family] = (registers[family] & ~0xFF) | (value & 0xFF);
+                else
+                    registers[family] = value;
+                break;
+            }
+            case Operand.MEMORY:
+                memory.put(address(operand), value);
+                break;
+            default:
+                error = "incorrect destination operand";
+        }
+    }
+
+    /**
+     * write result of arithmetic instruction, flags of this instruction are not simulated
+     * @param operand - destination operand
+     * @param value - result
+     */
+    private void change(long operand, int value){
+        store(operand, value);
+        flagsValid = false;
+    }
+
+    /**
+     * divide EDX:EAX by value, quotient is written to EAX and remainder to EDX
+     * @param divisor - divisor
+     */
+    private void divide(int divisor){
+        if (divisor == 0){
+            error = "division by zero";
+            return;
+        }
+        long dividend = ((long) registers[Register.EDX.ordinal()] << 32) |
+                (registers[Register.EAX.ordinal()] & 0xFFFFFFFFL);
+        long quotient = dividend / divisor;
+        if (quotient != (int) quotient){
+            error = "division overflow";
+            return;
+        }
+        registers[Register.EAX.ordinal()] = (int) quotient;
+        registers[Register.EDX.ordinal()] = (int) (dividend % divisor);
+        flagsValid = false;
+    }
+
+    /**
+     * test condition of jump or set by flags of last CMP
+     * @param opcode - conditional opcode
+     * @return - is condition true
+     */
+    private boolean condition(Opcode opcode){
+        if (!flagsValid){
+            error = "flags are used after instruction, which is not CMP";
+            return false;
+        }
+        switch (opcode){
+            case SETE: case JE: return compareFirst == compareSecond;
+            case SETNE: case JNE: return compareFirst != compareSecond;
+            case SETG: case JG: return compareFirst > compareSecond;
+            case SETGE: case JGE: return compareFirst >= compareSecond;
+            case SETL: case JL: return compareFirst < compareSecond;
+            default: return compareFirst <= compareSecond;
+        }
+    }
+
+    /**
+     * find instruction of label
+     * @param label - label operand
+     * @param next - index of next instruction, it is returned if label is not found
+     * @return - index of label
+     */
+    private int target(long label, int next){
+        Integer target = labels.get(label);
+        if (target == null){
+            error = "unknown or repeated label " + code.getName(label);
+            return next;
+        }
+        return target;
+    }
+
+    private void push(int value){
+        registers[Register.ESP.ordinal()] -= 4;
+        memory.put(registers[Register.ESP.ordinal()], value);
+    }
+
+    private int pop(){
+        int value = memory.getOrDefault(registers[Register.ESP.ordinal()], 0);
+        registers[Register.ESP.ordinal()] += 4;
+        return value;
+    }
+
+    private int address(long operand){
+        return registers[family(Operand.getRegister(operand))] + Operand.getValue(operand);
+    }
+
+    /**
+     * find 32-bit register, which contains register
+     * @param register - register
+     * @return - ordinal of 32-bit register
+     */
+    private static int family(Register register){
+        switch (register){
+            case AL: return Register.EAX.ordinal();
+            case CL: return Register.ECX.ordinal();
+            default: return register.ordinal();
+        }
+    }
+
+    /**
+     * getter for memory outside of stack, it has variables of _main
+     * values of stack are not returned, they are different in template and optimized code
+     * @return - map [address - value]
+     */
+    public TreeMap<Integer, Integer> getVariables() {
+        TreeMap<Integer, Integer> variables = new TreeMap<>();
+        for (Map.Entry<Integer, Integer> value : memory.entrySet()) {
+            if (value.getKey() < STACK - STACK_SIZE || value.getKey() >= STACK)
+                variables.put(value.getKey(), value.getValue());
+        }
+        return variables;
+    }
+
+    /**
+     * getter for error of run
+     * @return - error, null if _main returned
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * getter for count of executed instructions
+     * @return - count of instructions
+     */
+    public long getExecuted() {
+        return executed;
+    }
+}
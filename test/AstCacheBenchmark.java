@@ -0,0 +1,105 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+
+/**
+ * benchmark of AST cache, cold build reads, hashes, lexes, parses and stores source,
+ * warm build reads, hashes and loads AST from cache
+ * full Compiler.compile is measured too, its output is discarded
+ * run: java -cp <classes of src and test> AstCacheBenchmark [source file, default is generated source]
+ */
+public class AstCacheBenchmark {
+    /* runs of every build, the best time is taken */
+    private static final int RUNS = 5;
+    /* count of functions in generated source */
+    private static final int DEFS = 20_000;
+
+    public static void main(String[] args) throws IOException, CompilerException {
+        File source;
+        if (args.length > 0)
+            source = new File(args[0]);
+        else {
+            source = File.createTempFile("cache", ".py");
+            source.deleteOnExit();
+            Files.writeString(source.toPath(), source());
+        }
+        File directory = Files.createTempDirectory("ast-cache").toFile();
+        File asm = File.createTempFile("cache", ".asm");
+
+        long cold = Long.MAX_VALUE, warm = Long.MAX_VALUE, coldCompile = Long.MAX_VALUE, warmCompile = Long.MAX_VALUE;
+        PrintStream out = System.out, err = System.err;
+        for (int i = 0; i < RUNS; i++) {
+            clear(directory);
+            AstCache cache = new AstCache(directory.getPath(), Long.MAX_VALUE);
+
+            long start = System.nanoTime();
+            String text = SourceFile.readString(source.getPath());
+            String key = cache.key(text);
+            Parser parser = new Parser(new Lexer(text, false).getTokens());
+            cache.store(key, parser.getMainAST(), parser.getDefAST());
+            cold = Math.min(cold, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            text = SourceFile.readString(source.getPath());
+            key = cache.key(text);
+            if (cache.load(key, new LinkedHashMap<>()) == null)
+                throw new IllegalStateException("Stored AST is not found");
+            warm = Math.min(warm, System.nanoTime() - start);
+
+            clear(directory);
+            PrintStream discarded = new PrintStream(OutputStream.nullOutputStream());
+            System.setOut(discarded);
+            System.setErr(discarded);
+            start = System.nanoTime();
+            new Compiler(source.getPath(), asm.getPath(), cache).compile();
+            coldCompile = Math.min(coldCompile, System.nanoTime() - start);
+            start = System.nanoTime();
+            new Compiler(source.getPath(), asm.getPath(), cache).compile();
+            warmCompile = Math.min(warmCompile, System.nanoTime() - start);
+            System.setOut(out);
+            System.setErr(err);
+        }
+
+        File[] files = directory.listFiles();
+        System.out.printf("source %d bytes, cache file %d bytes, best of %d runs%n",
+                source.length(), files != null && files.length > 0 ? files[0].length() : 0, RUNS);
+        System.out.printf("front end: cold %.1f ms, warm %.1f ms%n", cold / 1e6, warm / 1e6);
+        System.out.printf("Compiler.compile: cold %.1f ms, warm %.1f ms%n", coldCompile / 1e6, warmCompile / 1e6);
+
+        clear(directory);
+        directory.delete();
+        asm.delete();
+    }
+
+    /**
+     * create source with functions, loops and expressions
+     * @return - source text
+     */
+    private static String source(){
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < DEFS; i++) {
+            text.append("def f").append(i).append("(a, b):\n")
+                    .append("    c = a * ").append(i).append(" + b\n")
+                    .append("    while c < 10:\n        c += 2\n")
+                    .append("    return c\n")
+                    .append("x").append(i).append(" = f").append(i).append("(1, 2)\n");
+        }
+        return text.toString();
+    }
+
+    /**
+     * remove all files of cache directory
+     * @param directory - cache directory
+     */
+    private static void clear(File directory){
+        File[] files = directory.listFiles();
+        if (files == null)
+            return;
+        for (File file : files) {
+            file.delete();
+        }
+    }
+}
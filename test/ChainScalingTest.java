@@ -0,0 +1,73 @@
+/**
+ * scaling test for long chains of operators with the same priority, source is "s = a + a + ... + a"
+ * time of lexing and parsing must grow linearly with count of terms, test fails if growth is nearly quadratic
+ * run: java -cp <classes of src and test> ChainScalingTest
+ */
+public class ChainScalingTest {
+    /* counts of terms in chain */
+    private static final int[] TERMS = {10_000, 100_000, 1_000_000};
+    /* max growth of time for 10 times more terms, linear growth is 10, quadratic is 100 */
+    private static final double MAX_GROWTH = 30;
+    /* runs of every chain, the best time is taken */
+    private static final int RUNS = 3;
+
+    public static void main(String[] args) {
+        /* warm up compiler of jvm on the smallest chain */
+        measure(chain(TERMS[0]));
+
+        boolean passed = true;
+        double previous = 0;
+        for (int terms : TERMS) {
+            double time = measure(chain(terms));
+            if (Double.isNaN(time)){
+                passed = false;
+                break;
+            }
+
+            double growth = previous > 0 ? time / previous : 0;
+            System.out.printf("%d terms: %.1f ms%s%n", terms, time,
+                    previous > 0 ? String.format(", %.1f times longer", growth) : "");
+            /* short times are not compared, they depend on timer and garbage collector */
+            if (previous >= 1 && growth > MAX_GROWTH)
+                passed = false;
+            previous = time;
+        }
+
+        System.out.println(passed ? "Scaling is linear" : "Scaling test failed");
+        if (!passed)
+            System.exit(1);
+    }
+
+    /**
+     * create source with one chain of additions
+     * @param terms - count of terms
+     * @return - source text
+     */
+    private static String chain(int terms){
+        StringBuilder text = new StringBuilder("a = 1\ns = a");
+        for (int i = 1; i < terms; i++) {
+            text.append(" + a");
+        }
+        return text.append('\n').toString();
+    }
+
+    /**
+     * lex and parse source several times
+     * @param text - source text
+     * @return - the best time in ms, NaN if source can not be parsed
+     */
+    private static double measure(String text){
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            try {
+                new Parser(new Lexer(text, false).getTokens());
+            } catch (CompilerException | RuntimeException | StackOverflowError e) {
+                System.out.printf("%d chars: failed with %s%n", text.length(), e);
+                return Double.NaN;
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e6;
+    }
+}
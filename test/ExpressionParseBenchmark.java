@@ -0,0 +1,87 @@
+import java.util.Random;
+
+/**
+ * benchmark of parsing expression-heavy source, source has lines with random nested arithmetic and logic
+ * expressions, tokens are created once, so only parsing is measured
+ * run: java -cp <classes of src and test> ExpressionParseBenchmark [count of lines, default 20000]
+ */
+public class ExpressionParseBenchmark {
+    /* runs of parsing, the best time is taken */
+    private static final int RUNS = 10;
+    /* binary operations of expressions */
+    private static final String[] OPERATIONS = {"+", "-", "*", "/", "%", "<<", ">>", "&", "|", "^",
+            "<", ">", "<=", ">=", "==", "!=", "and", "or"};
+    /* operands of expressions */
+    private static final String[] OPERANDS = {"a", "b", "c", "x1", "y2", "0", "1", "7", "255", "0x1F", "0b101"};
+    /* max depth of nested expression */
+    private static final int DEPTH = 5;
+
+    public static void main(String[] args) throws CompilerException {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        String text = source(lines);
+        TokenBuffer tokens = new Lexer(text, false).getTokens();
+
+        /* first runs warm up compiler of jvm too */
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            new Parser(tokens);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        System.out.printf("%d lines, %d chars, %d tokens: parse %.1f ms, best of %d runs%n",
+                lines, text.length(), tokens.size(), best / 1e6, RUNS);
+    }
+
+    /**
+     * create source with random expressions, random has fixed seed, so source is always the same
+     * @param lines - count of lines with expressions
+     * @return - source text
+     */
+    private static String source(int lines){
+        Random random = new Random(10);
+        StringBuilder text = new StringBuilder("def f(p, q):\n    return p + q\n\na = 1\nb = 2\nc = 3\nx1 = 4\ny2 = 5\n");
+        for (int i = 0; i < lines; i++) {
+            text.append('v').append(i).append(" = ");
+            expression(random, DEPTH, text);
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * add random expression to source
+     * @param random - generator of random numbers
+     * @param depth - max depth of expression
+     * @param text - source text
+     */
+    private static void expression(Random random, int depth, StringBuilder text){
+        int kind = depth == 0 ? 0 : random.nextInt(10);
+        if (kind < 2)
+            text.append(OPERANDS[random.nextInt(OPERANDS.length)]);
+        else if (kind < 3){
+            text.append(random.nextBoolean() ? "-" : "not ");
+            expression(random, depth - 1, text);
+        }
+        else if (kind < 4){
+            text.append('(');
+            expression(random, depth - 1, text);
+            text.append(')');
+        }
+        else if (kind < 5){
+            text.append("f(");
+            expression(random, depth - 1, text);
+            text.append(", ");
+            expression(random, depth - 1, text);
+            text.append(')');
+        }
+        else {
+            /* chain of operations with mixed priorities */
+            expression(random, depth - 1, text);
+            for (int count = 1 + random.nextInt(3); count > 0; count--) {
+                text.append(' ').append(OPERATIONS[random.nextInt(OPERATIONS.length)]).append(' ');
+                expression(random, depth - 1, text);
+            }
+        }
+    }
+}
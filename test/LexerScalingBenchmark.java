@@ -0,0 +1,102 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Locale;
+
+/**
+ * benchmark of parallel lexing, big source is lexed by jvm with 1, 2, 4 ... threads of common pool,
+ * up to count of cores, so it shows scaling of lexing with count of cores
+ * run: java -cp <classes of src and test> LexerScalingBenchmark [size of source in MB, default 100]
+ *      [max count of threads, default count of cores]
+ */
+public class LexerScalingBenchmark {
+    /* runs of every parallelism, the best time is taken */
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        /* lexing in child jvm */
+        if (args.length == 2 && args[0].equals("--child")){
+            lex(args[1]);
+            return;
+        }
+
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int cores = Runtime.getRuntime().availableProcessors();
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : cores;
+        File source = File.createTempFile("lexer", ".py");
+        Files.writeString(source.toPath(), source(megabytes << 20));
+
+        ArrayList<Integer> parallelisms = new ArrayList<>();
+        for (int n = 1; n < maxThreads; n *= 2) {
+            parallelisms.add(n);
+        }
+        parallelisms.add(maxThreads);
+        System.out.printf("source %d MB, %d cores, best of %d runs%n", megabytes, cores, RUNS);
+
+        double serial = 0;
+        for (int parallelism : parallelisms) {
+            Process process = new ProcessBuilder(
+                    new File(System.getProperty("java.home"), "bin/java").getPath(),
+                    "-Djava.util.concurrent.ForkJoinPool.common.parallelism=" + parallelism,
+                    "-cp", System.getProperty("java.class.path"),
+                    LexerScalingBenchmark.class.getName(), "--child", source.getPath())
+                    .redirectErrorStream(true).start();
+
+            String result;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                result = reader.readLine();
+                while (reader.readLine() != null);
+            }
+            if (process.waitFor() != 0 || result == null){
+                System.out.printf("Lexing with parallelism %d failed%n", parallelism);
+                System.exit(1);
+            }
+
+            /* count of tokens and time in ms */
+            String[] words = result.split(" ");
+            double time = Double.parseDouble(words[1]);
+            if (parallelism == 1)
+                serial = time;
+            System.out.printf("%d threads: %s tokens, %.1f ms, %.2f times faster than 1 thread%n",
+                    parallelism, words[0], time, serial / time);
+        }
+        source.delete();
+    }
+
+    /**
+     * create source of statements, functions and loops
+     * @param size - min count of characters
+     * @return - source text
+     */
+    private static String source(int size){
+        StringBuilder text = new StringBuilder(size + 256);
+        for (int i = 0; text.length() < size; i++) {
+            text.append("def f").append(i).append("(a, b):\n")
+                    .append("    c = a * ").append(i).append(" + b # comment\n")
+                    .append("    while c < 0x1F and c != 0b101:\n        c += 2\n")
+                    .append("    return c\n")
+                    .append("x").append(i).append(" = f").append(i).append("(1, 2) << 3\n\n");
+        }
+        return text.toString();
+    }
+
+    /**
+     * lex file several times and print count of tokens and the best time in ms
+     * @param source - name of source file
+     */
+    private static void lex(String source) throws IOException {
+        String text = Files.readString(new File(source).toPath());
+        long best = Long.MAX_VALUE;
+        int tokens = 0;
+        for (int i = 0; i < RUNS; i++) {
+            System.gc();
+            long start = System.nanoTime();
+            tokens = new Lexer(text, false).getTokens().size();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf(Locale.ROOT, "%d %.3f%n", tokens, best / 1e6);
+    }
+}
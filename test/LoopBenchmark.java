@@ -0,0 +1,55 @@
+/**
+ * benchmark of counted cycles, every cycle is compiled by template and optimized asm creator and run by AsmSimulator
+ * with n and 2n repeats, so difference of executed instructions divided by n is cost of one repeat without cost
+ * of code around cycle, cycles are the same as in test/programs/countloop.py
+ * run: java -cp <classes of src and test> LoopBenchmark [count of repeats, default 1000]
+ */
+public class LoopBenchmark {
+    /* names and sources of cycles, %d is replaced by count of repeats */
+    private static final String[] NAMES = {"range(n)", "range(a, b, step)", "range(variable)",
+            "range(n) with inner cycle"};
+    private static final String[] CYCLES = {
+            "s = 0\nfor i in range(%d):\n    s = s + i\nx = s\n",
+            "s = 0\nfor k in range(3, 3 + 2 * %d, 2):\n    s = s + k\nx = s\n",
+            "s = 0\nn = %d\nfor j in range(n):\n    s = s + j\nx = s\n",
+            "s = 0\nfor i in range(%d):\n    for k in range(3, 40, 2):\n        s = s + k\nx = s\n"};
+    /* max count of executed instructions of one cycle */
+    private static final long LIMIT = 100_000_000;
+
+    public static void main(String[] args) throws CompilerException {
+        int repeats = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+
+        System.out.printf("executed instructions per repeat of cycle, %d repeats%n", repeats);
+        for (int i = 0; i < CYCLES.length; i++) {
+            System.out.printf("%s: template %.1f, optimized %.1f%n", NAMES[i],
+                    cost(CYCLES[i], repeats, false), cost(CYCLES[i], repeats, true));
+        }
+    }
+
+    /**
+     * find count of instructions executed by one repeat of cycle
+     * @param cycle - source of cycle with %d for count of repeats
+     * @param repeats - count of repeats
+     * @param optimize - make code by optimized asm creator
+     * @return - count of instructions
+     */
+    private static double cost(String cycle, int repeats, boolean optimize) throws CompilerException {
+        return (double) (executed(String.format(cycle, 2 * repeats), optimize) -
+                executed(String.format(cycle, repeats), optimize)) / repeats;
+    }
+
+    /**
+     * compile and run program
+     * @param source - source text
+     * @param optimize - make code by optimized asm creator
+     * @return - count of executed instructions
+     */
+    private static long executed(String source, boolean optimize) throws CompilerException {
+        Parser parser = new Parser(new Lexer(source, false).getTokens());
+        AsmSimulator simulator = new AsmSimulator(
+                new ASM_Creator(parser.getMainAST(), parser.getDefAST(), optimize).getCode(), LIMIT).run();
+        if (simulator.getError() != null)
+            throw new IllegalStateException(simulator.getError());
+        return simulator.getExecuted();
+    }
+}
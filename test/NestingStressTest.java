@@ -0,0 +1,79 @@
+/**
+ * stress test for deeply nested source, it must be run with default stack size of thread
+ * every case is lexed, parsed and compiled to asm, StackOverflowError or exception fails the test
+ * run: java -cp <classes of src and test> NestingStressTest
+ */
+public class NestingStressTest {
+    /* depth of nested expressions */
+    private static final int EXPRESSION_DEPTH = 100_000;
+    /* depth of nested blocks, every level adds one space of indent to every next line */
+    private static final int BLOCK_DEPTH = 10_000;
+
+    public static void main(String[] args) {
+        int failed = 0;
+
+        failed += test("parentheses", expression("(".repeat(EXPRESSION_DEPTH) + "a" +
+                ")".repeat(EXPRESSION_DEPTH)));
+        failed += test("unary", expression("- ".repeat(EXPRESSION_DEPTH) + "a"));
+        failed += test("right nested add", expression("a + (".repeat(EXPRESSION_DEPTH) + "a" +
+                ")".repeat(EXPRESSION_DEPTH)));
+        failed += test("ternary", expression("1 if a else ".repeat(EXPRESSION_DEPTH) + "2"));
+        failed += test("call", expression("f(".repeat(EXPRESSION_DEPTH) + "1" +
+                ")".repeat(EXPRESSION_DEPTH)));
+        failed += test("if blocks", blocks("if a:"));
+        failed += test("while and for blocks", blocks(null));
+
+        System.out.println(failed == 0 ? "All cases passed" : String.format("%d cases failed", failed));
+        if (failed != 0)
+            System.exit(1);
+    }
+
+    /**
+     * create source with one deep expression
+     * @param expression - nested expression
+     * @return - source text
+     */
+    private static String expression(String expression){
+        return "a = 1\ndef f(p):\n    return p\nx = " + expression + "\n";
+    }
+
+    /**
+     * create source with nested blocks, every block is indented by one space more
+     * @param head - head of every block, null for changing while and for loops
+     * @return - source text
+     */
+    private static String blocks(String head){
+        StringBuilder text = new StringBuilder("a = 1\n");
+        for (int i = 0; i < BLOCK_DEPTH; i++) {
+            text.append(" ".repeat(i));
+            if (head != null)
+                text.append(head);
+            else
+                text.append(i % 2 == 0 ? "while a < 3:" : "for i in range(a):");
+            text.append('\n');
+        }
+        return text.append(" ".repeat(BLOCK_DEPTH)).append("a = a + 1\n").toString();
+    }
+
+    /**
+     * compile source and print result of case
+     * @param name - name of case
+     * @param text - source text
+     * @return - 0 if case passed, 1 if it failed
+     */
+    private static int test(String name, String text){
+        long start = System.nanoTime();
+        try {
+            Parser parser = new Parser(new Lexer(text, false).getTokens());
+            String asm = new ASM_Creator(parser.getMainAST(), parser.getDefAST()).getAsmCode();
+            System.out.printf("%s: passed, source %d chars, asm %d chars, %.0f ms%n",
+                    name, text.length(), asm.length(), (System.nanoTime() - start) / 1e6);
+            return 0;
+        } catch (StackOverflowError e) {
+            System.out.printf("%s: failed with StackOverflowError%n", name);
+        } catch (CompilerException | RuntimeException e) {
+            System.out.printf("%s: failed with %s%n", name, e);
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,303 @@
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * test of optimized asm creator, every program is compiled by template asm creator and by optimized one,
+ * both codes are run by AsmSimulator and must give the same variables of _main or the same error
+ * programs are files of test/programs and random programs, test prints static and executed counts of instructions,
+ * so it is benchmark of peephole, register stack, constant folder, branch fusion, loop rotation and frame patching too
+ * run: java -cp <classes of src and test> OptimizerTest [directory of programs, default test/programs]
+ *      [count of random programs, default 300]
+ */
+public class OptimizerTest {
+    /* max count of executed instructions of one program */
+    private static final long LIMIT = 5_000_000;
+    /* max depth of nested loops of random programs */
+    private static final int DEPTH = 3;
+    /* seed of the first random program */
+    private static final int SEED = 19;
+    /* operations of random expressions and augmented assignments */
+    private static final String[] OPERATIONS = {"+", "-", "*", "<<", ">>", "&", "|", "^",
+            "<", ">", "<=", ">=", "==", "!="};
+    private static final String[] AUGMENTED = {"+", "-", "*", "&", "|", "^", "<<", ">>"};
+    /* literals of random expressions */
+    private static final String[] LITERALS = {"0", "1", "2", "3", "5", "7", "10", "31", "32", "33", "100", "255",
+            "1000", "65535", "2147483647", "123456", "0x1F", "0b101", "0o17"};
+
+    /* totals of compared programs */
+    private static long staticTemplate, staticOptimized, executedTemplate, executedOptimized;
+    /* count of programs, which template asm has repeated labels, they are not compared */
+    private static int skipped;
+
+    public static void main(String[] args) {
+        File directory = new File(args.length > 0 ? args[0] : "test/programs");
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+        boolean passed = true;
+
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".py"));
+        if (files == null || files.length == 0){
+            System.out.println("No programs in " + directory);
+            System.exit(1);
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            passed &= compare(file.getName(), file.getPath(), true, true);
+        }
+        report(files.length + " programs");
+
+        for (int i = 0; i < count; i++) {
+            String text = new Generator(SEED + i).program();
+            if (!compare("random " + (SEED + i), text, false, false)){
+                System.out.println(text);
+                passed = false;
+            }
+        }
+        report(count + " random programs");
+
+        System.out.println(passed ? "Optimized asm is equivalent to template asm" : "Optimizer test failed");
+        if (!passed)
+            System.exit(1);
+    }
+
+    /**
+     * print totals of compared programs and clear them
+     * @param name - name of programs
+     */
+    private static void report(String name){
+        System.out.printf("%s, %d are not compared: static %d -> %d, executed %d -> %d (%+.1f%%)%n", name, skipped,
+                staticTemplate, staticOptimized, executedTemplate, executedOptimized,
+                executedTemplate == 0 ? 0 : 100.0 * executedOptimized / executedTemplate - 100);
+        staticTemplate = staticOptimized = executedTemplate = executedOptimized = 0;
+        skipped = 0;
+    }
+
+    /**
+     * compile program by both asm creators, run both codes and compare results
+     * @param name - name of program for report
+     * @param source - name of file or source text
+     * @param isFile - is source name of file
+     * @param print - print counts of this program
+     * @return - are results the same
+     */
+    private static boolean compare(String name, String source, boolean isFile, boolean print){
+        InstructionBuffer template, optimized;
+        try {
+            Parser parser = new Parser(new Lexer(source, isFile).getTokens());
+            template = new ASM_Creator(parser.getMainAST(), parser.getDefAST(), false).getCode();
+        } catch (CompilerException e) {
+            /* program is not supported by compiler, optimized creator is not tested on it */
+            if (print)
+                System.out.printf("%s: not compiled, %s%n", name, e.getMessage().replace("\n\t", " "));
+            return true;
+        }
+        try {
+            Parser parser = new Parser(new Lexer(source, isFile).getTokens());
+            optimized = new ASM_Creator(parser.getMainAST(), parser.getDefAST()).getCode();
+        } catch (CompilerException e) {
+            System.out.printf("%s: FAILED, only template asm is compiled, %s%n", name, e.getMessage());
+            return false;
+        }
+
+        AsmSimulator first = new AsmSimulator(template, LIMIT), second = new AsmSimulator(optimized, LIMIT);
+        if (!second.hasCorrectLabels()){
+            System.out.printf("%s: FAILED, optimized asm has repeated or unknown labels%n", name);
+            return false;
+        }
+        /* template of this program is incorrect, it can not be used as reference */
+        if (!first.hasCorrectLabels()){
+            skipped++;
+            if (print)
+                System.out.printf("%s: not compared, template asm has repeated or unknown labels%n", name);
+            return true;
+        }
+
+        first.run();
+        second.run();
+        boolean same = first.getError() == null ?
+                second.getError() == null && first.getVariables().equals(second.getVariables()) :
+                first.getError().equals(second.getError());
+        if (!same){
+            System.out.printf("%s: FAILED, template: %s %s, optimized: %s %s%n", name,
+                    first.getError(), first.getVariables(), second.getError(), second.getVariables());
+            return false;
+        }
+
+        int templateCount = count(template), optimizedCount = count(optimized);
+        staticTemplate += templateCount;
+        staticOptimized += optimizedCount;
+        /* executed counts of failed runs are not comparable */
+        if (first.getError() == null){
+            executedTemplate += first.getExecuted();
+            executedOptimized += second.getExecuted();
+        }
+        if (print)
+            System.out.printf("%s: static %d -> %d, executed %d -> %d%s%n", name, templateCount, optimizedCount,
+                    first.getExecuted(), second.getExecuted(),
+                    first.getError() == null ? "" : ", both fail with " + first.getError());
+        return true;
+    }
+
+    /**
+     * count instructions of code, labels and directives are not counted
+     * @param code - instructions
+     * @return - count of instructions
+     */
+    private static int count(InstructionBuffer code){
+        int count = 0;
+        for (int i = 0; i < code.size(); i++) {
+            if (!AsmSimulator.isPseudo(code.getOpcode(i)))
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * generator of random terminating programs, loops are ranges or counted whiles,
+     * functions call only previous functions, divisors are odd, so they are not zero
+     * else is not generated, asm creator does not support it in functions
+     * template asm creator names labels of while by enclosing for, so only one while is generated
+     * outside of for statements and in every body of for statement, break and continue are generated only in body
+     * of for statement, template asm creator jumps from them in while statement to missed label
+     */
+    private static class Generator {
+        private final Random random;
+        /* count of parameters of every function */
+        private int[] functions = new int[0];
+        /* counter of names of for variables */
+        private int loops;
+        /* is while generated outside of for statements */
+        private boolean outerWhile;
+
+        Generator(int seed){
+            random = new Random(seed);
+        }
+
+        String program(){
+            StringBuilder text = new StringBuilder("def out(v):\n    return v\n\n");
+            for (int i = random.nextInt(4); i > 0; i--) {
+                function(text);
+            }
+            String[] variables = {"a", "b", "c", "d"};
+            text.append("t = 0\n");
+            for (String variable : variables) {
+                text.append(variable).append(" = ").append(literal()).append('\n');
+            }
+            for (int depth = 1; depth <= DEPTH; depth++) {
+                text.append('w').append(depth).append(" = 0\n");
+            }
+            block(text, variables, DEPTH, "", false, false);
+            return text.append("out(a + b + c + d)\n").toString();
+        }
+
+        private void function(StringBuilder text){
+            int index = functions.length, count = random.nextInt(4);
+            String[] parameters = new String[count];
+            for (int i = 0; i < count; i++) {
+                parameters[i] = "p" + i;
+            }
+            text.append("def f").append(index).append('(').append(String.join(", ", parameters)).append("):\n");
+            if (count > 0 && !outerWhile && random.nextBoolean()){
+                outerWhile = true;
+                text.append("    p0 = p0 & 15\n    while p0 > 0:\n        p0 = p0 - 1\n");
+                if (count > 1)
+                    text.append("        p1 = ").append(expression(parameters, 2)).append('\n');
+            }
+            for (int i = random.nextInt(3); i > 0; i--) {
+                text.append("    if ").append(expression(parameters, 3)).append(":\n        return ")
+                        .append(expression(parameters, 3)).append('\n');
+            }
+            if (count > 0 && random.nextBoolean())
+                text.append("    ").append(parameters[random.nextInt(count)]).append(' ')
+                        .append(AUGMENTED[random.nextInt(AUGMENTED.length)]).append("= ")
+                        .append(expression(parameters, 2)).append('\n');
+            text.append("    return ").append(expression(parameters, 3)).append("\n\n");
+
+            functions = Arrays.copyOf(functions, index + 1);
+            functions[index] = count;
+        }
+
+        private void block(StringBuilder text, String[] variables, int depth, String indent,
+                           boolean inLoop, boolean inFor){
+            boolean hasWhile = !inFor && (inLoop || outerWhile);
+            for (int i = 1 + random.nextInt(4); i > 0; i--) {
+                int kind = random.nextInt(10);
+                if (kind < 3){
+                    String variable = variables[random.nextInt(variables.length)];
+                    text.append(indent).append(variable);
+                    if (random.nextInt(10) < 3)
+                        text.append(' ').append(AUGMENTED[random.nextInt(AUGMENTED.length)]).append("= ");
+                    else
+                        text.append(" = ");
+                    text.append(expression(variables, 3)).append('\n');
+                }
+                else if (kind == 5 && depth > 0){
+                    String variable = "i" + loops++;
+                    int start = random.nextInt(7) - 3, end = random.nextInt(10) - 2;
+                    text.append(indent).append("for ").append(variable).append(" in ");
+                    switch (random.nextInt(4)){
+                        case 0: text.append("range(").append(end).append("):\n"); break;
+                        case 1: text.append("range(").append(start).append(", ").append(end).append("):\n"); break;
+                        case 2: text.append("range(").append(start).append(", ").append(end).append(", ")
+                                .append(1 + random.nextInt(3)).append("):\n"); break;
+                        default: text.append("range(").append(variables[random.nextInt(variables.length)])
+                                .append(" & 3, ").append(variables[random.nextInt(variables.length)]).append(" & 7):\n");
+                    }
+                    String[] inner = Arrays.copyOf(variables, variables.length + 1);
+                    inner[variables.length] = variable;
+                    block(text, inner, depth - 1, indent + "    ", true, true);
+                }
+                else if (kind == 6 && depth > 0 && !hasWhile){
+                    hasWhile = true;
+                    outerWhile |= !inLoop;
+                    String variable = "w" + depth;
+                    text.append(indent).append(variable).append(" = 0\n").append(indent).append("while ").append(variable)
+                            .append(" < ").append(random.nextInt(6))
+                            .append(random.nextBoolean() ? "" : " and " + expression(variables, 1))
+                            .append(":\n").append(indent).append("    ").append(variable).append(" += 1\n");
+                    block(text, variables, depth - 1, indent + "    ", true, false);
+                }
+                else if (kind == 7 && inFor)
+                    text.append(indent).append("if ").append(expression(variables, 3)).append(":\n").append(indent)
+                            .append(inFor && random.nextBoolean() ? "    continue\n" : "    break\n");
+                else
+                    text.append(indent).append("t = out(").append(expression(variables, 3)).append(")\n");
+            }
+        }
+
+        private String expression(String[] variables, int depth){
+            if (depth <= 0 || random.nextInt(4) == 0)
+                return variables.length > 0 && random.nextInt(10) < 6 ?
+                        variables[random.nextInt(variables.length)] : literal();
+
+            int kind = random.nextInt(18);
+            if (kind < 9)
+                return "(" + expression(variables, depth - 1) + " " + OPERATIONS[random.nextInt(OPERATIONS.length)] +
+                        " " + expression(variables, depth - 1) + ")";
+            if (kind < 11)
+                return "(" + expression(variables, depth - 1) + (random.nextBoolean() ? " / " : " % ") + "((" +
+                        expression(variables, depth - 1) + ") | 1))";
+            if (kind < 13)
+                return "(" + expression(variables, depth - 1) + (random.nextBoolean() ? " and " : " or ") +
+                        expression(variables, depth - 1) + ")";
+            if (kind == 13)
+                return "(-" + expression(variables, depth - 1) + ")";
+            if (kind == 14)
+                return "(" + expression(variables, depth - 1) + " if " + expression(variables, depth - 1) +
+                        " else " + expression(variables, depth - 1) + ")";
+            if (kind == 15 && functions.length > 0){
+                int function = random.nextInt(functions.length);
+                String[] arguments = new String[functions[function]];
+                for (int i = 0; i < arguments.length; i++) {
+                    arguments[i] = expression(variables, depth - 2);
+                }
+                return "f" + function + "(" + String.join(", ", arguments) + ")";
+            }
+            return expression(variables, depth - 1);
+        }
+
+        private String literal(){
+            return LITERALS[random.nextInt(LITERALS.length)];
+        }
+    }
+}
@@ -0,0 +1,95 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * test that parallel parsing of top-level functions gives the same asm as serial parsing
+ * source with many functions is compiled by two jvm, with one thread and with several threads of common pool,
+ * labels of asm have ids of nodes, so files must be byte-identical
+ * run: java -cp <classes of src and test> ParallelParseTest
+ */
+public class ParallelParseTest {
+    /* count of generated functions, source must be bigger than threshold of parallel parsing */
+    private static final int DEFS = 14_000;
+    /* parallelism of common pool for every compilation, the first one is serial */
+    private static final int[] PARALLELISM = {1, 4};
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        /* compilation in child jvm */
+        if (args.length == 2){
+            compile(args[0], args[1]);
+            return;
+        }
+
+        File source = File.createTempFile("parallel", ".py");
+        Files.writeString(source.toPath(), source());
+
+        byte[][] results = new byte[PARALLELISM.length][];
+        for (int i = 0; i < PARALLELISM.length; i++) {
+            File asm = File.createTempFile("parallel" + PARALLELISM[i], ".asm");
+            Process process = new ProcessBuilder(
+                    new File(System.getProperty("java.home"), "bin/java").getPath(),
+                    "-Djava.util.concurrent.ForkJoinPool.common.parallelism=" + PARALLELISM[i],
+                    "-cp", System.getProperty("java.class.path"),
+                    ParallelParseTest.class.getName(), source.getPath(), asm.getPath())
+                    .inheritIO().start();
+            if (process.waitFor() != 0){
+                System.out.printf("Compilation with parallelism %d failed%n", PARALLELISM[i]);
+                System.exit(1);
+            }
+            results[i] = Files.readAllBytes(asm.toPath());
+            asm.delete();
+        }
+        source.delete();
+
+        boolean passed = true;
+        for (int i = 1; i < results.length; i++) {
+            boolean same = Arrays.equals(results[0], results[i]);
+            System.out.printf("parallelism %d: asm %d bytes, %s serial asm%n",
+                    PARALLELISM[i], results[i].length, same ? "same as" : "differs from");
+            passed &= same;
+        }
+
+        System.out.println(passed ? "Parallel parsing is deterministic" : "Parallel parsing test failed");
+        if (!passed)
+            System.exit(1);
+    }
+
+    /**
+     * create source with functions, which have blocks with labels,
+     * some functions use function of other chunk as parameter, so they are parsed again by main parser
+     * @return - source text
+     */
+    private static String source(){
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < DEFS; i++) {
+            if (i % 1000 == 999)
+                text.append(String.format("def f%d(a, f0()):%n", i));
+            else
+                text.append(String.format("def f%d(a, b):%n", i));
+            text.append(String.format("    c = a * %d + a%n", i))
+                    .append("    if c > 3:\n        c = c - 1\n")
+                    .append("    while c < 10:\n        c += 2\n")
+                    .append("    for i in range(c):\n        c = c - i\n")
+                    .append("    return c\n");
+        }
+        return text.append("x = f1(2, 3)\n").toString();
+    }
+
+    /**
+     * lex, parse and create asm of source
+     * @param source - name of source file
+     * @param asm - name of asm file
+     */
+    private static void compile(String source, String asm) {
+        try {
+            Parser parser = new Parser(new Lexer(source, true).getTokens());
+            if (!new ASM_Creator(parser.getMainAST(), parser.getDefAST()).createFile(asm))
+                System.exit(1);
+        } catch (CompilerException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+}
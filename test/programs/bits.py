@@ -0,0 +1,7 @@
+acc = 0
+for i in range(5000):
+    v = i ^ (i << 3) | (i >> 2) & 255
+    acc = (acc + v * 3 - (v % 7)) % 1000003
+    acc = acc if acc > 0 else -acc
+    acc = acc + (1 if v > 100 and v < 4000 or v == 0 else 2)
+r = acc
@@ -0,0 +1,9 @@
+best = 0
+for i in range(1, 300):
+    n = i
+    c = 0
+    while n != 1:
+        n = n / 2 if n % 2 == 0 else 3 * n + 1
+        c = c + 1
+    best = c if c > best else best
+r = best
@@ -0,0 +1,16 @@
+def scale(v):
+    return v * 1 + 0 - (2 * 3 - 6) + (v << 0) * (1 if 4 > 3 else 9)
+
+SIZE = 64 * 4 + 16 / 4 - (1 << 3)
+s = 0
+for k in range(200):
+    if 1 + 1 == 3:
+        s = s + 1000
+        break
+    d = k * (3 * 4 + 1) + 0 * k
+    s = s + scale(k) + d % (10 * 10) + (-1 & k) + -(-k)
+    s = s + (k if 0 else 2) + (1 and k > 5) + (0 or k < 3)
+    while 0:
+        s = s - 1
+    s = s - 100000 if s > 100000 else s
+x = s + SIZE
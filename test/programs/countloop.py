@@ -0,0 +1,8 @@
+s = 0
+n = 50
+for i in range(1000):
+    s = s + i
+for j in range(n):
+    for k in range(3, 40, 2):
+        s = s + k
+x = s
@@ -0,0 +1,11 @@
+a = 2147483647 + 1
+b = -2147483648 / -1 if 0 else 7
+c = 1 << 33
+d = -7 / 2
+e = -7 % 2
+f = 5 >> 40
+g = 0x10 + 0b11 + 0o7 + 'a'
+h = (3 > 2) + (2 >= 2) + (1 < 0) + (1 <= 0) + (4 == 4) + (4 != 4)
+i = 6 ^ 3 | 8 & 12
+j = a * 0 + b * 1 + 0 * c
+x = a + b + c + d + e + f + g + h + i + j
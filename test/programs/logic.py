@@ -0,0 +1,23 @@
+def f(a, b):
+    return a if a > b and b > 0 or a == 7 else b
+
+s = 0
+for i in range(40):
+    for j in range(12):
+        t = i > j and j > 3
+        u = i < 5 or j == 2
+        v = (i and j) + (i or j) + (0 or j) + (i and 0)
+        w = (i > 3 and j < 8 or i == j) and (j != 1 or i >= 20)
+        if i > j and (j > 3 or i == 10):
+            s = s + 1
+            break
+        if (i or j) and i - j:
+            s = s + 3
+            break
+        s = s + t + u + v * 2 + w * 5 + f(i, j) + (i if j > 4 and i < 30 else j)
+        if i <= j:
+            break
+    k = 0
+    while k < 5 and s > 0 or k == 5:
+        k = k + 1
+x = s
@@ -0,0 +1,13 @@
+def mulmod(a, b):
+    return a * b % 1000
+
+def poly(x):
+    return x * x * 3 + x * 7 - 11
+
+s = 0
+for k in range(300):
+    s = s + mulmod(k, k + 1) + poly(k % 50)
+    s = s - 100000 if s > 100000 else s
+    for j in range(10):
+        s = s + j * k % 7
+x = s
@@ -0,0 +1,3 @@
+x = 5
+y = x % -1
+z = x % 1
@@ -0,0 +1,19 @@
+def f(a, b):
+    return a * 3 - b
+
+def g(x):
+    return f(x, x + 1) + f(x - 1, 2)
+
+a = 7
+b = 3
+c = (a + b) * (a - b) * ((a ^ b) + (a | b) * (a & b)) - ((a << 2) - (b >> 1)) * ((a * b) - (a + 1) * (b + 2))
+d = ((((a + 1) * (b + 2)) * ((a + 3) * (b + 4))) * (((a + 5) * (b + 6)) * ((a + 7) * (b + 8)))) % 1000003
+e = f(a + b, g(c % 100)) * (a - f(b, a)) + g(g(a)) - (f(1, 2) if a > b else g(3))
+h = (a > b and b > 1 or c == 0) + (a == 0) + (a < b or b == 3) * 10 + (c if c > d else d) % 97
+i = a << b
+j = (d >> (a - 5)) + (a << 40) + (c / b) + (c % (b + 1)) + (-c / 7) + (-c % 7)
+k = 1 + (2 + (3 + (4 + (5 + (6 + (7 + (8 + (a + (b + (c + d))))))))))
+l = (((((((((a - 1) - 2) - 3) - 4) - 5) - 6) - b) - c) - d)
+m = f(f(f(a, b), f(b, a)), f(f(1, 2), f(3, 4)))
+n = (a + b * f(c % 10, d % 10) - c / (b + 1)) * (k - l) + (m if m > 0 and k > 0 else -m)
+r = c + d + e + h + i + j + k + l + m + n
@@ -0,0 +1,10 @@
+def sq(x):
+    return x * x
+
+t = 0
+for q in range(40):
+    u = q * 3 - 7
+    v = (u * u + q) % 13 - (q / 3) * (u % 5) + (sq(q) - sq(u)) * ((q & 3) + (u | 1))
+    w = (v if v > 0 else -v) + (1 if q > 5 and u < 50 or q == 0 else 2) * (q << (q % 5)) + ((v >> 2) ^ u)
+    t = (t + w * 31 + sq(w % 100)) % 1000003
+r = t
@@ -0,0 +1,11 @@
+def loc(p):
+    z = p + 1
+    y = z * 2
+    return y
+
+a = 5
+b = 6
+c = a + loc(b) * a - b
+d = loc(a) + a
+x = b = 3
+e = a + b + c + d
@@ -0,0 +1,11 @@
+count = 0
+for n in range(2, 1500):
+    p = 1
+    for d in range(2, n):
+        if d * d > n:
+            break
+        if n % d == 0:
+            p = 0
+            break
+    count = count + (1 if p else 0)
+r = count
@@ -0,0 +1,24 @@
+def g(v):
+    return v % 7
+
+s = 0
+i = 0
+while i < 300:
+    i = i + 1
+    if i % 3 == 0:
+        continue
+    if i > 250:
+        break
+    s = s + i
+k = 0
+while k < 40 and s > 0:
+    k = k + 2
+    s = s - g(k)
+m = 0
+while g(m) != 6:
+    m = m + 1
+for j in range(k * 2 if k > 3 else 5):
+    if j == 3:
+        continue
+    s = s + j
+x = s + k + m